@@ -1,4 +1,4 @@
-export type SseEventHandler = (eventName: string, data: string) => void
+export type SseEventHandler = (eventName: string, data: string, id?: string) => void
 
 /**
  * POST a JSON body and parse an SSE response from the ReadableStream.
@@ -19,7 +19,32 @@ export async function postSse(
     body: JSON.stringify(body),
     signal,
   })
+  await readSse(response, onEvent)
+}
+
+/**
+ * GET an SSE stream, resuming after lastEventId when given.
+ */
+export async function getSse(
+  url: string,
+  onEvent: SseEventHandler,
+  signal?: AbortSignal,
+  lastEventId?: string,
+): Promise<void> {
+  const headers: Record<string, string> = { Accept: 'text/event-stream' }
+  if (lastEventId) {
+    headers['Last-Event-ID'] = lastEventId
+  }
+  const response = await fetch(url, {
+    method: 'GET',
+    headers,
+    credentials: 'include',
+    signal,
+  })
+  await readSse(response, onEvent)
+}
 
+async function readSse(response: Response, onEvent: SseEventHandler): Promise<void> {
   if (!response.ok) {
     throw new Error(await readHttpErrorMessage(response))
   }
@@ -75,6 +100,7 @@ function dispatchSseBlock(raw: string, onEvent: SseEventHandler): void {
     return
   }
   let eventName = 'message'
+  let id: string | undefined
   const dataLines: string[] = []
   for (const line of raw.split('\n')) {
     if (!line || line.startsWith(':')) {
@@ -84,6 +110,10 @@ function dispatchSseBlock(raw: string, onEvent: SseEventHandler): void {
       eventName = line.slice(6).trim()
       continue
     }
+    if (line.startsWith('id:')) {
+      id = line.slice(3).trim()
+      continue
+    }
     if (line.startsWith('data:')) {
       dataLines.push(line.slice(5).replace(/^ /, ''))
     }
@@ -91,5 +121,5 @@ function dispatchSseBlock(raw: string, onEvent: SseEventHandler): void {
   if (eventName === 'message' && dataLines.length === 0) {
     return
   }
-  onEvent(eventName, dataLines.join('\n'))
+  onEvent(eventName, dataLines.join('\n'), id)
 }
@@ -5,10 +5,12 @@ import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication(exclude = RedisEmbeddingStoreAutoConfiguration.class)
 @MapperScan("com.aih.pagepilot.mapper")
 @EnableCaching
+@EnableScheduling
 public class PagePilotApplication {
 
     public static void main(String[] args) {
@@ -6,17 +6,19 @@ import dev.langchain4j.service.MemoryId;
 import dev.langchain4j.service.SystemMessage;
 import dev.langchain4j.service.TokenStream;
 import dev.langchain4j.service.UserMessage;
+import dev.langchain4j.service.memory.ChatMemoryAccess;
 import reactor.core.publisher.Flux;
 
 /**
  * <p>
  * AI服务接口
+ * 每种代码生成类型共用一个实例，对话记忆按 {@link MemoryId} 区分应用
  * </p>
  *
  * @author zeng.liqiang
  * @date 2025/9/19
  */
-public interface AiCodeGeneratorService {
+public interface AiCodeGeneratorService extends ChatMemoryAccess {
 
     /**
      * 生成 HTML 代码
@@ -55,10 +57,50 @@ public interface AiCodeGeneratorService {
     @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
     Flux<String> generateMultiFileCodeStream(String userMessage);
 
+    /**
+     * 生成 HTML 代码（流式，使用应用的对话记忆）
+     *
+     * @param appId       应用 ID
+     * @param userMessage 用户消息
+     * @return 代码流
+     */
+    @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
+    Flux<String> generateHtmlCodeStream(@MemoryId Long appId, @UserMessage String userMessage);
+
+    /**
+     * 生成多文件代码（流式，使用应用的对话记忆）
+     *
+     * @param appId       应用 ID
+     * @param userMessage 用户消息
+     * @return 代码流
+     */
+    @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
+    Flux<String> generateMultiFileCodeStream(@MemoryId Long appId, @UserMessage String userMessage);
+
 
     @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
     HtmlCodeResult generateHtmlCode(@MemoryId int memoryId, @UserMessage String userMessage);
 
+    /**
+     * 生成 HTML 代码（使用应用的对话记忆）
+     *
+     * @param appId       应用 ID
+     * @param userMessage 用户消息
+     * @return 生成的代码结果
+     */
+    @SystemMessage(fromResource = "prompt/codegen-html-system-prompt.txt")
+    HtmlCodeResult generateHtmlCode(@MemoryId Long appId, @UserMessage String userMessage);
+
+    /**
+     * 生成多文件代码（使用应用的对话记忆）
+     *
+     * @param appId       应用 ID
+     * @param userMessage 用户消息
+     * @return 生成的代码结果
+     */
+    @SystemMessage(fromResource = "prompt/codegen-multi-file-system-prompt.txt")
+    MultiFileCodeResult generateMultiFileCode(@MemoryId Long appId, @UserMessage String userMessage);
+
     /**
      * 生成 Vue 项目代码（流式）
      *
@@ -1,25 +1,33 @@
 package com.aih.pagepilot.ai;
 
 import com.aih.pagepilot.ai.guardrail.PromptSafetyInputGuardrail;
+import com.aih.pagepilot.ai.memory.ChatMemorySummarizer;
+import com.aih.pagepilot.ai.memory.TieredChatMemoryStore;
+import com.aih.pagepilot.ai.memory.TokenBudgetChatMemory;
 import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
 import com.aih.pagepilot.ai.tools.ToolManager;
+import com.aih.pagepilot.config.ChatMemoryConfig;
 import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
-import com.aih.pagepilot.service.ChatHistoryService;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import dev.langchain4j.data.message.ToolExecutionResultMessage;
-import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.memory.ChatMemory;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.service.AiServices;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * <p>
@@ -43,85 +51,160 @@ public class AiCodeGeneratorServiceFactory {
     private StreamingChatModel reasoningStreamingChatModel;
 
     @Resource
-    private RedisChatMemoryStore redisChatMemoryStore;
+    private TieredChatMemoryStore chatMemoryStore;
 
     @Resource
-    private ChatHistoryService chatHistoryService;
+    private ChatMemorySummarizer chatMemorySummarizer;
+
+    @Resource
+    private ChatMemoryConfig chatMemoryConfig;
 
     @Resource
     private ToolManager toolManager;
 
     /**
-     * AI 服务实例缓存
+     * 每种代码生成类型一个服务实例，工具规格、代理类与护轨只在创建时构建一次
+     */
+    private final Map<CodeGenTypeEnum, AiCodeGeneratorService> services = new EnumMap<>(CodeGenTypeEnum.class);
+
+    /**
+     * 对话记忆闲置多久后移除
+     */
+    private static final Duration CHAT_MEMORY_IDLE_TIMEOUT = Duration.ofMinutes(10);
+
+    /**
+     * 正在生成的应用及其进行中的生成数，生成期间该应用的对话记忆不会被移除
+     */
+    private final Map<Long, Integer> activeGenerations = new ConcurrentHashMap<>();
+
+    /**
+     * 应用对话记忆缓存，所有类型的服务共用同一个应用的记忆
+     * 服务内部会持有记忆，缓存只在首次使用时被读取，因此每轮生成开始和结束时都会刷新一次缓存项
      * 缓存策略：
-     * - 最大缓存 1000 个实例
-     * - 写入后 30 分钟过期
-     * - 访问后 10 分钟过期
+     * - 最大缓存 1000 个应用，生成中的应用不计入容量
+     * - 生成结束后闲置 10 分钟过期，生成中不过期
+     * 移除时同步从各服务中移除该应用的记忆
      */
-    private final Cache<String, AiCodeGeneratorService> serviceCache = Caffeine.newBuilder()
-            .maximumSize(1000)
-            .expireAfterWrite(Duration.ofMinutes(30))
-            .expireAfterAccess(Duration.ofMinutes(10))
-            .removalListener((key, value, cause) -> {
-                log.debug("AI 服务实例被移除，appId: {}, 原因: {}", key, cause);
+    private final Cache<Long, TokenBudgetChatMemory> chatMemoryCache = Caffeine.newBuilder()
+            .maximumWeight(1000)
+            .weigher((Long appId, TokenBudgetChatMemory chatMemory) -> activeGenerations.containsKey(appId) ? 0 : 1)
+            .expireAfter(new Expiry<Long, TokenBudgetChatMemory>() {
+
+                @Override
+                public long expireAfterCreate(Long appId, TokenBudgetChatMemory chatMemory, long currentTime) {
+                    return idleTimeoutNanos(appId);
+                }
+
+                @Override
+                public long expireAfterUpdate(Long appId, TokenBudgetChatMemory chatMemory, long currentTime,
+                                              long currentDuration) {
+                    return idleTimeoutNanos(appId);
+                }
+
+                @Override
+                public long expireAfterRead(Long appId, TokenBudgetChatMemory chatMemory, long currentTime,
+                                            long currentDuration) {
+                    return idleTimeoutNanos(appId);
+                }
+            })
+            .removalListener((Long appId, TokenBudgetChatMemory chatMemory, RemovalCause cause) -> {
+                if (cause == RemovalCause.REPLACED) {
+                    // 刷新缓存项时写回的是同一个记忆对象
+                    return;
+                }
+                log.debug("应用对话记忆被移除，appId: {}, 原因: {}", appId, cause);
+                services.values().forEach(service -> service.evictChatMemory(appId));
             })
             .build();
 
+    @PostConstruct
+    public void initServices() {
+        for (CodeGenTypeEnum codeGenType : CodeGenTypeEnum.values()) {
+            services.put(codeGenType, createAiCodeGeneratorService(codeGenType));
+        }
+    }
+
     /**
      * 默认提供一个 Bean
      */
     @Bean
     public AiCodeGeneratorService aiCodeGeneratorService() {
-        return getAiCodeGeneratorService(0L);
+        return getAiCodeGeneratorService(CodeGenTypeEnum.HTML);
     }
 
     /**
-     * 根据 appId 获取服务（带缓存）
+     * 根据代码生成类型获取服务，调用时通过 {@code @MemoryId} 传入应用 ID
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(Long appId) {
-        return this.getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
+    public AiCodeGeneratorService getAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        AiCodeGeneratorService service = services.get(codeGenType);
+        if (service == null) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType.getValue());
+        }
+        return service;
     }
 
     /**
-     * 根据 appId 和代码生成类型获取服务（带缓存）
+     * 开始应用的一轮生成，其他节点丢弃该应用的本地记忆缓存；生成结束前本节点不移除该应用的记忆
+     * 必须与 {@link #flushChatMemory(Long)} 成对调用
      */
-    public AiCodeGeneratorService getAiCodeGeneratorService(Long appId, CodeGenTypeEnum codeGenType) {
-        String cacheKey = buildCacheKey(appId, codeGenType);
-        return serviceCache.get(cacheKey, key -> createAiCodeGeneratorService(appId, codeGenType));
+    public void claimChatMemory(Long appId) {
+        activeGenerations.merge(appId, 1, Integer::sum);
+        refreshChatMemory(appId);
+        chatMemoryStore.claim(appId);
     }
 
     /**
-     * 构建缓存键
+     * 一轮生成结束，把本地记忆立即写回 Redis，该应用的记忆重新开始闲置计时
      */
-    private String buildCacheKey(Long appId, CodeGenTypeEnum codeGenType) {
-        return appId + "_" + codeGenType.getValue();
+    public void flushChatMemory(Long appId) {
+        chatMemoryStore.flush(appId);
+        activeGenerations.computeIfPresent(appId, (id, count) -> count > 1 ? count - 1 : null);
+        refreshChatMemory(appId);
     }
 
+    /**
+     * 按当前生成状态重新计算缓存项的过期时间和容量权重
+     */
+    private void refreshChatMemory(Long appId) {
+        chatMemoryCache.asMap().computeIfPresent(appId, (id, chatMemory) -> chatMemory);
+    }
+
+    private long idleTimeoutNanos(Long appId) {
+        return activeGenerations.containsKey(appId) ? Long.MAX_VALUE : CHAT_MEMORY_IDLE_TIMEOUT.toNanos();
+    }
 
     /**
-     * 创建 AI 代码生成服务
+     * 获取应用的对话记忆，历史对话由记忆存储在 Redis 中没有记录时按需补全
      *
-     * @return
+     * @param memoryId 记忆 ID，即应用 ID；未指定时为默认 ID
      */
-    public AiCodeGeneratorService createAiCodeGeneratorService(Long appId, CodeGenTypeEnum codeGenType) {
-        log.info("Creating AiCodeGeneratorService with ChatModel: {}", chatModel.getClass().getSimpleName());
-
-        // 根据 appId 构建独立的对话记忆
-        MessageWindowChatMemory chatMemory = MessageWindowChatMemory.builder()
-                .id(appId)
-                .chatMemoryStore(redisChatMemoryStore)
-                .maxMessages(100)
-                .build();
+    private ChatMemory getChatMemory(Object memoryId) {
+        if (!(memoryId instanceof Number number)) {
+            return buildChatMemory(memoryId);
+        }
+        return chatMemoryCache.get(number.longValue(), this::buildChatMemory);
+    }
 
-        // 从数据库加载历史对话到记忆中 - 懒加载
-        chatHistoryService.loadChatHistoryToMemory(appId, chatMemory, 20);
+    private TokenBudgetChatMemory buildChatMemory(Object memoryId) {
+        return new TokenBudgetChatMemory(memoryId, chatMemoryStore, chatMemoryConfig.getMaxTokens(),
+                chatMemoryConfig.getCompactThreshold(), chatMemoryConfig.isSummarize() ? chatMemorySummarizer : null);
+    }
 
+    /**
+     * 创建 AI 代码生成服务
+     *
+     * @param codeGenType 代码生成类型
+     * @return 服务实例
+     */
+    public AiCodeGeneratorService createAiCodeGeneratorService(CodeGenTypeEnum codeGenType) {
+        log.info("Creating AiCodeGeneratorService for {} with ChatModel: {}", codeGenType.getValue(),
+                chatModel.getClass().getSimpleName());
         // 根据代码生成类型选择不同的模型配置
         return switch (codeGenType) {
             // Vue 项目生成使用推理模型
             case VUE_PROJECT -> AiServices.builder(AiCodeGeneratorService.class)
                     .streamingChatModel(reasoningStreamingChatModel)
-                    .chatMemoryProvider(memoryId -> chatMemory)
+                    .chatMemoryProvider(this::getChatMemory)
                     .tools(toolManager.getAllTools())
                     .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(
                             toolExecutionRequest, "Error: there is no tool called " + toolExecutionRequest.name()
@@ -132,13 +215,11 @@ public class AiCodeGeneratorServiceFactory {
             case HTML, MULTI_FILE -> AiServices.builder(AiCodeGeneratorService.class)
                     .chatModel(chatModel)
                     .streamingChatModel(openAiStreamingChatModel)
-                    .chatMemory(chatMemory)
+                    .chatMemoryProvider(this::getChatMemory)
                     .inputGuardrails(new PromptSafetyInputGuardrail())
                     .build();
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR,
                     "不支持的代码生成类型: " + codeGenType.getValue());
         };
     }
-
-
 }
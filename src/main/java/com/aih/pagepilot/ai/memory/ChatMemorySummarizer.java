@@ -0,0 +1,92 @@
+package com.aih.pagepilot.ai.memory;
+
+import cn.hutool.core.util.StrUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.model.chat.ChatModel;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * <p>
+ * 对话记忆摘要器
+ * 超出 token 预算被移出记忆的旧消息在后台交给模型总结，摘要写回记忆开头，不阻塞生成
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+@Slf4j
+@Component
+public class ChatMemorySummarizer {
+
+    /**
+     * 摘要消息前缀，用于识别和替换记忆中已有的摘要
+     */
+    public static final String SUMMARY_PREFIX = "【之前对话的摘要】\n";
+
+    private static final int MAX_SUMMARY_CHARS = 1500;
+
+    private static final String PROMPT = """
+            请把下面这段网站生成对话总结成不超过 %d 字的中文摘要，供后续对话参考。
+            保留：用户的需求与偏好、已创建或修改的文件及其作用、尚未完成的事项。
+            省略：代码细节和寒暄。只输出摘要正文。
+
+            %s""";
+
+    @Resource
+    private ChatModel chatModel;
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("memory-summary-", 0).factory());
+
+    /**
+     * 异步总结消息
+     *
+     * @param messages 待总结的消息，可以包含之前的摘要
+     * @return 摘要正文，已带 {@link #SUMMARY_PREFIX} 前缀
+     */
+    public CompletableFuture<UserMessage> summarize(List<ChatMessage> messages) {
+        return CompletableFuture.supplyAsync(() -> {
+            String summary = chatModel.chat(String.format(PROMPT, MAX_SUMMARY_CHARS, render(messages)));
+            return UserMessage.from(SUMMARY_PREFIX + StrUtil.maxLength(StrUtil.trim(summary), MAX_SUMMARY_CHARS));
+        }, executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static String render(List<ChatMessage> messages) {
+        StringBuilder builder = new StringBuilder();
+        for (ChatMessage message : messages) {
+            if (message instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                builder.append("用户：").append(userMessage.singleText()).append('\n');
+            } else if (message instanceof AiMessage aiMessage) {
+                if (StrUtil.isNotBlank(aiMessage.text())) {
+                    builder.append("AI：").append(aiMessage.text()).append('\n');
+                }
+                if (aiMessage.hasToolExecutionRequests()) {
+                    for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                        builder.append("AI 调用工具 ").append(request.name()).append(' ')
+                                .append(request.arguments()).append('\n');
+                    }
+                }
+            } else if (message instanceof ToolExecutionResultMessage result) {
+                builder.append("工具结果：").append(result.text()).append('\n');
+            }
+        }
+        return builder.toString();
+    }
+}
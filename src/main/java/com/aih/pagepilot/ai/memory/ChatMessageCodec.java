@@ -0,0 +1,192 @@
+package com.aih.pagepilot.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageDeserializer;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * 对话消息的二进制编码
+ * 每条消息编码为：1 字节压缩标记 + [原始长度] + 负载；负载为 1 字节消息类型 + 按字段顺序写入的长度前缀 UTF-8 字符串。
+ * 负载超过 {@link #COMPRESS_THRESHOLD} 字节时用 LZ4 压缩；不支持的消息（如带图片的用户消息）退回 JSON。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/21
+ */
+public final class ChatMessageCodec {
+
+    private static final int COMPRESS_THRESHOLD = 256;
+
+    private static final byte RAW = 0;
+
+    private static final byte LZ4 = 1;
+
+    private static final byte TYPE_JSON = 0;
+
+    private static final byte TYPE_SYSTEM = 1;
+
+    private static final byte TYPE_USER = 2;
+
+    private static final byte TYPE_AI = 3;
+
+    private static final byte TYPE_TOOL_RESULT = 4;
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private ChatMessageCodec() {
+    }
+
+    public static byte[] encode(ChatMessage message) {
+        byte[] payload = encodePayload(message);
+        if (payload.length <= COMPRESS_THRESHOLD) {
+            byte[] raw = new byte[payload.length + 1];
+            raw[0] = RAW;
+            System.arraycopy(payload, 0, raw, 1, payload.length);
+            return raw;
+        }
+        byte[] compressed = new byte[5 + COMPRESSOR.maxCompressedLength(payload.length)];
+        compressed[0] = LZ4;
+        writeInt(compressed, 1, payload.length);
+        int length = COMPRESSOR.compress(payload, 0, payload.length, compressed, 5);
+        byte[] result = new byte[5 + length];
+        System.arraycopy(compressed, 0, result, 0, result.length);
+        return result;
+    }
+
+    public static ChatMessage decode(byte[] bytes) {
+        byte[] payload;
+        if (bytes[0] == LZ4) {
+            int length = readInt(bytes, 1);
+            payload = new byte[length];
+            DECOMPRESSOR.decompress(bytes, 5, payload, 0, length);
+        } else {
+            payload = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, payload, 0, payload.length);
+        }
+        return decodePayload(payload);
+    }
+
+    private static byte[] encodePayload(ChatMessage message) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            if (message instanceof SystemMessage systemMessage) {
+                out.writeByte(TYPE_SYSTEM);
+                writeString(out, systemMessage.text());
+            } else if (message instanceof UserMessage userMessage && userMessage.hasSingleText()) {
+                out.writeByte(TYPE_USER);
+                writeString(out, userMessage.name());
+                writeString(out, userMessage.singleText());
+            } else if (message instanceof AiMessage aiMessage) {
+                out.writeByte(TYPE_AI);
+                writeString(out, aiMessage.text());
+                List<ToolExecutionRequest> requests = aiMessage.hasToolExecutionRequests()
+                        ? aiMessage.toolExecutionRequests() : List.of();
+                out.writeInt(requests.size());
+                for (ToolExecutionRequest request : requests) {
+                    writeString(out, request.id());
+                    writeString(out, request.name());
+                    writeString(out, request.arguments());
+                }
+            } else if (message instanceof ToolExecutionResultMessage result) {
+                out.writeByte(TYPE_TOOL_RESULT);
+                writeString(out, result.id());
+                writeString(out, result.toolName());
+                writeString(out, result.text());
+            } else {
+                out.writeByte(TYPE_JSON);
+                writeString(out, ChatMessageSerializer.messageToJson(message));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static ChatMessage decodePayload(byte[] payload) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload))) {
+            byte type = in.readByte();
+            return switch (type) {
+                case TYPE_SYSTEM -> SystemMessage.from(readString(in));
+                case TYPE_USER -> {
+                    String name = readString(in);
+                    String text = readString(in);
+                    yield name == null ? UserMessage.from(text) : UserMessage.from(name, text);
+                }
+                case TYPE_AI -> {
+                    String text = readString(in);
+                    int count = in.readInt();
+                    List<ToolExecutionRequest> requests = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        requests.add(ToolExecutionRequest.builder()
+                                .id(readString(in))
+                                .name(readString(in))
+                                .arguments(readString(in))
+                                .build());
+                    }
+                    if (requests.isEmpty()) {
+                        yield AiMessage.from(text);
+                    }
+                    yield text == null ? AiMessage.from(requests) : AiMessage.from(text, requests);
+                }
+                case TYPE_TOOL_RESULT -> ToolExecutionResultMessage.from(readString(in), readString(in), readString(in));
+                case TYPE_JSON -> ChatMessageDeserializer.messageFromJson(readString(in));
+                default -> throw new IllegalStateException("unknown chat message type: " + type);
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >>> 24);
+        bytes[offset + 1] = (byte) (value >>> 16);
+        bytes[offset + 2] = (byte) (value >>> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] bytes, int offset) {
+        return (bytes[offset] & 0xFF) << 24 | (bytes[offset + 1] & 0xFF) << 16
+                | (bytes[offset + 2] & 0xFF) << 8 | bytes[offset + 3] & 0xFF;
+    }
+}
@@ -0,0 +1,200 @@
+package com.aih.pagepilot.ai.memory;
+
+import com.aih.pagepilot.service.ChatHistoryService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.xxhash.XXHash64;
+import net.jpountz.xxhash.XXHashFactory;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>
+ * 按需从数据库补全的对话记忆存储
+ * 每个应用的记忆窗口保存为一个 Redis 列表：首个元素是格式头，之后每个元素是一条 {@link ChatMessageCodec} 编码的消息。
+ * 读取时列表存在（包括只有格式头的空窗口）直接返回；不存在时才从数据库读取最近的对话历史，整个窗口一次写入。
+ * </p>
+ * 更新时与本节点最近一次读写的窗口比较：只在末尾追加消息时仅发送新增的消息，由脚本校验列表长度后追加；
+ * 其他变化（压缩、移出旧消息、长度不一致）整体重写。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+@Slf4j
+public class HydratingChatMemoryStore implements ChatMemoryStore {
+
+    private static final String KEY_PREFIX = "chat:memory:v2:";
+
+    private static final byte[] HEADER = "v2".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] NO_TTL = "0".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * ARGV[1] 期望的列表长度，ARGV[2] 过期毫秒数，ARGV[3..] 追加的元素
+     */
+    private static final String APPEND_SCRIPT = """
+            if redis.call('LLEN', KEYS[1]) ~= tonumber(ARGV[1]) then return 0 end
+            for i = 3, #ARGV do redis.call('RPUSH', KEYS[1], ARGV[i]) end
+            if tonumber(ARGV[2]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end
+            return 1""";
+
+    /**
+     * ARGV[1] 是否仅在不存在时写入，ARGV[2] 过期毫秒数，ARGV[3..] 全部元素
+     */
+    private static final String REPLACE_SCRIPT = """
+            if ARGV[1] == '1' and redis.call('EXISTS', KEYS[1]) == 1 then return 0 end
+            redis.call('DEL', KEYS[1])
+            for i = 3, #ARGV do redis.call('RPUSH', KEYS[1], ARGV[i]) end
+            if tonumber(ARGV[2]) > 0 then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end
+            return 1""";
+
+    private static final XXHash64 HASH = XXHashFactory.fastestInstance().hash64();
+
+    private final RedissonClient redissonClient;
+
+    private final ChatHistoryService chatHistoryService;
+
+    private final byte[] ttlMillis;
+
+    private final int hydrateCount;
+
+    /**
+     * 记忆 ID -> 本节点最近一次读写的各条消息编码摘要
+     */
+    private final Cache<Object, long[]> storedDigests = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterAccess(Duration.ofMinutes(30))
+            .build();
+
+    /**
+     * @param redissonClient     Redis 客户端
+     * @param chatHistoryService 对话历史服务，用于补全
+     * @param ttl                记忆过期时间，为 0 时不过期
+     * @param hydrateCount       补全时读取的历史条数
+     */
+    public HydratingChatMemoryStore(RedissonClient redissonClient, ChatHistoryService chatHistoryService,
+                                    Duration ttl, int hydrateCount) {
+        this.redissonClient = redissonClient;
+        this.chatHistoryService = chatHistoryService;
+        this.ttlMillis = ttl.isZero() ? NO_TTL : String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8);
+        this.hydrateCount = hydrateCount;
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        List<byte[]> elements = redissonClient.<byte[]>getList(key(memoryId), ByteArrayCodec.INSTANCE).readAll();
+        if (!elements.isEmpty()) {
+            List<byte[]> encoded = elements.subList(1, elements.size());
+            remember(memoryId, encoded);
+            return decode(encoded);
+        }
+        if (!(memoryId instanceof Number appId)) {
+            return new ArrayList<>();
+        }
+        List<ChatMessage> messages = chatHistoryService.loadChatHistoryMessages(appId.longValue(), hydrateCount);
+        List<byte[]> encoded = encode(messages);
+        // 并发补全或已有写入时以 Redis 中的为准
+        if (!replace(memoryId, encoded, true)) {
+            storedDigests.invalidate(memoryId);
+            elements = redissonClient.<byte[]>getList(key(memoryId), ByteArrayCodec.INSTANCE).readAll();
+            return elements.isEmpty() ? messages : decode(elements.subList(1, elements.size()));
+        }
+        remember(memoryId, encoded);
+        log.info("从数据库补全对话记忆, appId: {}, 消息数: {}", appId, messages.size());
+        return messages;
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        List<byte[]> encoded = encode(messages);
+        long[] digests = digest(encoded);
+        long[] previous = storedDigests.getIfPresent(memoryId);
+        if (previous != null && isPrefix(previous, digests)) {
+            if (previous.length == digests.length) {
+                return;
+            }
+            if (append(memoryId, previous.length + 1, encoded.subList(previous.length, encoded.size()))) {
+                storedDigests.put(memoryId, digests);
+                return;
+            }
+        }
+        replace(memoryId, encoded, false);
+        storedDigests.put(memoryId, digests);
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        storedDigests.invalidate(memoryId);
+        redissonClient.getList(key(memoryId), ByteArrayCodec.INSTANCE).delete();
+    }
+
+    private boolean append(Object memoryId, int expectedLength, List<byte[]> elements) {
+        List<Object> args = new ArrayList<>(elements.size() + 2);
+        args.add(String.valueOf(expectedLength).getBytes(StandardCharsets.UTF_8));
+        args.add(ttlMillis);
+        args.addAll(elements);
+        return eval(APPEND_SCRIPT, memoryId, args);
+    }
+
+    private boolean replace(Object memoryId, List<byte[]> elements, boolean onlyIfAbsent) {
+        List<Object> args = new ArrayList<>(elements.size() + 3);
+        args.add((onlyIfAbsent ? "1" : "0").getBytes(StandardCharsets.UTF_8));
+        args.add(ttlMillis);
+        args.add(HEADER);
+        args.addAll(elements);
+        return eval(REPLACE_SCRIPT, memoryId, args);
+    }
+
+    private boolean eval(String script, Object memoryId, List<Object> args) {
+        Long result = redissonClient.getScript(ByteArrayCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, script,
+                RScript.ReturnType.INTEGER, List.<Object>of(key(memoryId)), args.toArray());
+        return result != null && result == 1L;
+    }
+
+    private void remember(Object memoryId, List<byte[]> encoded) {
+        storedDigests.put(memoryId, digest(encoded));
+    }
+
+    private static boolean isPrefix(long[] prefix, long[] digests) {
+        return prefix.length <= digests.length && Arrays.equals(prefix, 0, prefix.length, digests, 0, prefix.length);
+    }
+
+    private static List<byte[]> encode(List<ChatMessage> messages) {
+        List<byte[]> encoded = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            encoded.add(ChatMessageCodec.encode(message));
+        }
+        return encoded;
+    }
+
+    private static List<ChatMessage> decode(List<byte[]> encoded) {
+        List<ChatMessage> messages = new ArrayList<>(encoded.size());
+        for (byte[] bytes : encoded) {
+            messages.add(ChatMessageCodec.decode(bytes));
+        }
+        return messages;
+    }
+
+    private static long[] digest(List<byte[]> encoded) {
+        long[] digests = new long[encoded.size()];
+        for (int i = 0; i < digests.length; i++) {
+            byte[] bytes = encoded.get(i);
+            digests[i] = HASH.hash(bytes, 0, bytes.length, 0);
+        }
+        return digests;
+    }
+
+    private static String key(Object memoryId) {
+        return KEY_PREFIX + memoryId;
+    }
+}
@@ -0,0 +1,189 @@
+package com.aih.pagepilot.ai.memory;
+
+import cn.hutool.core.util.IdUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 两级对话记忆存储：本节点 Caffeine 近缓存 + Redis
+ * 读取优先命中本地；写入只更新本地并标记为脏，由后台定时批量写回 Redis，一轮生成结束时立即写回。
+ * 节点开始某个应用的生成时广播失效，其他节点丢弃该应用的本地记忆，下次读取时从 Redis 重新加载。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/21
+ */
+@Slf4j
+public class TieredChatMemoryStore implements ChatMemoryStore {
+
+    private static final String INVALIDATE_TOPIC = "chat-memory:invalidate";
+
+    private static final String MESSAGE_SEPARATOR = ":";
+
+    private final ChatMemoryStore remote;
+
+    private final RTopic invalidateTopic;
+
+    private final String nodeId = IdUtil.fastSimpleUUID();
+
+    /**
+     * 记忆 ID 字符串 -> 本地记忆
+     */
+    private final Cache<String, Entry> local;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("chat-memory-flush").daemon().factory());
+
+    /**
+     * @param remote          Redis 存储
+     * @param redissonClient  Redis 客户端，用于广播失效
+     * @param flushInterval   后台写回间隔
+     * @param maxLocalEntries 本地缓存的记忆数上限
+     */
+    public TieredChatMemoryStore(ChatMemoryStore remote, RedissonClient redissonClient, Duration flushInterval,
+                                 int maxLocalEntries) {
+        this.remote = remote;
+        this.invalidateTopic = redissonClient.getTopic(INVALIDATE_TOPIC);
+        this.local = Caffeine.newBuilder()
+                .maximumSize(maxLocalEntries)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    // 容量或过期淘汰时写回未保存的修改
+                    if (entry != null && cause.wasEvicted()) {
+                        flush(entry);
+                    }
+                })
+                .build();
+        invalidateTopic.addListener(String.class, (channel, message) -> onInvalidate(message));
+        long interval = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushAll, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public List<ChatMessage> getMessages(Object memoryId) {
+        Entry entry = local.get(key(memoryId), key -> new Entry(memoryId, remote.getMessages(memoryId)));
+        synchronized (entry) {
+            return new ArrayList<>(entry.messages);
+        }
+    }
+
+    @Override
+    public void updateMessages(Object memoryId, List<ChatMessage> messages) {
+        Entry entry = local.get(key(memoryId), key -> new Entry(memoryId, List.of()));
+        synchronized (entry) {
+            entry.messages = new ArrayList<>(messages);
+            entry.dirty = true;
+        }
+    }
+
+    @Override
+    public void deleteMessages(Object memoryId) {
+        local.invalidate(key(memoryId));
+        remote.deleteMessages(memoryId);
+    }
+
+    /**
+     * 立即写回记忆，一轮生成结束时调用
+     */
+    public void flush(Object memoryId) {
+        Entry entry = local.getIfPresent(key(memoryId));
+        if (entry != null) {
+            flush(entry);
+        }
+    }
+
+    /**
+     * 本节点开始该记忆的生成，通知其他节点丢弃本地缓存
+     */
+    public void claim(Object memoryId) {
+        invalidateTopic.publish(nodeId + MESSAGE_SEPARATOR + key(memoryId));
+    }
+
+    /**
+     * 写回全部未保存的修改并停止后台任务，容器关闭时调用
+     */
+    public void shutdown() {
+        flusher.shutdown();
+        flushAll();
+    }
+
+    private void flushAll() {
+        for (Entry entry : local.asMap().values()) {
+            if (entry.dirty) {
+                flush(entry);
+            }
+        }
+    }
+
+    /**
+     * 同一记忆的写回串行执行，避免旧快照覆盖新快照
+     */
+    private void flush(Entry entry) {
+        synchronized (entry.flushLock) {
+            List<ChatMessage> snapshot;
+            synchronized (entry) {
+                if (!entry.dirty) {
+                    return;
+                }
+                snapshot = entry.messages;
+                entry.dirty = false;
+            }
+            try {
+                remote.updateMessages(entry.memoryId, snapshot);
+            } catch (Exception e) {
+                log.error("对话记忆写回失败, memoryId: {}", entry.memoryId, e);
+                synchronized (entry) {
+                    // 期间没有新的修改时恢复脏标记，等待下次写回
+                    if (entry.messages == snapshot) {
+                        entry.dirty = true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void onInvalidate(String message) {
+        int separator = message.indexOf(MESSAGE_SEPARATOR);
+        if (message.substring(0, separator).equals(nodeId)) {
+            return;
+        }
+        Entry entry = local.asMap().remove(message.substring(separator + MESSAGE_SEPARATOR.length()));
+        if (entry != null && entry.dirty) {
+            log.warn("对话记忆已由其他节点接管，丢弃本地未写回的修改, memoryId: {}", entry.memoryId);
+        }
+    }
+
+    private static String key(Object memoryId) {
+        return String.valueOf(memoryId);
+    }
+
+    private static final class Entry {
+
+        private final Object memoryId;
+
+        private final Object flushLock = new Object();
+
+        private List<ChatMessage> messages;
+
+        private volatile boolean dirty;
+
+        private Entry(Object memoryId, List<ChatMessage> messages) {
+            this.memoryId = memoryId;
+            this.messages = messages;
+        }
+    }
+}
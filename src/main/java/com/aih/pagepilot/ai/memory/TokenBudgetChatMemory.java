@@ -0,0 +1,194 @@
+package com.aih.pagepilot.ai.memory;
+
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * 按 token 预算保留的对话记忆
+ * 每轮开始（加入用户消息）时压缩之前轮次的大段工具载荷；超出预算时从之前轮次中最早的一轮开始整轮移出，
+ * 移出的消息交给摘要器在后台总结后以一条摘要消息写回记忆开头。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+@Slf4j
+public class TokenBudgetChatMemory implements ChatMemory {
+
+    private final Object id;
+
+    private final ChatMemoryStore store;
+
+    private final int maxTokens;
+
+    private final int compactThreshold;
+
+    /**
+     * 为 null 时移出的消息直接丢弃
+     */
+    private final ChatMemorySummarizer summarizer;
+
+    /**
+     * 等待总结的消息
+     */
+    private final List<ChatMessage> pendingSummary = new ArrayList<>();
+
+    private boolean summarizing;
+
+    /**
+     * @param id               记忆 ID
+     * @param store            记忆存储
+     * @param maxTokens        token 预算
+     * @param compactThreshold 工具载荷超过该字符数时压缩
+     * @param summarizer       摘要器，可以为 null
+     */
+    public TokenBudgetChatMemory(Object id, ChatMemoryStore store, int maxTokens, int compactThreshold,
+                                 ChatMemorySummarizer summarizer) {
+        this.id = id;
+        this.store = store;
+        this.maxTokens = maxTokens;
+        this.compactThreshold = compactThreshold;
+        this.summarizer = summarizer;
+    }
+
+    @Override
+    public Object id() {
+        return id;
+    }
+
+    @Override
+    public synchronized void add(ChatMessage message) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        if (message instanceof SystemMessage) {
+            int existing = systemMessageIndex(messages);
+            if (existing >= 0) {
+                if (messages.get(existing).equals(message)) {
+                    return;
+                }
+                messages.remove(existing);
+            }
+            messages.add(0, message);
+        } else {
+            messages.add(message);
+        }
+        if (message instanceof UserMessage) {
+            ToolPayloadCompactor.compactPreviousTurns(messages, compactThreshold);
+        }
+        List<ChatMessage> evicted = evictOverBudget(messages, maxTokens);
+        store.updateMessages(id, messages);
+        if (!evicted.isEmpty()) {
+            requestSummary(evicted);
+        }
+    }
+
+    @Override
+    public synchronized List<ChatMessage> messages() {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        evictOverBudget(messages, maxTokens);
+        return messages;
+    }
+
+    @Override
+    public synchronized void clear() {
+        pendingSummary.clear();
+        store.deleteMessages(id);
+    }
+
+    /**
+     * 从最早的轮次开始整轮移出（一条用户消息到下一条用户消息之前），直到不超过预算；
+     * 本轮（最新一条用户消息及之后）的消息不移出。按轮移出保证带工具调用的 AI 消息与其工具结果
+     * 一起保留或一起移出，不会留下找不到调用的工具结果
+     *
+     * @return 被移出的消息
+     */
+    private static List<ChatMessage> evictOverBudget(List<ChatMessage> messages, int budget) {
+        List<ChatMessage> evicted = new ArrayList<>();
+        int tokens = TokenEstimator.estimate(messages);
+        int first = systemMessageIndex(messages) == 0 ? 1 : 0;
+        int keepFrom = currentTurnStart(messages);
+        while (tokens > budget && first < keepFrom) {
+            int end = first + 1;
+            while (end < keepFrom && !(messages.get(end) instanceof UserMessage)) {
+                end++;
+            }
+            List<ChatMessage> turn = messages.subList(first, end);
+            tokens -= TokenEstimator.estimate(turn);
+            evicted.addAll(turn);
+            turn.clear();
+            keepFrom -= end - first;
+        }
+        return evicted;
+    }
+
+    private static int currentTurnStart(List<ChatMessage> messages) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage && !isSummary(messages.get(i))) {
+                return i;
+            }
+        }
+        return messages.size() - 1;
+    }
+
+    private void requestSummary(List<ChatMessage> evicted) {
+        if (summarizer == null) {
+            return;
+        }
+        pendingSummary.addAll(evicted);
+        if (!summarizing) {
+            startSummary();
+        }
+    }
+
+    private void startSummary() {
+        List<ChatMessage> batch = new ArrayList<>(pendingSummary);
+        pendingSummary.clear();
+        summarizing = true;
+        summarizer.summarize(batch).whenComplete((summary, error) -> {
+            synchronized (this) {
+                summarizing = false;
+                if (error != null) {
+                    log.warn("对话记忆摘要失败, id: {}, error: {}", id, error.getMessage());
+                } else {
+                    applySummary(summary);
+                }
+                if (!pendingSummary.isEmpty()) {
+                    startSummary();
+                }
+            }
+        });
+    }
+
+    /**
+     * 摘要放在系统消息之后，替换已有的摘要
+     */
+    private void applySummary(UserMessage summary) {
+        List<ChatMessage> messages = new ArrayList<>(store.getMessages(id));
+        messages.removeIf(TokenBudgetChatMemory::isSummary);
+        // 为摘要留出预算，再次超出时直接丢弃最早的消息，不再总结
+        evictOverBudget(messages, maxTokens - TokenEstimator.estimate(summary));
+        messages.add(systemMessageIndex(messages) == 0 ? 1 : 0, summary);
+        store.updateMessages(id, messages);
+    }
+
+    private static boolean isSummary(ChatMessage message) {
+        return message instanceof UserMessage userMessage && userMessage.hasSingleText()
+                && userMessage.singleText().startsWith(ChatMemorySummarizer.SUMMARY_PREFIX);
+    }
+
+    private static int systemMessageIndex(List<ChatMessage> messages) {
+        for (int i = 0; i < messages.size(); i++) {
+            if (messages.get(i) instanceof SystemMessage) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
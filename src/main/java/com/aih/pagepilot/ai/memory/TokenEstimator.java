@@ -0,0 +1,76 @@
+package com.aih.pagepilot.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.Content;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.util.List;
+
+/**
+ * <p>
+ * 对话消息的 token 数估算
+ * 模型分词器不固定，按中日韩字符每字 1 个 token、其余字符每 4 个 1 个 token 估算，每条消息另加固定开销。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+public final class TokenEstimator {
+
+    private static final int MESSAGE_OVERHEAD = 4;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(List<ChatMessage> messages) {
+        int total = 0;
+        for (ChatMessage message : messages) {
+            total += estimate(message);
+        }
+        return total;
+    }
+
+    public static int estimate(ChatMessage message) {
+        int tokens = MESSAGE_OVERHEAD;
+        if (message instanceof SystemMessage systemMessage) {
+            tokens += estimate(systemMessage.text());
+        } else if (message instanceof UserMessage userMessage) {
+            for (Content content : userMessage.contents()) {
+                if (content instanceof TextContent textContent) {
+                    tokens += estimate(textContent.text());
+                }
+            }
+        } else if (message instanceof AiMessage aiMessage) {
+            tokens += estimate(aiMessage.text());
+            if (aiMessage.hasToolExecutionRequests()) {
+                for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+                    tokens += estimate(request.name()) + estimate(request.arguments());
+                }
+            }
+        } else if (message instanceof ToolExecutionResultMessage result) {
+            tokens += estimate(result.text());
+        }
+        return tokens;
+    }
+
+    public static int estimate(String text) {
+        if (text == null) {
+            return 0;
+        }
+        int wide = 0;
+        int narrow = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) >= '\u2E80') {
+                wide++;
+            } else {
+                narrow++;
+            }
+        }
+        return wide + (narrow + 3) / 4;
+    }
+}
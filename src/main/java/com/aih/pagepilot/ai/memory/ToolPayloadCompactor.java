@@ -0,0 +1,164 @@
+package com.aih.pagepilot.ai.memory;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * 对话记忆中大段工具载荷的压缩
+ * 之前轮次中写入的文件内容和读取结果替换为简短引用（路径、大小、摘要），模型需要时可以再调用读取工具获取最新内容。
+ * 回复正文中的代码块只压缩更早的版本：HTML、MULTI_FILE 没有读取工具，最近一条带代码块的 AI 回复是当前页面唯一的副本，
+ * 下一轮修改要基于它，始终保持原样。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+public final class ToolPayloadCompactor {
+
+    private static final Pattern CODE_BLOCK = Pattern.compile("```([^\\n]*)\\n(.*?)```", Pattern.DOTALL);
+
+    private static final String PATH_ARGUMENT = "relativeFilePath";
+
+    private ToolPayloadCompactor() {
+    }
+
+    /**
+     * 压缩最新一条用户消息之前（即之前轮次）的消息，本轮工具调用的内容保持原样
+     *
+     * @param messages  对话记忆消息，原地替换
+     * @param threshold 超过该字符数的载荷才压缩
+     * @return 是否有消息被压缩
+     */
+    public static boolean compactPreviousTurns(List<ChatMessage> messages, int threshold) {
+        int lastUser = -1;
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof UserMessage) {
+                lastUser = i;
+                break;
+            }
+        }
+        int latestCode = -1;
+        for (int i = lastUser - 1; i >= 0; i--) {
+            if (messages.get(i) instanceof AiMessage aiMessage && aiMessage.text() != null
+                    && CODE_BLOCK.matcher(aiMessage.text()).find()) {
+                latestCode = i;
+                break;
+            }
+        }
+        boolean changed = false;
+        for (int i = 0; i < lastUser; i++) {
+            ChatMessage message = messages.get(i);
+            ChatMessage compacted = compact(message, threshold, i != latestCode);
+            if (compacted != message) {
+                messages.set(i, compacted);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 压缩单条消息，无需压缩时返回原对象
+     *
+     * @param compactCode 是否压缩 AI 回复正文中的代码块
+     */
+    public static ChatMessage compact(ChatMessage message, int threshold, boolean compactCode) {
+        if (message instanceof AiMessage aiMessage) {
+            return compactAiMessage(aiMessage, threshold, compactCode);
+        }
+        if (message instanceof ToolExecutionResultMessage result && result.text() != null
+                && result.text().length() > threshold) {
+            return ToolExecutionResultMessage.from(result.id(), result.toolName(),
+                    reference(result.toolName() + " 结果", result.text()));
+        }
+        return message;
+    }
+
+    private static AiMessage compactAiMessage(AiMessage aiMessage, int threshold, boolean compactCode) {
+        boolean changed = false;
+        String text = aiMessage.text();
+        if (compactCode && text != null && text.length() > threshold) {
+            String compactedText = compactCodeBlocks(text, threshold);
+            changed = !compactedText.equals(text);
+            text = compactedText;
+        }
+        if (!aiMessage.hasToolExecutionRequests()) {
+            return changed ? AiMessage.from(text) : aiMessage;
+        }
+        List<ToolExecutionRequest> requests = new ArrayList<>();
+        for (ToolExecutionRequest request : aiMessage.toolExecutionRequests()) {
+            String arguments = compactArguments(request.arguments(), threshold);
+            if (arguments.equals(request.arguments())) {
+                requests.add(request);
+                continue;
+            }
+            changed = true;
+            requests.add(ToolExecutionRequest.builder()
+                    .id(request.id())
+                    .name(request.name())
+                    .arguments(arguments)
+                    .build());
+        }
+        if (!changed) {
+            return aiMessage;
+        }
+        return text == null ? AiMessage.from(requests) : AiMessage.from(text, requests);
+    }
+
+    /**
+     * 替换工具参数中过长的字符串，例如写入文件的 content、修改文件的 oldContent/newContent
+     */
+    private static String compactArguments(String arguments, int threshold) {
+        if (arguments == null || arguments.length() <= threshold || !JSONUtil.isTypeJSONObject(arguments)) {
+            return arguments;
+        }
+        JSONObject json = JSONUtil.parseObj(arguments);
+        String path = json.getStr(PATH_ARGUMENT);
+        boolean changed = false;
+        for (Map.Entry<String, Object> entry : json.entrySet()) {
+            if (entry.getValue() instanceof String value && value.length() > threshold) {
+                String label = path == null ? entry.getKey() : path + " " + entry.getKey();
+                entry.setValue(reference(label, value));
+                changed = true;
+            }
+        }
+        return changed ? json.toString() : arguments;
+    }
+
+    /**
+     * 替换文本中过长的代码块，例如从对话历史恢复的工具调用记录
+     */
+    private static String compactCodeBlocks(String text, int threshold) {
+        Matcher matcher = CODE_BLOCK.matcher(text);
+        StringBuilder result = new StringBuilder(Math.min(text.length(), threshold * 2));
+        while (matcher.find()) {
+            String code = matcher.group(2);
+            String replacement = code.length() > threshold
+                    ? "```" + matcher.group(1) + "\n" + reference("代码", code) + "\n```"
+                    : matcher.group();
+            matcher.appendReplacement(result, Matcher.quoteReplacement(replacement));
+        }
+        matcher.appendTail(result);
+        return result.toString();
+    }
+
+    private static String reference(String label, String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String size = bytes.length < 1024 ? bytes.length + " B" : String.format("%.1f KB", bytes.length / 1024.0);
+        return "[" + label + " 已省略，" + size + "，sha256:" + DigestUtil.sha256Hex(bytes).substring(0, 8) + "]";
+    }
+}
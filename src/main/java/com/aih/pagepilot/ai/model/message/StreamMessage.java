@@ -9,6 +9,7 @@ import lombok.NoArgsConstructor;
 /**
  * <p>
  * 流式消息基类
+ * 密封层次：流水线内部直接传递消息对象，处理器按类型模式匹配，只在 SSE 出口序列化一次
  * </p>
  * @author zeng.liqiang
  * @date 2025/10/22
@@ -16,6 +17,6 @@ import lombok.NoArgsConstructor;
 @Data
 @AllArgsConstructor
 @NoArgsConstructor // 封装对象必须有无参构造对象，否则解释JSON会失败
-public class StreamMessage {
+public abstract sealed class StreamMessage permits AiResponseMessage, ToolRequestMessage, ToolExecutedMessage {
     private String type;
 }
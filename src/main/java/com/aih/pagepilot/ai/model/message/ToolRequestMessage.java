@@ -15,7 +15,7 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @EqualsAndHashCode(callSuper = true)
-public class ToolRequestMessage extends StreamMessage {
+public final class ToolRequestMessage extends StreamMessage {
 
     private String id;
 
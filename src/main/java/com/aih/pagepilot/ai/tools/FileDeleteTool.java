@@ -2,10 +2,12 @@ package com.aih.pagepilot.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.core.builder.ProjectChangeTracker;
 import com.aih.pagepilot.utils.ProjectPathGuard;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -24,6 +26,9 @@ import java.nio.file.Paths;
 @Component
 public class FileDeleteTool extends BaseTool{
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("删除指定路径的文件")
     public String deleteFile(@P("文件的相对路径") String relativeFilePath, @ToolMemoryId Long appId) {
         try {
@@ -39,6 +44,7 @@ public class FileDeleteTool extends BaseTool{
             if (isImportantFile(fileName)) {
                 return "错误：不允许删除重要文件 - " + fileName;
             }
+            projectChangeTracker.record(appId, path);
             Files.delete(path);
             log.info("成功删除文件: {}", path.toAbsolutePath());
             return "文件删除成功: " + relativeFilePath;
@@ -30,9 +30,9 @@ public class FileDirReadTool extends BaseTool{
     /**
      * 需要忽略的文件和目录
      */
-    private static final Set<String> IGNORED_NAMES = Set.of(
+    public static final Set<String> IGNORED_NAMES = Set.of(
             "node_modules", ".git", "dist", "build", ".DS_Store",
-            ".env", "target", ".mvn", ".idea", ".vscode", "coverage"
+            ".env", "target", ".mvn", ".idea", ".vscode", "coverage", ".page-pilot-dist.json"
     );
 
     /**
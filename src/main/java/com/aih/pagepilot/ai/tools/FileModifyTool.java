@@ -3,10 +3,12 @@ package com.aih.pagepilot.ai.tools;
 
 import cn.hutool.json.JSONObject;
 import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.core.builder.ProjectChangeTracker;
 import com.aih.pagepilot.utils.ProjectPathGuard;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -26,6 +28,9 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileModifyTool extends BaseTool{
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("修改文件内容，用新内容替换指定的旧内容")
     public String modifyFile(
             @P("文件的相对路径")
@@ -50,6 +55,7 @@ public class FileModifyTool extends BaseTool{
             if (originalContent.equals(modifiedContent)) {
                 return "信息：替换后文件内容未发生变化 - " + relativeFilePath;
             }
+            projectChangeTracker.record(appId, path);
             Files.writeString(path, modifiedContent, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
             log.info("成功修改文件: {}", path.toAbsolutePath());
             return "文件修改成功: " + relativeFilePath;
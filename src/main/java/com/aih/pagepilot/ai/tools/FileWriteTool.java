@@ -3,10 +3,12 @@ package com.aih.pagepilot.ai.tools;
 import cn.hutool.core.io.FileUtil;
 import cn.hutool.json.JSONObject;
 import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.core.builder.ProjectChangeTracker;
 import com.aih.pagepilot.utils.ProjectPathGuard;
 import dev.langchain4j.agent.tool.P;
 import dev.langchain4j.agent.tool.Tool;
 import dev.langchain4j.agent.tool.ToolMemoryId;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
@@ -24,11 +26,15 @@ import java.nio.file.StandardOpenOption;
 @Component
 public class FileWriteTool extends BaseTool{
 
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
     @Tool("写入文件到指定路径")
     public String writeFile(@P("文件的相对路径") String relativeFilePath, @P("要写入文件的内容") String content, @ToolMemoryId Long appId) {
         try {
             // 解析目标路径
             Path targetPath = resolveTargetPath(relativeFilePath, appId);
+            projectChangeTracker.record(appId, targetPath);
             // 确保目录存在
             ensureDirectoryExists(targetPath.getParent());
             // 写入内容到文件
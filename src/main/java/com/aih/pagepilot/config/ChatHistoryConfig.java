@@ -0,0 +1,36 @@
+package com.aih.pagepilot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * 对话历史写入配置
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/22
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.chat-history")
+@Data
+public class ChatHistoryConfig {
+
+    /**
+     * 单次批量插入的最大行数
+     */
+    private int batchSize = 100;
+
+    /**
+     * 攒批的最长等待时间，从批次中第一条消息入队开始计算
+     */
+    private Duration maxDelay = Duration.ofMillis(50);
+
+    /**
+     * 写入队列容量，队列满时退回同步写入
+     */
+    private int queueCapacity = 10000;
+}
@@ -0,0 +1,46 @@
+package com.aih.pagepilot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * 对话记忆配置
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/20
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.chat-memory")
+@Data
+public class ChatMemoryConfig {
+
+    /**
+     * 每个应用对话记忆的 token 预算（估算值），超出时移出最早的消息
+     */
+    private int maxTokens = 24000;
+
+    /**
+     * 之前轮次中超过该字符数的工具载荷、代码块替换为引用
+     */
+    private int compactThreshold = 1024;
+
+    /**
+     * 是否在后台总结被移出的消息
+     */
+    private boolean summarize = true;
+
+    /**
+     * 本地记忆写回 Redis 的间隔
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 本节点缓存的记忆数上限
+     */
+    private int maxLocalEntries = 1000;
+}
@@ -0,0 +1,25 @@
+package com.aih.pagepilot.config;
+
+import com.aih.pagepilot.core.parser.DuplicateBlockPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>
+ * 代码解析配置（HTML、MULTI_FILE），流式保存与完整解析共用
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/14
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.code-parser")
+@Data
+public class CodeParserConfig {
+
+    /**
+     * 同一语言出现多个代码块时的取舍策略
+     */
+    private DuplicateBlockPolicy duplicateBlockPolicy = DuplicateBlockPolicy.FIRST;
+}
@@ -0,0 +1,24 @@
+package com.aih.pagepilot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * <p>
+ * 生成代码的版本管理配置（HTML、MULTI_FILE）
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/13
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.code-version")
+@Data
+public class CodeVersionConfig {
+
+    /**
+     * 每个应用保留的历史代码版本数（不含当前版本），超出的由后台任务清理
+     */
+    private int retainCount = 5;
+}
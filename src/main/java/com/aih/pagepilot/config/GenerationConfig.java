@@ -0,0 +1,66 @@
+package com.aih.pagepilot.config;
+
+import com.aih.pagepilot.core.generation.GenerationConflictPolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 代码生成并发控制与调度配置
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/18
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.generation")
+@Data
+public class GenerationConfig {
+
+    /**
+     * 同一应用并发生成时的处理策略
+     */
+    private GenerationConflictPolicy conflictPolicy = GenerationConflictPolicy.REJECT;
+
+    /**
+     * 分布式租约有效期，生成期间每 1/3 有效期续期一次，节点宕机后租约到期自动释放
+     */
+    private Duration leaseTtl = Duration.ofMinutes(1);
+
+    /**
+     * 排队等待前一次生成结束的最长时间
+     */
+    private Duration queueTimeout = Duration.ofMinutes(2);
+
+    /**
+     * 每个模型在本节点同时进行的生成数上限，key 为模型 Bean 名称
+     */
+    private Map<String, Integer> modelConcurrency = new HashMap<>(Map.of(
+            "openAiStreamingChatModel", 20,
+            "reasoningStreamingChatModel", 6));
+
+    /**
+     * 每个模型排队的最大请求数，超出直接拒绝
+     */
+    private int maxQueueSize = 200;
+
+    /**
+     * 每次生成在内存中保留的最近事件数，断线重连时从中补发
+     */
+    private int eventBufferSize = 4096;
+
+    /**
+     * 生成结束后会话保留的时间，期间仍可重连取回尾部内容
+     */
+    private Duration retain = Duration.ofMinutes(5);
+
+    /**
+     * 无人连接时等待重连的时间，超时仍无人连接则取消生成
+     */
+    private Duration abandonGrace = Duration.ofSeconds(30);
+}
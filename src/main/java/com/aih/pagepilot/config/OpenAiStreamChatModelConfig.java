@@ -1,23 +1,92 @@
 package com.aih.pagepilot.config;
 
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
+import java.util.concurrent.Semaphore;
+
 /**
+ * <p>
+ * OpenAI 流式客户端的执行器配置
+ * 每个流式响应占用一个线程阻塞读取 SSE，默认每个流一个虚拟线程，用信号量限制同时读取的流数；
+ * 关闭虚拟线程时退回固定大小的线程池。
+ * </p>
  *
  * @author zengliqiang
  */
 @Configuration
+@ConfigurationProperties(prefix = "page-pilot.streaming-executor")
+@Data
 public class OpenAiStreamChatModelConfig {
 
+    private static final String THREAD_NAME_PREFIX = "my-LangChain4j-OpenAI-";
+
+    /**
+     * 是否每个流使用一个虚拟线程
+     */
+    private boolean virtualThreads = true;
+
+    /**
+     * 虚拟线程模式下同时读取的流数上限，超出的流在虚拟线程内等待
+     */
+    private int maxConcurrentStreams = 256;
+
+    /**
+     * 线程池模式的核心线程数
+     */
+    private int corePoolSize = 6;
+
     @Bean("openAiStreamingChatModelTaskExecutor")
     AsyncTaskExecutor openAiStreamingChatModelTaskExecutor() {
+        if (virtualThreads) {
+            return virtualThreadExecutor(maxConcurrentStreams);
+        }
         ThreadPoolTaskExecutor taskExecutor = new ThreadPoolTaskExecutor();
-        taskExecutor.setThreadNamePrefix("my-LangChain4j-OpenAI-");
-        taskExecutor.setCorePoolSize(6);
+        taskExecutor.setThreadNamePrefix(THREAD_NAME_PREFIX);
+        taskExecutor.setCorePoolSize(corePoolSize);
         return taskExecutor;
     }
 
-}
\ No newline at end of file
+    /**
+     * 每个任务一个虚拟线程，任务开始前在虚拟线程内获取信号量，提交方不会被阻塞
+     *
+     * @param maxConcurrentStreams 同时执行的任务数上限
+     * @return 执行器
+     */
+    public static AsyncTaskExecutor virtualThreadExecutor(int maxConcurrentStreams) {
+        Semaphore permits = new Semaphore(maxConcurrentStreams);
+        SimpleAsyncTaskExecutor taskExecutor = new SimpleAsyncTaskExecutor(THREAD_NAME_PREFIX);
+        taskExecutor.setVirtualThreads(true);
+        taskExecutor.setTaskDecorator(limitConcurrency(permits));
+        return taskExecutor;
+    }
+
+    /**
+     * 任务开始前获取信号量；等待时被中断也照常执行任务，保留中断标记让它的阻塞读取立即失败，
+     * 由任务自身通知回调，不会让生成一直等待
+     */
+    static TaskDecorator limitConcurrency(Semaphore permits) {
+        return task -> () -> {
+            boolean acquired = false;
+            try {
+                permits.acquire();
+                acquired = true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            try {
+                task.run();
+            } finally {
+                if (acquired) {
+                    permits.release();
+                }
+            }
+        };
+    }
+}
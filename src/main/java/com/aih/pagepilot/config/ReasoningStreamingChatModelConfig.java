@@ -1,11 +1,16 @@
 package com.aih.pagepilot.config;
 
+import dev.langchain4j.http.client.spring.restclient.SpringRestClient;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
+import jakarta.annotation.Resource;
 import lombok.Data;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.web.client.RestClient;
 
 import java.time.Duration;
 
@@ -32,6 +37,13 @@ public class ReasoningStreamingChatModelConfig {
      */
     private String modelName = "deepseek-v4-flash";
 
+    /**
+     * 与默认流式模型共用流式读取执行器
+     */
+    @Resource
+    @Qualifier("openAiStreamingChatModelTaskExecutor")
+    private AsyncTaskExecutor streamingTaskExecutor;
+
     /**
      * 推理流式模型（用于 Vue 项目生成，带工具调用）
      */
@@ -42,6 +54,10 @@ public class ReasoningStreamingChatModelConfig {
                 .apiKey(apiKey)
                 .baseUrl(baseUrl)
                 .modelName(modelName)
+                .httpClientBuilder(SpringRestClient.builder()
+                        .restClientBuilder(RestClient.builder())
+                        .streamingRequestExecutor(streamingTaskExecutor)
+                        .createDefaultStreamingRequestExecutor(false))
                 .maxTokens(maxTokens)
                 .logRequests(true)
                 .logResponses(true)
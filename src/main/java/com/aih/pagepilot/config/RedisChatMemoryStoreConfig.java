@@ -1,14 +1,21 @@
 package com.aih.pagepilot.config;
 
-import dev.langchain4j.community.store.memory.chat.redis.RedisChatMemoryStore;
+import com.aih.pagepilot.ai.memory.HydratingChatMemoryStore;
+import com.aih.pagepilot.ai.memory.TieredChatMemoryStore;
+import com.aih.pagepilot.service.ChatHistoryService;
+import dev.langchain4j.store.memory.chat.ChatMemoryStore;
 import lombok.Data;
+import org.redisson.api.RedissonClient;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 /**
  * <p>
  * redis对话记忆配置类
+ * 记忆窗口保存在 Redis，不存在时按需从数据库补全；本节点缓存活跃的记忆并异步写回 Redis
  * </p>
  *
  * @author zeng.liqiang
@@ -19,21 +26,19 @@ import org.springframework.context.annotation.Configuration;
 @Data
 public class RedisChatMemoryStoreConfig {
 
-    private String host;
-
-    private int port;
-
-    private String password;
+    /**
+     * 记忆不存在时从数据库补全的历史条数
+     */
+    private static final int HYDRATE_COUNT = 20;
 
     private long ttl;
 
     @Bean
-    public RedisChatMemoryStore redisChatMemoryStore() {
-        return RedisChatMemoryStore.builder()
-                .host(host)
-                .port(port)
-                .password(password)
-                .ttl(ttl)
-                .build();
+    public TieredChatMemoryStore chatMemoryStore(RedissonClient redissonClient, ChatHistoryService chatHistoryService,
+                                                 ChatMemoryConfig chatMemoryConfig) {
+        ChatMemoryStore redisStore = new HydratingChatMemoryStore(redissonClient, chatHistoryService,
+                Duration.ofSeconds(ttl), HYDRATE_COUNT);
+        return new TieredChatMemoryStore(redisStore, redissonClient, chatMemoryConfig.getFlushInterval(),
+                chatMemoryConfig.getMaxLocalEntries());
     }
 }
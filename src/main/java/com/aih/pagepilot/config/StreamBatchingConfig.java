@@ -0,0 +1,82 @@
+package com.aih.pagepilot.config;
+
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.core.handler.ChunkCoalescer;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 流式响应攒批配置
+ * 全局默认窗口可按代码生成类型覆盖，types 的 key 为 {@link CodeGenTypeEnum#getValue()}，如：
+ * <pre>
+ * page-pilot:
+ *   stream-batching:
+ *     max-latency: 20ms
+ *     max-bytes: 512
+ *     types:
+ *       vue_project:
+ *         max-latency: 40ms
+ * </pre>
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/16
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.stream-batching")
+@Data
+public class StreamBatchingConfig {
+
+    /**
+     * 是否开启攒批
+     */
+    private boolean enabled = true;
+
+    /**
+     * 片段最长等待时间
+     */
+    private Duration maxLatency = ChunkCoalescer.DEFAULT_MAX_LATENCY;
+
+    /**
+     * 攒批字节数上限（UTF-8），达到即下发
+     */
+    private int maxBytes = ChunkCoalescer.DEFAULT_MAX_BYTES;
+
+    /**
+     * 按代码生成类型覆盖的窗口
+     */
+    private Map<String, Window> types = new HashMap<>();
+
+    /**
+     * 获取指定代码生成类型的窗口，未覆盖的字段取全局默认值
+     *
+     * @param codeGenType 代码生成类型
+     * @return 攒批窗口，关闭攒批时 maxLatency 为 0
+     */
+    public Window resolve(CodeGenTypeEnum codeGenType) {
+        Window window = new Window();
+        if (!enabled) {
+            window.setMaxLatency(Duration.ZERO);
+            window.setMaxBytes(0);
+            return window;
+        }
+        Window override = types.get(codeGenType.getValue());
+        window.setMaxLatency(override != null && override.getMaxLatency() != null ? override.getMaxLatency() : maxLatency);
+        window.setMaxBytes(override != null && override.getMaxBytes() != null ? override.getMaxBytes() : maxBytes);
+        return window;
+    }
+
+    @Data
+    public static class Window {
+
+        private Duration maxLatency;
+
+        private Integer maxBytes;
+    }
+}
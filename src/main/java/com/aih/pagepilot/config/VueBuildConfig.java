@@ -0,0 +1,100 @@
+package com.aih.pagepilot.config;
+
+import com.aih.pagepilot.core.builder.BuildSupersedePolicy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * <p>
+ * Vue 工程构建配置
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/23
+ */
+@Configuration
+@ConfigurationProperties(prefix = "page-pilot.vue-build")
+@Data
+public class VueBuildConfig {
+
+    /**
+     * 是否使用共享的依赖缓存，关闭时每个工程各自 npm install
+     */
+    private boolean dependencyCacheEnabled = true;
+
+    /**
+     * 共享依赖缓存目录，按依赖哈希保存已安装的 node_modules，npm 下载缓存也放在这里
+     */
+    private String dependencyCacheDir = System.getProperty("user.dir") + "/tmp/node_modules_store";
+
+    /**
+     * 共享依赖缓存的磁盘配额，超出时按最近使用时间淘汰
+     */
+    private DataSize dependencyCacheMaxSize = DataSize.ofGigabytes(10);
+
+    /**
+     * 是否按源码哈希复用构建产物：源码未变时不构建，源码相同的工程共享同一份产物
+     */
+    private boolean artifactCacheEnabled = true;
+
+    /**
+     * 构建产物缓存目录，按源码哈希保存 dist
+     */
+    private String artifactCacheDir = System.getProperty("user.dir") + "/tmp/build_artifacts";
+
+    /**
+     * 构建产物缓存的磁盘配额，超出时按最近使用时间淘汰
+     */
+    private DataSize artifactCacheMaxSize = DataSize.ofGigabytes(2);
+
+    /**
+     * 离线模式：npm 只使用本地缓存，不访问网络
+     */
+    private boolean offline = false;
+
+    /**
+     * 本节点同时运行的构建数，常驻构建进程也各占一个，不大于 0 时取 CPU 核数的一半（至少 1）
+     */
+    private int buildSlots = 0;
+
+    /**
+     * 同一工程已有构建在进行时的处理策略
+     */
+    private BuildSupersedePolicy supersedePolicy = BuildSupersedePolicy.CANCEL_RUNNING;
+
+    /**
+     * 部署时等待构建完成的最长时间
+     */
+    private Duration deployBuildTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 是否为最近构建过的工程保留常驻的 vite build --watch 进程，改动后增量重建
+     */
+    private boolean warmBuildEnabled = true;
+
+    /**
+     * 同时保留常驻构建进程的工程数上限，超出时停止最久未使用的；实际数量还受空闲的构建名额限制
+     */
+    private int maxWarmProjects = 4;
+
+    /**
+     * 常驻构建进程空闲多久后停止
+     */
+    private Duration warmIdleTimeout = Duration.ofMinutes(10);
+
+    /**
+     * 等待常驻进程完成一次重建的最长时间，超时后停止它并改为完整构建
+     */
+    private Duration warmBuildTimeout = Duration.ofMinutes(2);
+
+    /**
+     * 实际的构建名额数
+     */
+    public int resolveBuildSlots() {
+        return buildSlots > 0 ? buildSlots : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+    }
+}
@@ -26,6 +26,11 @@ public interface AppConstant {
     String CODE_OUTPUT_ROOT_DIR = System.getProperty("app.code.output.root",
             System.getProperty("user.dir") + "/tmp/code_output");
 
+    /**
+     * 取消生成时追加到对话历史的标记
+     */
+    String GENERATION_CANCELLED_MARK = "\n\n（已取消生成）";
+
     /**
      * 应用部署目录
      */
@@ -2,22 +2,29 @@ package com.aih.pagepilot.controller;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.util.StrUtil;
-import cn.hutool.json.JSONUtil;
 import com.aih.pagepilot.annotation.AuthCheck;
 import com.aih.pagepilot.common.BaseResponse;
 import com.aih.pagepilot.common.ResultUtils;
 import com.aih.pagepilot.constant.AppConstant;
 import com.aih.pagepilot.constant.UserConstant;
+import com.aih.pagepilot.core.builder.BuildLogBroadcaster;
+import com.aih.pagepilot.core.generation.GenerationEvent;
+import com.aih.pagepilot.core.generation.GenerationSession;
+import com.aih.pagepilot.core.handler.SseChunkEncoder;
 import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
 import com.aih.pagepilot.exception.ThrowUtils;
 import com.aih.pagepilot.model.dto.AppAddRequest;
 import com.aih.pagepilot.model.dto.AppAdminUpdateRequest;
+import com.aih.pagepilot.model.dto.AppChatCancelRequest;
 import com.aih.pagepilot.model.dto.AppChatGenRequest;
+import com.aih.pagepilot.model.dto.AppCodeRollbackRequest;
 import com.aih.pagepilot.model.dto.AppDeployRequest;
 import com.aih.pagepilot.model.dto.AppQueryRequest;
 import com.aih.pagepilot.model.dto.AppUpdateRequest;
 import com.aih.pagepilot.model.entity.User;
+import com.aih.pagepilot.model.vo.AppBuildStatusVO;
+import com.aih.pagepilot.model.vo.AppCodeVersionVO;
 import com.aih.pagepilot.model.vo.AppVO;
 import com.aih.pagepilot.ratelimiter.annotation.RateLimit;
 import com.aih.pagepilot.ratelimiter.enums.RateLimitType;
@@ -43,7 +50,7 @@ import reactor.core.publisher.Mono;
 
 import java.io.File;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * 应用 控制层。
@@ -331,23 +338,89 @@ public class AppController {
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
         // 获取当前登录用户
         User loginUser = userService.getLoginUser(request);
-        // 调用服务生成代码（流式）
-        Flux<String> contentFlux = appService.chatToGenCode(appId, message, loginUser);
-        // 转换为 ServerSentEvent 格式
-        return contentFlux
-                .map(chunk -> {
-                    // 将内容包装成JSON对象
-                    Map<String, String> wrapper = Map.of("data", chunk);
-                    String jsonData = JSONUtil.toJsonStr(wrapper);
-                    return ServerSentEvent.<String>builder().data(jsonData).build();
+        // 调用服务生成代码，生成在后台会话中进行
+        GenerationSession session = appService.chatToGenCode(appId, message, loginUser);
+        return toServerSentEvents(session, 0L);
+    }
+
+    /**
+     * 断线重连到进行中或刚结束的生成（流式 SSE），不会重新调用模型
+     *
+     * @param generationId 生成 ID，由生成流的第一个 generation 事件下发
+     * @param lastEventId  已收到的最后一个事件 id，浏览器重连时自动携带
+     * @param request      请求对象
+     * @return 缺失的片段及后续生成结果流
+     */
+    @GetMapping(value = "/chat/gen/code/resume/{generationId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> resumeGenCode(@PathVariable String generationId,
+                                                       @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId,
+                                                       HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        GenerationSession session = appService.getGenerationSession(generationId, loginUser);
+        return toServerSentEvents(session, lastEventId == null ? 0L : lastEventId);
+    }
+
+    /**
+     * 旁观应用进行中的生成（流式 SSE），从头补发已生成的内容后跟随实时输出，与发起方共享同一次模型调用
+     *
+     * @param appId   应用 ID
+     * @param request 请求对象
+     * @return 生成结果流
+     */
+    @GetMapping(value = "/chat/gen/code/attach/{appId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> attachGenCode(@PathVariable Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        GenerationSession session = appService.getRunningGenerationSession(appId, loginUser);
+        return toServerSentEvents(session, 0L);
+    }
+
+    /**
+     * 取消应用进行中的生成
+     *
+     * @param cancelRequest 取消请求
+     * @param request       请求对象
+     * @return 是否成功
+     */
+    @PostMapping("/chat/gen/code/cancel")
+    public BaseResponse<Boolean> cancelGenCode(@RequestBody AppChatCancelRequest cancelRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(cancelRequest == null, ErrorCode.PARAMS_ERROR);
+        Long appId = cancelRequest.getAppId();
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        User loginUser = userService.getLoginUser(request);
+        appService.cancelGeneration(appId, loginUser);
+        return ResultUtils.success(true);
+    }
+
+    /**
+     * 把生成会话转换为 SSE：先下发生成 ID，再下发编号片段，最后发送结束事件；无法续接时以 reset 事件结束，不发送结束事件
+     */
+    private Flux<ServerSentEvent<String>> toServerSentEvents(GenerationSession session, long lastEventId) {
+        // 片段已在流处理前按代码生成类型攒批，这里直接编码为 ServerSentEvent，每个连接一个编码器
+        SseChunkEncoder encoder = new SseChunkEncoder();
+        ServerSentEvent<String> generationEvent = ServerSentEvent.<String>builder()
+                .event("generation")
+                .data(session.getGenerationId())
+                .build();
+        AtomicBoolean reset = new AtomicBoolean();
+        return session.attach(lastEventId)
+                .doOnNext(event -> {
+                    if (GenerationEvent.RESET_EVENT.equals(event.getEvent())) {
+                        reset.set(true);
+                    }
                 })
-                .concatWith(Mono.just(
-                        // 发送结束事件
-                        ServerSentEvent.<String>builder()
-                                .event("done")
-                                .data("")
-                                .build()
-                ));
+                .map(event -> event.getEvent() == null
+                        ? encoder.encode(String.valueOf(event.getSeq()), event.getData())
+                        // 排队位置等状态事件不带 id，不影响断线重连的位置
+                        : ServerSentEvent.<String>builder().event(event.getEvent()).data(event.getData()).build())
+                .startWith(generationEvent)
+                .doFinally(signal -> encoder.logSummary(session.getAppId(), signal))
+                .concatWith(Mono.fromSupplier(() ->
+                                // 发送结束事件
+                                ServerSentEvent.<String>builder()
+                                        .event("done")
+                                        .data("")
+                                        .build())
+                        .filter(done -> !reset.get()));
     }
 
     /**
@@ -370,6 +443,65 @@ public class AppController {
     }
 
 
+    /**
+     * 获取应用构建状态（仅 Vue 工程）
+     *
+     * @param appId   应用ID
+     * @param request 请求
+     * @return 构建状态
+     */
+    @GetMapping("/build/status/{appId}")
+    public BaseResponse<AppBuildStatusVO> getAppBuildStatus(@PathVariable Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(appService.getAppBuildStatus(appId, loginUser));
+    }
+
+    /**
+     * 订阅应用构建日志（流式 SSE，仅 Vue 工程）
+     * 先补发最近的日志行，构建结束时发送 done 事件，数据为 success / failed
+     *
+     * @param appId   应用ID
+     * @param request 请求
+     * @return 构建日志流
+     */
+    @GetMapping(value = "/build/logs/{appId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<String>> streamAppBuildLogs(@PathVariable Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        SseChunkEncoder encoder = new SseChunkEncoder();
+        return appService.streamAppBuildLogs(appId, loginUser)
+                .map(buildLog -> BuildLogBroadcaster.DONE_EVENT.equals(buildLog.event())
+                        ? ServerSentEvent.<String>builder().event(buildLog.event()).data(buildLog.data()).build()
+                        : encoder.encode(buildLog.data()));
+    }
+
+    /**
+     * 获取应用代码版本列表
+     *
+     * @param appId   应用ID
+     * @param request 请求
+     * @return 版本列表，从新到旧
+     */
+    @GetMapping("/code/versions/{appId}")
+    public BaseResponse<List<AppCodeVersionVO>> listAppCodeVersions(@PathVariable Long appId, HttpServletRequest request) {
+        User loginUser = userService.getLoginUser(request);
+        return ResultUtils.success(appService.listAppCodeVersions(appId, loginUser));
+    }
+
+    /**
+     * 回滚应用代码到指定版本
+     *
+     * @param appCodeRollbackRequest 回滚请求
+     * @param request                请求
+     * @return 回滚结果
+     */
+    @PostMapping("/code/rollback")
+    public BaseResponse<Boolean> rollbackAppCode(@RequestBody AppCodeRollbackRequest appCodeRollbackRequest, HttpServletRequest request) {
+        ThrowUtils.throwIf(appCodeRollbackRequest == null, ErrorCode.PARAMS_ERROR);
+        User loginUser = userService.getLoginUser(request);
+        appService.rollbackAppCode(appCodeRollbackRequest.getAppId(), appCodeRollbackRequest.getVersionId(), loginUser);
+        return ResultUtils.success(true);
+    }
+
     /**
      * 下载应用代码
      *
@@ -10,6 +10,8 @@ package com.aih.pagepilot.controller;
  */
 
 import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.core.saver.CodeVersionManager;
+import com.aih.pagepilot.core.saver.IncrementalFileWriter;
 import com.aih.pagepilot.utils.ProjectPathGuard;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.core.io.ByteArrayResource;
@@ -70,7 +72,8 @@ public class StaticResourceController {
             if (file == null || !Files.isRegularFile(file)) {
                 return ResponseEntity.notFound().build();
             }
-            String filePath = file.toAbsolutePath().toString();
+            // 按请求路径判断类型，预览中的 .partial 文件与正式文件保持同一 Content-Type
+            String filePath = resourcePath;
             if (isHtmlFile(filePath)) {
                 return serveHtml(file);
             }
@@ -85,20 +88,32 @@ public class StaticResourceController {
     }
 
     /**
-     * Look up generated preview first, then the deployed copy.
+     * Look up the in-progress version first (partial files, then finished ones), then the
+     * published version, then the deployed copy. Published versions are swapped atomically,
+     * so reads never wait on a running generation.
      */
     private Path resolveStaticFile(String deployKey, String resourcePath) {
         String relative = resourcePath.startsWith("/") ? resourcePath.substring(1) : resourcePath;
-        Path generated = resolveJailedFile(AppConstant.CODE_OUTPUT_ROOT_DIR, deployKey, relative);
+        Path staging = CodeVersionManager.getStagingDir(deployKey);
+        if (staging != null) {
+            Path partial = resolveJailedFile(staging, relative + IncrementalFileWriter.PARTIAL_SUFFIX);
+            if (partial != null) {
+                return partial;
+            }
+            Path staged = resolveJailedFile(staging, relative);
+            if (staged != null) {
+                return staged;
+            }
+        }
+        Path generated = resolveJailedFile(Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, deployKey), relative);
         if (generated != null) {
             return generated;
         }
-        return resolveJailedFile(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey, relative);
+        return resolveJailedFile(Paths.get(AppConstant.CODE_DEPLOY_ROOT_DIR, deployKey), relative);
     }
 
-    private Path resolveJailedFile(String rootDir, String deployKey, String relativePath) {
+    private Path resolveJailedFile(Path root, String relativePath) {
         try {
-            Path root = Paths.get(rootDir, deployKey);
             Path resolved = ProjectPathGuard.resolveInside(root, relativePath);
             if (Files.isRegularFile(resolved)) {
                 return resolved;
@@ -123,7 +138,7 @@ public class StaticResourceController {
                 .body(new ByteArrayResource(body));
     }
 
-    private String injectVisualEditorHook(String html) {
+    String injectVisualEditorHook(String html) {
         if (html.contains("id=\"visual-editor-script\"") || html.contains("id='visual-editor-script'")) {
             return html;
         }
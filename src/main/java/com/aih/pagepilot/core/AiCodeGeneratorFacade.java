@@ -7,10 +7,15 @@ import com.aih.pagepilot.ai.model.HtmlCodeResult;
 import com.aih.pagepilot.ai.model.MultiFileCodeResult;
 import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
 import com.aih.pagepilot.ai.model.message.AiResponseMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
 import com.aih.pagepilot.ai.model.message.ToolExecutedMessage;
 import com.aih.pagepilot.ai.model.message.ToolRequestMessage;
+import com.aih.pagepilot.config.CodeParserConfig;
 import com.aih.pagepilot.core.parser.CodeParserExecutor;
+import com.aih.pagepilot.core.parser.DuplicateBlockPolicy;
+import com.aih.pagepilot.core.parser.StreamingCodeParser;
 import com.aih.pagepilot.core.saver.CodeFileSaverExecutor;
+import com.aih.pagepilot.core.saver.StreamingCodeFileSaver;
 import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
 import dev.langchain4j.model.chat.response.ChatResponse;
@@ -41,6 +46,9 @@ public class AiCodeGeneratorFacade {
     @Resource
     private AiCodeGeneratorServiceFactory aiCodeGeneratorServiceFactory;
 
+    @Resource
+    private CodeParserConfig codeParserConfig;
+
     /**
      * 统一入口：根据类型生成并保存代码
      *
@@ -52,12 +60,17 @@ public class AiCodeGeneratorFacade {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
-        return switch (codeGenTypeEnum) {
-            case HTML -> generateAndSaveHtmlCode(userMessage, appId);
-            case MULTI_FILE -> generateAndSaveMultiFileCode(userMessage, appId);
-            default ->
-                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的生成类型：" + codeGenTypeEnum.getValue());
-        };
+        aiCodeGeneratorServiceFactory.claimChatMemory(appId);
+        try {
+            return switch (codeGenTypeEnum) {
+                case HTML -> generateAndSaveHtmlCode(userMessage, appId);
+                case MULTI_FILE -> generateAndSaveMultiFileCode(userMessage, appId);
+                default ->
+                        throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的生成类型：" + codeGenTypeEnum.getValue());
+            };
+        } finally {
+            aiCodeGeneratorServiceFactory.flushChatMemory(appId);
+        }
     }
 
     /**
@@ -67,8 +80,8 @@ public class AiCodeGeneratorFacade {
      * @return
      */
     private File generateAndSaveMultiFileCode(String userMessage, Long appId) {
-        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.MULTI_FILE);
-        MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(userMessage);
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(CodeGenTypeEnum.MULTI_FILE);
+        MultiFileCodeResult result = aiCodeGeneratorService.generateMultiFileCode(appId, userMessage);
         return CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.MULTI_FILE, appId);
     }
 
@@ -79,42 +92,71 @@ public class AiCodeGeneratorFacade {
      * @return
      */
     private File generateAndSaveHtmlCode(String userMessage, Long appId) {
-        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, CodeGenTypeEnum.HTML);
-        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(userMessage);
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(CodeGenTypeEnum.HTML);
+        HtmlCodeResult result = aiCodeGeneratorService.generateHtmlCode(appId, userMessage);
         return CodeFileSaverExecutor.executeSaver(result, CodeGenTypeEnum.HTML, appId);
     }
 
     /**
      * 统一入口：根据类型生成并保存代码（流式）
+     * 流水线内部直接传递消息对象，由 SSE 出口统一序列化
      *
      * @param userMessage     用户提示词
      * @param codeGenTypeEnum 生成类型
-     * @return 保存的目录
+     * @return 流式消息
      */
-    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+    public Flux<StreamMessage> generateAndSaveCodeMessageStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.PARAMS_ERROR, "生成类型不能为空");
         }
 
-        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(appId, codeGenTypeEnum);
-        return switch (codeGenTypeEnum) {
-            case HTML -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId);
-            }
-            case MULTI_FILE -> {
-                Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(userMessage);
-                yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId);
-            }
-            case VUE_PROJECT -> {
-                TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
-                yield processTokenStream(tokenStream);
-            }
-            default -> {
-                String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
-                throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
-            }
-        };
+        AiCodeGeneratorService aiCodeGeneratorService = aiCodeGeneratorServiceFactory.getAiCodeGeneratorService(codeGenTypeEnum);
+        aiCodeGeneratorServiceFactory.claimChatMemory(appId);
+        Flux<StreamMessage> messageStream;
+        try {
+            messageStream = switch (codeGenTypeEnum) {
+                case HTML -> {
+                    Flux<String> codeStream = aiCodeGeneratorService.generateHtmlCodeStream(appId, userMessage);
+                    yield processCodeStream(codeStream, CodeGenTypeEnum.HTML, appId).map(AiResponseMessage::new);
+                }
+                case MULTI_FILE -> {
+                    Flux<String> codeStream = aiCodeGeneratorService.generateMultiFileCodeStream(appId, userMessage);
+                    yield processCodeStream(codeStream, CodeGenTypeEnum.MULTI_FILE, appId).map(AiResponseMessage::new);
+                }
+                case VUE_PROJECT -> {
+                    TokenStream tokenStream = aiCodeGeneratorService.generateVueProjectCodeStream(appId, userMessage);
+                    yield processTokenStream(tokenStream);
+                }
+                default -> {
+                    String errorMessage = "不支持的生成类型：" + codeGenTypeEnum.getValue();
+                    throw new BusinessException(ErrorCode.SYSTEM_ERROR, errorMessage);
+                }
+            };
+        } catch (RuntimeException e) {
+            // 生成还没开始就失败，结束本轮对话记忆的占用
+            aiCodeGeneratorServiceFactory.flushChatMemory(appId);
+            throw e;
+        }
+        // 在结束信号传到下游（释放生成租约）之前写回本轮的对话记忆
+        return messageStream
+                .doOnTerminate(() -> aiCodeGeneratorServiceFactory.flushChatMemory(appId))
+                .doOnCancel(() -> aiCodeGeneratorServiceFactory.flushChatMemory(appId));
+    }
+
+    /**
+     * 统一入口：根据类型生成并保存代码（流式，字符串形式）
+     * HTML、MULTI_FILE 返回原始文本片段，VUE_PROJECT 返回 JSON 格式的消息
+     *
+     * @param userMessage     用户提示词
+     * @param codeGenTypeEnum 生成类型
+     * @return 流式响应
+     */
+    public Flux<String> generateAndSaveCodeStream(String userMessage, CodeGenTypeEnum codeGenTypeEnum, Long appId) {
+        Flux<StreamMessage> messageStream = generateAndSaveCodeMessageStream(userMessage, codeGenTypeEnum, appId);
+        if (codeGenTypeEnum == CodeGenTypeEnum.VUE_PROJECT) {
+            return messageStream.map(JSONUtil::toJsonStr);
+        }
+        return messageStream.map(message -> ((AiResponseMessage) message).getData());
     }
 
     /**
@@ -126,51 +168,59 @@ public class AiCodeGeneratorFacade {
      * @return 流式响应
      */
     private Flux<String> processCodeStream(Flux<String> codeStream, CodeGenTypeEnum codeGenType, Long appId) {
-        // 字符串拼接器，用于当流式返回所有的代码之后，再保存代码
-        StringBuilder codeBuilder = new StringBuilder();
-        return codeStream.doOnNext(chunk -> {
-            // 实时收集代码片段
-            codeBuilder.append(chunk);
-        }).doOnComplete(() -> {
-            // 流式返回完成后，保存代码
+        // 流式保存：代码块开始即增量写入新版本的预览文件，生成结束后原子切换版本
+        DuplicateBlockPolicy duplicateBlockPolicy = codeParserConfig.getDuplicateBlockPolicy();
+        StreamingCodeFileSaver streamingSaver = new StreamingCodeFileSaver(codeGenType, appId, duplicateBlockPolicy);
+        StreamingCodeParser streamingParser = new StreamingCodeParser(streamingSaver);
+        return codeStream.doOnNext(streamingParser::feed).doOnComplete(() -> {
+            streamingParser.finish();
+            // 所有代码块写完后整体发布新版本
+            if (streamingSaver.complete()) {
+                return;
+            }
+            // 流式保存没有写出任何文件（如 JSON 格式输出、只有无语言标识的代码块），回退到完整解析
+            String completeCode = streamingParser.getContent();
+            if (completeCode == null) {
+                // 已开始流式写入（原始内容随之释放）但最终提交失败，保留上一个版本
+                log.error("流式保存失败，保留上一个版本, appId: {}", appId);
+                return;
+            }
             try {
-                String completeCode = codeBuilder.toString();
                 // 使用执行器解析代码
-                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType);
+                Object parsedResult = CodeParserExecutor.executeParser(completeCode, codeGenType, duplicateBlockPolicy);
                 // 使用执行器保存代码
                 File saveDir = CodeFileSaverExecutor.executeSaver(parsedResult, codeGenType, appId);
                 log.info("保存成功，目录为：{}", saveDir.getAbsolutePath());
             } catch (Exception e) {
                 log.error("保存失败: {}", e.getMessage());
             }
-        });
+        }).doOnError(e -> streamingSaver.abort()).doOnCancel(streamingSaver::abort);
     }
 
     /**
-     * 将 TokenStream 转换为 Flux<String>，并传递工具调用信息
+     * 将 TokenStream 转换为 Flux<StreamMessage>，并传递工具调用信息
      *
      * @param tokenStream TokenStream 对象
-     * @return Flux<String> 流式响应
+     * @return Flux<StreamMessage> 流式消息
      */
-    private Flux<String> processTokenStream(TokenStream tokenStream) {
+    private Flux<StreamMessage> processTokenStream(TokenStream tokenStream) {
         return Flux.create(sink -> {
+            // 下游取消时停止模型输出，跳过尚未执行的工具调用和后续请求
+            sink.onCancel(tokenStream::cancel);
             tokenStream.onPartialResponse((String partialResponse) -> {
-                        AiResponseMessage aiResponseMessage = new AiResponseMessage(partialResponse);
-                        sink.next(JSONUtil.toJsonStr(aiResponseMessage));
+                        sink.next(new AiResponseMessage(partialResponse));
                     })
                     .onPartialToolExecutionRequest((index, toolExecutionRequest) -> {
-                        ToolRequestMessage toolRequestMessage = new ToolRequestMessage(toolExecutionRequest);
-                        sink.next(JSONUtil.toJsonStr(toolRequestMessage));
+                        sink.next(new ToolRequestMessage(toolExecutionRequest));
                     })
                     .onToolExecuted((ToolExecution toolExecution) -> {
-                        ToolExecutedMessage toolExecutedMessage = new ToolExecutedMessage(toolExecution);
-                        sink.next(JSONUtil.toJsonStr(toolExecutedMessage));
+                        sink.next(new ToolExecutedMessage(toolExecution));
                     })
                     .onCompleteResponse((ChatResponse response) -> {
                         sink.complete();
                     })
                     .onError((Throwable error) -> {
-                        error.printStackTrace();
+                        log.error("AI 代码生成流异常", error);
                         sink.error(error);
                     })
                     .start();
@@ -0,0 +1,419 @@
+package com.aih.pagepilot.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.aih.pagepilot.config.VueBuildConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 按源码内容寻址的构建产物缓存
+ * 源码哈希覆盖工程中影响构建产物的全部文件（规则同 {@link ProjectChanges}，不含 node_modules、dist 等），
+ * 与 dist 对应的哈希记录在工程根目录的清单 {@value #MANIFEST_NAME} 中：哈希未变时无需构建。
+ * 构建成功的 dist 另存一份到 {@code 缓存目录/哈希/dist}，源码相同的工程（包括其他应用）直接复制使用。
+ * </p>
+ * 清单同时缓存每个文件的大小、修改时间与哈希，再次计算时只读取变化过的文件。
+ * 修改时间与上次计算相差不到 {@link #RACY_MILLIS} 的文件总是重新读取，避免同一时间精度内的改动被漏掉。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/26
+ */
+@Slf4j
+@Component
+public class BuildArtifactCache {
+
+    /**
+     * 工程内的构建清单，已加入 {@code FileDirReadTool.IGNORED_NAMES}，不参与源码哈希
+     */
+    public static final String MANIFEST_NAME = ".page-pilot-dist.json";
+
+    static final String DIST = "dist";
+
+    private static final String LAST_USED_FILE = ".last-used";
+
+    private static final String SIZE_FILE = ".size";
+
+    private static final String STAGING_INFIX = ".staging-";
+
+    private static final String HASH_VERSION = "v1";
+
+    private static final long RACY_MILLIS = 2000;
+
+    private static final long STAGING_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final VueBuildConfig vueBuildConfig;
+
+    private final Path storeRoot;
+
+    /**
+     * 源码哈希级别的锁，同一份产物同时只写入一次
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    /**
+     * 工程目录级别的锁，串行化清单的读写
+     */
+    private final Map<String, Object> projectLocks = new ConcurrentHashMap<>();
+
+    public BuildArtifactCache(VueBuildConfig vueBuildConfig) {
+        this.vueBuildConfig = vueBuildConfig;
+        this.storeRoot = Paths.get(vueBuildConfig.getArtifactCacheDir()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 计算工程的源码哈希，并把文件哈希写回清单供下次使用
+     *
+     * @param projectDir 工程目录
+     * @return 源码哈希，读取失败返回 null
+     */
+    public String sourceHash(File projectDir) {
+        Path root = projectDir.toPath();
+        synchronized (projectLock(root)) {
+            try {
+                Manifest manifest = readManifest(root);
+                Manifest updated = hashTree(root, manifest);
+                writeManifest(root, new Manifest(manifest.treeHash(), updated.hashedAt(), updated.files()));
+                return updated.treeHash();
+            } catch (IOException e) {
+                log.warn("计算源码哈希失败: {}, error: {}", projectDir, e.getMessage());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 工程现有的 dist 是否由这份源码构建
+     */
+    public boolean isCurrent(File projectDir, String sourceHash) {
+        Path root = projectDir.toPath();
+        synchronized (projectLock(root)) {
+            return sourceHash.equals(readManifest(root).treeHash()) && Files.isDirectory(root.resolve(DIST));
+        }
+    }
+
+    /**
+     * 缓存中是否有这份源码的构建产物
+     */
+    public boolean contains(String sourceHash) {
+        return Files.isDirectory(storeRoot.resolve(sourceHash).resolve(DIST));
+    }
+
+    /**
+     * 用缓存中的产物替换工程的 dist
+     *
+     * @param projectDir 工程目录，调用方保证此时没有进程在写它的 dist
+     * @param sourceHash 源码哈希
+     * @return 是否成功，缓存中没有时返回 false
+     */
+    public boolean restore(File projectDir, String sourceHash) {
+        Path entry = storeRoot.resolve(sourceHash);
+        Path root = projectDir.toPath();
+        synchronized (lock(sourceHash)) {
+            if (!Files.isDirectory(entry.resolve(DIST))) {
+                return false;
+            }
+            synchronized (projectLock(root)) {
+                Path staging = root.resolve(DIST + STAGING_INFIX + IdUtil.fastSimpleUUID());
+                try {
+                    writeManifest(root, readManifest(root).withTreeHash(null));
+                    FileUtil.copyContent(entry.resolve(DIST).toFile(), staging.toFile(), true);
+                    FileUtil.del(root.resolve(DIST).toFile());
+                    Files.move(staging, root.resolve(DIST));
+                    writeManifest(root, readManifest(root).withTreeHash(sourceHash));
+                } catch (Exception e) {
+                    log.error("复制缓存的构建产物失败: {}", sourceHash, e);
+                    FileUtil.del(staging.toFile());
+                    return false;
+                }
+            }
+            touch(entry);
+        }
+        log.info("已复用缓存的构建产物 {} -> {}", sourceHash, projectDir);
+        return true;
+    }
+
+    /**
+     * 即将构建，dist 不再对应清单中的哈希
+     */
+    public void invalidate(File projectDir) {
+        Path root = projectDir.toPath();
+        synchronized (projectLock(root)) {
+            Manifest manifest = readManifest(root);
+            if (manifest.treeHash() == null) {
+                return;
+            }
+            try {
+                writeManifest(root, manifest.withTreeHash(null));
+            } catch (IOException e) {
+                // 清单残留旧哈希会让过期的 dist 被当作最新，删掉清单
+                log.warn("更新构建清单失败，删除清单: {}", root, e);
+                FileUtil.del(root.resolve(MANIFEST_NAME).toFile());
+            }
+        }
+    }
+
+    /**
+     * 构建成功，记录 dist 对应的源码哈希并把产物存入缓存
+     *
+     * @param projectDir 工程目录
+     * @param sourceHash 构建开始时的源码哈希；构建期间源码又有变化时不记录
+     */
+    public void save(File projectDir, String sourceHash) {
+        Path root = projectDir.toPath();
+        synchronized (projectLock(root)) {
+            if (!sourceHash.equals(sourceHash(projectDir))) {
+                log.info("构建期间源码有变化，不记录构建产物: {}", projectDir);
+                return;
+            }
+            try {
+                writeManifest(root, readManifest(root).withTreeHash(sourceHash));
+            } catch (IOException e) {
+                log.warn("写入构建清单失败: {}", root, e);
+                return;
+            }
+        }
+        Path entry = storeRoot.resolve(sourceHash);
+        synchronized (lock(sourceHash)) {
+            if (!Files.isDirectory(entry.resolve(DIST))) {
+                Path staging = storeRoot.resolve(sourceHash + STAGING_INFIX + IdUtil.fastSimpleUUID());
+                try {
+                    FileUtil.copyContent(root.resolve(DIST).toFile(), staging.resolve(DIST).toFile(), true);
+                    Files.writeString(staging.resolve(SIZE_FILE), String.valueOf(sizeOf(staging)));
+                    FileUtil.del(entry.toFile());
+                    try {
+                        Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+                    } catch (AtomicMoveNotSupportedException e) {
+                        Files.move(staging, entry);
+                    }
+                } catch (Exception e) {
+                    log.error("保存构建产物到缓存失败: {}", sourceHash, e);
+                    FileUtil.del(staging.toFile());
+                    return;
+                }
+            }
+            touch(entry);
+        }
+        evict(sourceHash);
+    }
+
+    /**
+     * 源码哈希：按相对路径排序后拼接每个文件的内容哈希
+     *
+     * @param previous 上次的清单，提供未变化文件的哈希
+     * @return 新清单，treeHash 为本次计算的源码哈希
+     */
+    static Manifest hashTree(Path root, Manifest previous) throws IOException {
+        long hashedAt = System.currentTimeMillis();
+        Map<String, FileDigest> files = new TreeMap<>();
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                if (dir.equals(root)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                String path = relative(root, dir);
+                return ProjectChanges.isRelevant(path) && !path.startsWith(DIST + STAGING_INFIX)
+                        ? FileVisitResult.CONTINUE : FileVisitResult.SKIP_SUBTREE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String path = relative(root, file);
+                // 写清单时的临时文件
+                if (!attrs.isRegularFile() || !ProjectChanges.isRelevant(path) || path.startsWith(MANIFEST_NAME)) {
+                    return FileVisitResult.CONTINUE;
+                }
+                long modified = attrs.lastModifiedTime().toMillis();
+                FileDigest cached = previous.files().get(path);
+                if (cached != null && cached.size() == attrs.size() && cached.modified() == modified
+                        && modified < previous.hashedAt() - RACY_MILLIS) {
+                    files.put(path, cached);
+                } else {
+                    files.put(path, new FileDigest(attrs.size(), modified, SecureUtil.sha256(file.toFile())));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        StringBuilder canonical = new StringBuilder(HASH_VERSION).append('\n');
+        files.forEach((path, digest) -> canonical.append(path).append('\0').append(digest.hash()).append('\n'));
+        return new Manifest(SecureUtil.sha256(canonical.toString()), hashedAt, files);
+    }
+
+    private static String relative(Path root, Path path) {
+        return root.relativize(path).toString().replace('\\', '/');
+    }
+
+    private static Manifest readManifest(Path root) {
+        Path path = root.resolve(MANIFEST_NAME);
+        if (!Files.isRegularFile(path)) {
+            return Manifest.EMPTY;
+        }
+        try {
+            JSONObject json = JSONUtil.parseObj(Files.readString(path, StandardCharsets.UTF_8));
+            Map<String, FileDigest> files = new TreeMap<>();
+            JSONObject fileJson = json.getJSONObject("files");
+            if (fileJson != null) {
+                for (String name : fileJson.keySet()) {
+                    JSONArray digest = fileJson.getJSONArray(name);
+                    files.put(name, new FileDigest(digest.getLong(0), digest.getLong(1), digest.getStr(2)));
+                }
+            }
+            return new Manifest(json.getStr("treeHash"), json.getLong("hashedAt", 0L), files);
+        } catch (Exception e) {
+            log.warn("构建清单损坏，忽略: {}, error: {}", path, e.getMessage());
+            return Manifest.EMPTY;
+        }
+    }
+
+    private static void writeManifest(Path root, Manifest manifest) throws IOException {
+        JSONObject files = new JSONObject();
+        manifest.files().forEach((name, digest) -> files.set(name,
+                new JSONArray().set(digest.size()).set(digest.modified()).set(digest.hash())));
+        JSONObject json = new JSONObject()
+                .set("treeHash", manifest.treeHash())
+                .set("hashedAt", manifest.hashedAt())
+                .set("files", files);
+        Path temp = root.resolve(MANIFEST_NAME + STAGING_INFIX + IdUtil.fastSimpleUUID());
+        try {
+            Files.writeString(temp, json.toString(), StandardCharsets.UTF_8);
+            Files.move(temp, root.resolve(MANIFEST_NAME), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * 总大小超出配额时从最久未使用的条目开始淘汰，刚使用的条目不淘汰；顺带清理遗留的暂存目录
+     */
+    private void evict(String currentHash) {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> children = Files.list(storeRoot)) {
+            for (Path child : children.toList()) {
+                if (child.getFileName().toString().contains(STAGING_INFIX)) {
+                    if (System.currentTimeMillis() - lastUsed(child) > STAGING_EXPIRE_MILLIS) {
+                        FileUtil.del(child.toFile());
+                    }
+                    continue;
+                }
+                entries.add(child);
+            }
+        } catch (IOException e) {
+            log.warn("扫描构建产物缓存失败: {}", storeRoot, e);
+            return;
+        }
+        entries.sort(Comparator.comparingLong(BuildArtifactCache::lastUsed).reversed());
+        long quota = vueBuildConfig.getArtifactCacheMaxSize().toBytes();
+        long total = 0;
+        for (Path entry : entries) {
+            total += recordedSize(entry);
+            String hash = entry.getFileName().toString();
+            if (total <= quota || hash.equals(currentHash)) {
+                continue;
+            }
+            synchronized (lock(hash)) {
+                FileUtil.del(entry.toFile());
+            }
+            locks.remove(hash);
+            log.info("淘汰缓存的构建产物: {}", hash);
+        }
+    }
+
+    private Object lock(String sourceHash) {
+        return locks.computeIfAbsent(sourceHash, k -> new Object());
+    }
+
+    private Object projectLock(Path root) {
+        return projectLocks.computeIfAbsent(root.toAbsolutePath().normalize().toString(), k -> new Object());
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Path lastUsed = entry.resolve(LAST_USED_FILE);
+            if (!Files.exists(lastUsed)) {
+                Files.createFile(lastUsed);
+            }
+            Files.setLastModifiedTime(lastUsed, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("更新构建产物使用时间失败: {}", entry, e);
+        }
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            Path lastUsed = entry.resolve(LAST_USED_FILE);
+            return Files.getLastModifiedTime(Files.exists(lastUsed) ? lastUsed : entry).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long recordedSize(Path entry) {
+        try {
+            return Long.parseLong(Files.readString(entry.resolve(SIZE_FILE)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        AtomicLong size = new AtomicLong();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size.addAndGet(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size.get();
+    }
+
+    /**
+     * 构建清单
+     *
+     * @param treeHash 现有 dist 对应的源码哈希，未知时为 null
+     * @param hashedAt 文件哈希的计算时间
+     * @param files    相对路径 -> 文件哈希
+     */
+    record Manifest(String treeHash, long hashedAt, Map<String, FileDigest> files) {
+
+        static final Manifest EMPTY = new Manifest(null, 0, Map.of());
+
+        Manifest withTreeHash(String treeHash) {
+            return new Manifest(treeHash, hashedAt, files);
+        }
+    }
+
+    /**
+     * 单个文件的哈希及计算时的大小与修改时间
+     */
+    record FileDigest(long size, long modified, String hash) {
+    }
+}
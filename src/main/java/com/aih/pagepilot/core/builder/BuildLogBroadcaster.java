@@ -0,0 +1,103 @@
+package com.aih.pagepilot.core.builder;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * <p>
+ * 构建日志推送
+ * 每个工程保留最近一次构建的日志流：构建开始时换成新的流，构建命令与常驻构建进程的输出逐行写入，
+ * 结束时写入 done 事件后关闭。订阅时先补发最近的若干行，构建结束后订阅得到的是上次构建的末尾日志。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/25
+ */
+@Component
+public class BuildLogBroadcaster {
+
+    public static final String LOG_EVENT = "log";
+
+    public static final String DONE_EVENT = "done";
+
+    /**
+     * 新订阅者补发的行数
+     */
+    private static final int REPLAY_LINES = 200;
+
+    /**
+     * 工程目录 -> 最近一次构建的日志流
+     */
+    private final Cache<String, Sinks.Many<BuildLog>> sinks = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofHours(1))
+            .build();
+
+    /**
+     * 构建开始，关闭上次构建的日志流
+     */
+    public void begin(String projectPath) {
+        Sinks.Many<BuildLog> previous = sinks.asMap().put(key(projectPath), newSink());
+        if (previous != null) {
+            synchronized (previous) {
+                previous.tryEmitComplete();
+            }
+        }
+    }
+
+    /**
+     * 写入一行日志，可在多个线程上调用
+     */
+    public void publish(String projectPath, String line) {
+        Sinks.Many<BuildLog> sink = sink(projectPath);
+        synchronized (sink) {
+            sink.tryEmitNext(new BuildLog(LOG_EVENT, line));
+        }
+    }
+
+    /**
+     * 构建结束，写入结果并关闭日志流
+     */
+    public void end(String projectPath, boolean success) {
+        Sinks.Many<BuildLog> sink = sink(projectPath);
+        synchronized (sink) {
+            sink.tryEmitNext(new BuildLog(DONE_EVENT, success ? "success" : "failed"));
+            sink.tryEmitComplete();
+        }
+    }
+
+    /**
+     * 订阅工程的构建日志
+     *
+     * @return 最近若干行及后续日志，构建结束时以 done 事件结束
+     */
+    public Flux<BuildLog> stream(String projectPath) {
+        return sink(projectPath).asFlux();
+    }
+
+    private Sinks.Many<BuildLog> sink(String projectPath) {
+        return sinks.get(key(projectPath), k -> newSink());
+    }
+
+    private static Sinks.Many<BuildLog> newSink() {
+        return Sinks.many().replay().limit(REPLAY_LINES);
+    }
+
+    private static String key(String projectPath) {
+        return Paths.get(projectPath).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 构建日志事件
+     *
+     * @param event {@link #LOG_EVENT} 或 {@link #DONE_EVENT}
+     * @param data  日志行，done 事件为 success / failed
+     */
+    public record BuildLog(String event, String data) {
+    }
+}
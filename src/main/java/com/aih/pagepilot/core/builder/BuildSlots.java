@@ -0,0 +1,96 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * <p>
+ * 本节点的构建名额
+ * 进行中的构建和常驻的 vite build --watch 进程各占一个名额，两者合计不超过 {@link VueBuildConfig#resolveBuildSlots()}。
+ * 构建拿不到名额时先回收一个空闲的常驻进程，没有可回收的再等待其他构建结束。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/24
+ */
+@Slf4j
+@Component
+public class BuildSlots {
+
+    /**
+     * 等待名额期间重新尝试回收常驻进程的间隔
+     */
+    private static final long RECLAIM_INTERVAL_MILLIS = 200;
+
+    private final int total;
+
+    private final Semaphore permits;
+
+    /**
+     * 回收一个空闲的常驻进程，回收成功返回 true
+     */
+    private volatile BooleanSupplier reclaimer = () -> false;
+
+    @Autowired
+    public BuildSlots(VueBuildConfig vueBuildConfig) {
+        this(vueBuildConfig.resolveBuildSlots());
+    }
+
+    BuildSlots(int total) {
+        this.total = total;
+        this.permits = new Semaphore(total, true);
+    }
+
+    /**
+     * 获取一个名额，没有空闲名额时回收常驻进程或等待
+     *
+     * @throws InterruptedException 等待期间构建被取消
+     */
+    public void acquire() throws InterruptedException {
+        while (!permits.tryAcquire()) {
+            if (!reclaimer.getAsBoolean() && permits.tryAcquire(RECLAIM_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 不等待地获取一个名额，必要时回收一个空闲的常驻进程
+     *
+     * @return 是否拿到名额
+     */
+    public boolean tryAcquire() {
+        return permits.tryAcquire() || reclaimer.getAsBoolean() && permits.tryAcquire();
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    /**
+     * 名额总数
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * 空闲的名额数
+     */
+    public int available() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * 注册常驻进程的回收方式，由 {@link ViteWatchPool} 调用
+     */
+    void onReclaim(BooleanSupplier reclaimer) {
+        this.reclaimer = reclaimer;
+    }
+}
@@ -0,0 +1,22 @@
+package com.aih.pagepilot.core.builder;
+
+/**
+ * <p>
+ * 同一工程已有构建在进行时，新构建请求的处理策略
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/23
+ */
+public enum BuildSupersedePolicy {
+
+    /**
+     * 终止进行中的构建（其源码已过期），随后用最新源码重新构建
+     */
+    CANCEL_RUNNING,
+
+    /**
+     * 等进行中的构建结束后再用最新源码构建一次
+     */
+    WAIT
+}
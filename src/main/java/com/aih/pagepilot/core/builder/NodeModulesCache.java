@@ -0,0 +1,418 @@
+package com.aih.pagepilot.core.builder;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import cn.hutool.crypto.SecureUtil;
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import com.aih.pagepilot.config.VueBuildConfig;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 按依赖内容寻址的共享 node_modules 缓存
+ * 以 package.json 中的依赖字段（与 package-lock.json，如果存在）的哈希为键，每种依赖组合只安装一次，
+ * 保存在 {@code 缓存目录/哈希/node_modules}；工程的 node_modules 是指向它的符号链接，
+ * 不支持符号链接时退化为硬链接目录树，几乎不占额外磁盘。
+ * </p>
+ * 工程名、脚本等不影响安装结果的字段不参与哈希，生成的 Vue 工程大多命中同一条缓存。
+ * 缓存总大小超出配额时按最近使用时间淘汰，最近链接过、可能仍被构建或常驻 vite 进程使用的条目不淘汰；
+ * 被淘汰条目的符号链接失效后，下次构建重新链接。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/23
+ */
+@Slf4j
+@Component
+public class NodeModulesCache {
+
+    static final String NODE_MODULES = "node_modules";
+
+    /**
+     * node_modules 内记录依赖哈希的文件，随链接一起出现在工程里，用于判断是否需要重新链接
+     */
+    static final String KEY_MARKER = ".page-pilot-deps";
+
+    private static final String LAST_USED_FILE = ".last-used";
+
+    private static final String SIZE_FILE = ".size";
+
+    private static final String STAGING_INFIX = ".staging-";
+
+    /**
+     * npm 下载缓存目录，以下划线开头，不会与哈希冲突
+     */
+    private static final String NPM_CACHE_DIR = "_npm";
+
+    private static final String KEY_VERSION = "v1";
+
+    private static final List<String> LOCKFILES = List.of("package-lock.json", "npm-shrinkwrap.json");
+
+    private static final List<String> DEPENDENCY_FIELDS = List.of("dependencies", "devDependencies",
+            "optionalDependencies", "peerDependencies", "overrides");
+
+    private static final long STAGING_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private final VueBuildConfig vueBuildConfig;
+
+    private final Path storeRoot;
+
+    /**
+     * 依赖哈希级别的锁，同一组依赖同时只安装一次
+     */
+    private final Map<String, Object> locks = new ConcurrentHashMap<>();
+
+    public NodeModulesCache(VueBuildConfig vueBuildConfig) {
+        this.vueBuildConfig = vueBuildConfig;
+        this.storeRoot = Paths.get(vueBuildConfig.getDependencyCacheDir()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 安装依赖的方式，由构建器执行 npm
+     */
+    @FunctionalInterface
+    public interface Installer {
+
+        /**
+         * 在目录中执行 npm install
+         *
+         * @param directory 工作目录，其中已有 package.json
+         * @param npmArgs   附加的 npm 参数
+         * @return 是否成功
+         */
+        boolean install(File directory, List<String> npmArgs);
+    }
+
+    /**
+     * npm install 的附加参数：共享下载缓存，离线模式下不访问网络
+     */
+    public List<String> npmArgs() {
+        List<String> args = new ArrayList<>();
+        args.add("--cache");
+        args.add(storeRoot.resolve(NPM_CACHE_DIR).toString());
+        args.add(vueBuildConfig.isOffline() ? "--offline" : "--prefer-offline");
+        args.add("--no-audit");
+        args.add("--no-fund");
+        return args;
+    }
+
+    /**
+     * 让工程的 node_modules 指向与其依赖匹配的缓存，缓存不存在时先安装
+     *
+     * @param projectDir 工程目录
+     * @param installer  安装依赖的方式
+     * @return 是否成功，失败时工程的 node_modules 不变
+     */
+    public boolean link(File projectDir, Installer installer) {
+        String key;
+        try {
+            key = dependencyKey(projectDir.toPath());
+        } catch (Exception e) {
+            log.warn("计算依赖哈希失败: {}, error: {}", projectDir, e.getMessage());
+            return false;
+        }
+        Path target = projectDir.toPath().resolve(NODE_MODULES);
+        // 在锁内确认并记录使用，与淘汰互斥，不会沿用一个正在被删除的条目
+        synchronized (lockOf(key)) {
+            if (key.equals(readMarker(target))) {
+                touch(storeRoot.resolve(key));
+                log.info("依赖未变化，沿用 node_modules: {}", target);
+                return true;
+            }
+        }
+        Path entry = ensureEntry(key, projectDir.toPath(), installer);
+        if (entry == null) {
+            return false;
+        }
+        try {
+            replaceWithLink(target, entry.resolve(NODE_MODULES));
+        } catch (IOException e) {
+            log.error("链接 node_modules 失败: {}", target, e);
+            return false;
+        }
+        touch(entry);
+        log.info("已链接共享依赖 {} -> {}", target, entry);
+        evict(key);
+        return true;
+    }
+
+    /**
+     * 依赖哈希：只取依赖相关字段，键排序后序列化，再拼上锁文件内容
+     */
+    static String dependencyKey(Path projectDir) throws IOException {
+        JSONObject packageJson = JSONUtil.parseObj(Files.readString(projectDir.resolve("package.json")));
+        StringBuilder canonical = new StringBuilder(KEY_VERSION).append('\n');
+        for (String field : DEPENDENCY_FIELDS) {
+            Object value = packageJson.get(field);
+            if (value != null) {
+                canonical.append(field).append('=');
+                appendCanonical(canonical, value);
+                canonical.append('\n');
+            }
+        }
+        for (String lockfile : LOCKFILES) {
+            Path path = projectDir.resolve(lockfile);
+            if (Files.isRegularFile(path)) {
+                canonical.append(lockfile).append('=').append(Files.readString(path)).append('\n');
+            }
+        }
+        return SecureUtil.sha256(canonical.toString());
+    }
+
+    private static void appendCanonical(StringBuilder builder, Object value) {
+        if (value instanceof JSONObject object) {
+            builder.append('{');
+            for (String name : new TreeSet<>(object.keySet())) {
+                builder.append(JSONUtil.quote(name)).append(':');
+                appendCanonical(builder, object.get(name));
+                builder.append(',');
+            }
+            builder.append('}');
+        } else if (value instanceof JSONArray array) {
+            builder.append('[');
+            for (Object item : array) {
+                appendCanonical(builder, item);
+                builder.append(',');
+            }
+            builder.append(']');
+        } else {
+            builder.append(JSONUtil.quote(String.valueOf(value)));
+        }
+    }
+
+    /**
+     * 取得依赖哈希对应的缓存条目，不存在时在暂存目录安装后原子改名
+     *
+     * @return 条目目录，安装失败返回 null
+     */
+    private Path ensureEntry(String key, Path projectDir, Installer installer) {
+        Path entry = storeRoot.resolve(key);
+        synchronized (lockOf(key)) {
+            if (key.equals(readMarker(entry.resolve(NODE_MODULES)))) {
+                touch(entry);
+                return entry;
+            }
+            Path staging = storeRoot.resolve(key + STAGING_INFIX + IdUtil.fastSimpleUUID());
+            try {
+                Files.createDirectories(staging);
+                Files.copy(projectDir.resolve("package.json"), staging.resolve("package.json"));
+                for (String lockfile : LOCKFILES) {
+                    Path path = projectDir.resolve(lockfile);
+                    if (Files.isRegularFile(path)) {
+                        Files.copy(path, staging.resolve(lockfile));
+                    }
+                }
+                log.info("共享依赖缓存未命中，安装依赖: {}", key);
+                if (!installer.install(staging.toFile(), npmArgs())
+                        || !Files.isDirectory(staging.resolve(NODE_MODULES))) {
+                    FileUtil.del(staging.toFile());
+                    return null;
+                }
+                Files.writeString(staging.resolve(NODE_MODULES).resolve(KEY_MARKER), key);
+                Files.writeString(staging.resolve(SIZE_FILE), String.valueOf(sizeOf(staging)));
+                // 目录残缺（上次中途失败）时先删掉
+                FileUtil.del(entry.toFile());
+                try {
+                    Files.move(staging, entry, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(staging, entry);
+                }
+                return entry;
+            } catch (IOException e) {
+                log.error("安装共享依赖失败: {}", key, e);
+                FileUtil.del(staging.toFile());
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 把工程的 node_modules 替换为指向缓存的链接：优先符号链接，不支持时建立硬链接目录树
+     */
+    private static void replaceWithLink(Path target, Path source) throws IOException {
+        deleteNodeModules(target);
+        try {
+            Files.createSymbolicLink(target, source);
+            return;
+        } catch (UnsupportedOperationException | IOException e) {
+            log.info("不支持符号链接，改用硬链接: {}", e.getMessage());
+        }
+        Path staging = target.resolveSibling(NODE_MODULES + STAGING_INFIX + IdUtil.fastSimpleUUID());
+        try {
+            linkTree(source, staging);
+            Files.move(staging, target);
+        } catch (IOException e) {
+            FileUtil.del(staging.toFile());
+            throw e;
+        }
+    }
+
+    /**
+     * 删除工程的 node_modules，符号链接只删链接本身
+     */
+    private static void deleteNodeModules(Path target) throws IOException {
+        if (Files.isSymbolicLink(target)) {
+            Files.delete(target);
+        } else if (Files.exists(target, LinkOption.NOFOLLOW_LINKS)) {
+            FileUtil.del(target.toFile());
+        }
+    }
+
+    /**
+     * 复制目录结构，文件建立硬链接，跨文件系统等无法硬链接时复制；目录中的符号链接（如 .bin）原样重建
+     */
+    private static void linkTree(Path source, Path target) throws IOException {
+        Files.walkFileTree(source, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir).toString()));
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Path dest = target.resolve(source.relativize(file).toString());
+                if (attrs.isSymbolicLink()) {
+                    Files.createSymbolicLink(dest, Files.readSymbolicLink(file));
+                    return FileVisitResult.CONTINUE;
+                }
+                try {
+                    Files.createLink(dest, file);
+                } catch (UnsupportedOperationException | IOException e) {
+                    Files.copy(file, dest, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    /**
+     * 总大小超出配额时从最久未使用的条目开始淘汰，可能仍在使用的条目不淘汰；顺带清理遗留的暂存目录
+     */
+    private void evict(String currentKey) {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> children = Files.list(storeRoot)) {
+            for (Path child : children.toList()) {
+                String name = child.getFileName().toString();
+                if (name.startsWith("_")) {
+                    continue;
+                }
+                if (name.contains(STAGING_INFIX)) {
+                    if (System.currentTimeMillis() - lastUsed(child) > STAGING_EXPIRE_MILLIS) {
+                        FileUtil.del(child.toFile());
+                    }
+                    continue;
+                }
+                entries.add(child);
+            }
+        } catch (IOException e) {
+            log.warn("扫描共享依赖缓存失败: {}", storeRoot, e);
+            return;
+        }
+        entries.sort(Comparator.comparingLong(NodeModulesCache::lastUsed).reversed());
+        long quota = vueBuildConfig.getDependencyCacheMaxSize().toBytes();
+        long total = 0;
+        for (Path entry : entries) {
+            total += recordedSize(entry);
+            String key = entry.getFileName().toString();
+            if (total <= quota || key.equals(currentKey)) {
+                continue;
+            }
+            synchronized (lockOf(key)) {
+                // 锁内重新读取使用时间，期间被链接的条目保留
+                if (System.currentTimeMillis() - lastUsed(entry) < inUseWindowMillis()) {
+                    continue;
+                }
+                FileUtil.del(entry.toFile());
+            }
+            log.info("淘汰共享依赖缓存: {}", key);
+        }
+    }
+
+    /**
+     * 条目最近一次被链接后仍可能在使用的时长：链接后的构建最长持续部署等待时间，
+     * 构建结束后常驻 vite 进程最长再保留空闲超时；每次构建都会重新链接并刷新使用时间
+     */
+    private long inUseWindowMillis() {
+        return vueBuildConfig.getDeployBuildTimeout().toMillis() + vueBuildConfig.getWarmIdleTimeout().toMillis();
+    }
+
+    private Object lockOf(String key) {
+        return locks.computeIfAbsent(key, k -> new Object());
+    }
+
+    private static String readMarker(Path nodeModules) {
+        Path marker = nodeModules.resolve(KEY_MARKER);
+        try {
+            return Files.isRegularFile(marker) ? Files.readString(marker, StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static void touch(Path entry) {
+        try {
+            Path lastUsed = entry.resolve(LAST_USED_FILE);
+            if (!Files.exists(lastUsed)) {
+                Files.createFile(lastUsed);
+            }
+            Files.setLastModifiedTime(lastUsed, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            log.debug("更新共享依赖使用时间失败: {}", entry, e);
+        }
+    }
+
+    private static long lastUsed(Path entry) {
+        try {
+            Path lastUsed = entry.resolve(LAST_USED_FILE);
+            return Files.getLastModifiedTime(Files.exists(lastUsed) ? lastUsed : entry).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long recordedSize(Path entry) {
+        try {
+            return Long.parseLong(Files.readString(entry.resolve(SIZE_FILE)).trim());
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        AtomicLong size = new AtomicLong();
+        Files.walkFileTree(dir, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                size.addAndGet(attrs.size());
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return size.get();
+    }
+}
@@ -0,0 +1,33 @@
+package com.aih.pagepilot.core.builder;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <p>
+ * 外部命令的执行结果
+ * </p>
+ *
+ * @param exitCode    退出码，未能启动时为 -1
+ * @param timedOut    是否超时被终止
+ * @param interrupted 是否因等待线程被中断（构建被取消）而终止
+ * @param wallTime    墙钟耗时
+ * @param cpuTime     进程树累计的 CPU 时间（按采样估算）
+ * @param tail        最后若干行输出（stdout 与 stderr 按到达顺序交错）
+ * @author zeng.liqiang
+ * @date 2025/11/25
+ */
+public record ProcessResult(int exitCode, boolean timedOut, boolean interrupted, Duration wallTime,
+                            Duration cpuTime, List<String> tail) {
+
+    /**
+     * 命令未能启动
+     */
+    public static ProcessResult failedToStart(String message) {
+        return new ProcessResult(-1, false, false, Duration.ZERO, Duration.ZERO, List.of(message));
+    }
+
+    public boolean success() {
+        return exitCode == 0 && !timedOut && !interrupted;
+    }
+}
@@ -0,0 +1,113 @@
+package com.aih.pagepilot.core.builder;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * <p>
+ * 构建用外部命令的执行器
+ * 异步读取命令的全部输出并逐行转发给监听器（构建日志推送），保留末尾若干行用于失败排查；
+ * 超时或被取消时终止整个进程树。每个阶段的墙钟耗时与 CPU 时间记录到
+ * {@code page_pilot.vue_build.phase.wall} / {@code page_pilot.vue_build.phase.cpu}。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/25
+ */
+@Slf4j
+@Component
+public class ProcessRunner {
+
+    /**
+     * 每个进程保留的输出行数
+     */
+    static final int TAIL_LINES = 200;
+
+    private final MeterRegistry meterRegistry;
+
+    public ProcessRunner(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * 进程输出的逐行监听，在读取输出的线程上调用，应尽快返回
+     */
+    @FunctionalInterface
+    public interface LineListener {
+
+        LineListener NONE = (line, stderr) -> {
+        };
+
+        /**
+         * @param line   去掉颜色控制符的一行输出
+         * @param stderr 是否来自 stderr
+         */
+        void onLine(String line, boolean stderr);
+    }
+
+    /**
+     * 启动命令，不等待结束
+     *
+     * @param phase     阶段名，用作读取线程的名称
+     * @param directory 工作目录
+     * @param command   命令及参数
+     * @param listener  输出监听
+     * @return 运行中的进程
+     */
+    public RunningProcess start(String phase, File directory, List<String> command, LineListener listener)
+            throws IOException {
+        // 按参数传入，路径中的空格不会被拆开
+        ProcessBuilder processBuilder = new ProcessBuilder(command).directory(directory);
+        processBuilder.environment().put("NO_COLOR", "1");
+        return new RunningProcess(phase, processBuilder.start(), TAIL_LINES, listener);
+    }
+
+    /**
+     * 执行命令并等待结束，记录该阶段的耗时
+     *
+     * @param phase     阶段名，如 install、build
+     * @param directory 工作目录
+     * @param command   命令及参数
+     * @param timeout   超时时间，超时后终止整个进程树
+     * @param listener  输出监听
+     * @return 执行结果
+     */
+    public ProcessResult run(String phase, File directory, List<String> command, Duration timeout,
+                             LineListener listener) {
+        RunningProcess process;
+        try {
+            process = start(phase, directory, command, listener);
+        } catch (IOException e) {
+            log.error("启动命令失败: {}, 错误信息: {}", command, e.getMessage());
+            return ProcessResult.failedToStart(e.getMessage());
+        }
+        ProcessResult result = process.await(timeout);
+        record(phase, result);
+        return result;
+    }
+
+    private void record(String phase, ProcessResult result) {
+        String outcome = result.success() ? "success"
+                : result.timedOut() ? "timeout"
+                : result.interrupted() ? "cancelled" : "failure";
+        Timer.builder("page_pilot.vue_build.phase.wall")
+                .description("构建阶段墙钟耗时")
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(result.wallTime());
+        Timer.builder("page_pilot.vue_build.phase.cpu")
+                .description("构建阶段进程树 CPU 时间")
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .record(result.cpuTime());
+    }
+}
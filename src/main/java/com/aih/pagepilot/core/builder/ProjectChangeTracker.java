@@ -0,0 +1,97 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.constant.AppConstant;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>
+ * 工程文件改动跟踪
+ * 文件写入、修改、删除工具在改动 Vue 工程前记录相对路径，构建开始时取走上次成功构建以来的改动，
+ * 据此跳过无关改动的构建、决定是否重新安装依赖或重启常驻构建进程。构建失败时把取走的改动放回。
+ * 本节点对某个工程的首次构建总是完整构建，从那时起才开始记录它的改动。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/24
+ */
+@Component
+public class ProjectChangeTracker {
+
+    /**
+     * 工程目录 -> 未构建的改动
+     */
+    private final Map<String, Pending> projects = new ConcurrentHashMap<>();
+
+    /**
+     * 记录工具对 Vue 工程文件的改动，在写入文件前调用
+     *
+     * @param appId 应用 ID
+     * @param file  被改动的文件，已校验在工程目录内
+     */
+    public void record(Long appId, Path file) {
+        Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId).toAbsolutePath().normalize();
+        String relativePath = projectRoot.relativize(file.toAbsolutePath().normalize()).toString().replace('\\', '/');
+        Pending pending = projects.get(key(projectRoot.toString()));
+        if (pending == null) {
+            // 未跟踪的工程下次构建总是完整构建，无需记录
+            return;
+        }
+        synchronized (pending) {
+            pending.paths.add(relativePath);
+            pending.lastChangeTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 取走工程的改动，构建开始时调用；之后的改动开始记录
+     */
+    public ProjectChanges drain(String projectPath) {
+        Pending pending = projects.computeIfAbsent(key(projectPath), k -> new Pending());
+        synchronized (pending) {
+            ProjectChanges changes = pending.complete
+                    ? new ProjectChanges(Set.copyOf(pending.paths), pending.lastChangeTime, true)
+                    : ProjectChanges.unknown();
+            pending.paths.clear();
+            pending.complete = true;
+            return changes;
+        }
+    }
+
+    /**
+     * 构建失败或被取消，放回取走的改动
+     */
+    public void restore(String projectPath, ProjectChanges changes) {
+        Pending pending = projects.get(key(projectPath));
+        if (pending == null) {
+            return;
+        }
+        synchronized (pending) {
+            pending.paths.addAll(changes.paths());
+            pending.lastChangeTime = Math.max(pending.lastChangeTime, changes.lastChangeTime());
+            pending.complete &= changes.complete();
+        }
+    }
+
+    private static String key(String projectPath) {
+        return Paths.get(projectPath).toAbsolutePath().normalize().toString();
+    }
+
+    private static final class Pending {
+
+        private final Set<String> paths = new HashSet<>();
+
+        private long lastChangeTime;
+
+        /**
+         * 首次构建前不掌握之前的改动
+         */
+        private boolean complete;
+    }
+}
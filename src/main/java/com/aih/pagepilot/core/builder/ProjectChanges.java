@@ -0,0 +1,83 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.ai.tools.FileDirReadTool;
+
+import java.util.Set;
+
+/**
+ * <p>
+ * 上次成功构建以来工程中被工具改动的文件
+ * 本节点没有跟踪到完整改动（如重启后首次构建）时 {@code complete} 为 false，需要完整构建。
+ * </p>
+ *
+ * @param paths          改动的相对路径，使用 / 分隔
+ * @param lastChangeTime 最后一次改动的时间戳（毫秒）
+ * @param complete       是否完整跟踪了上次成功构建以来的改动
+ * @author zeng.liqiang
+ * @date 2025/11/24
+ */
+public record ProjectChanges(Set<String> paths, long lastChangeTime, boolean complete) {
+
+    /**
+     * 改动后需要重新安装依赖的文件
+     */
+    private static final Set<String> DEPENDENCY_FILES = Set.of("package.json", "package-lock.json",
+            "npm-shrinkwrap.json");
+
+    /**
+     * 改动后需要重启常驻构建进程的配置文件前缀（不含依赖文件）
+     */
+    private static final Set<String> CONFIG_PREFIXES = Set.of("vite.config.", "tsconfig", ".env", "postcss.config.",
+            "tailwind.config.", "index.html");
+
+    /**
+     * 静态资源目录，构建时原样复制，不在增量构建的监听范围内
+     */
+    private static final String PUBLIC_DIR = "public/";
+
+    /**
+     * 未跟踪的改动
+     */
+    public static ProjectChanges unknown() {
+        return new ProjectChanges(Set.of(), System.currentTimeMillis(), false);
+    }
+
+    /**
+     * 是否有影响构建产物的改动，文档和构建产物目录中的改动不算
+     */
+    public boolean hasRelevantChanges() {
+        return !complete || paths.stream().anyMatch(ProjectChanges::isRelevant);
+    }
+
+    /**
+     * 是否需要重新安装依赖
+     */
+    public boolean requiresDependencyInstall() {
+        return !complete || paths.stream().anyMatch(DEPENDENCY_FILES::contains);
+    }
+
+    /**
+     * 是否需要重启常驻构建进程：依赖、构建配置或静态资源有变化
+     */
+    public boolean requiresRestart() {
+        return requiresDependencyInstall() || paths.stream().anyMatch(path -> path.startsWith(PUBLIC_DIR)
+                || path.indexOf('/') < 0 && CONFIG_PREFIXES.stream().anyMatch(path::startsWith));
+    }
+
+    /**
+     * 文件是否影响构建产物，源码哈希也按此规则取文件
+     */
+    static boolean isRelevant(String path) {
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (fileName.endsWith(".md") || fileName.equals(".gitignore")) {
+            return false;
+        }
+        for (String segment : path.split("/")) {
+            // .env 会被 Vite 读取，不按目录读取工具的规则忽略
+            if (!segment.startsWith(".env") && FileDirReadTool.IGNORED_NAMES.contains(segment)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
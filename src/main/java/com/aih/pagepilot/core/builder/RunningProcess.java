@@ -0,0 +1,196 @@
+package com.aih.pagepilot.core.builder;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * <p>
+ * 由 {@link ProcessRunner} 启动的外部进程
+ * stdout 与 stderr 各由一个虚拟线程持续读取，管道不会写满而阻塞子进程；
+ * 读到的每一行交给监听器，并保留最后若干行用于失败时输出。
+ * </p>
+ * 存活期间定时采样整个进程树的 CPU 时间，进程退出后无法再读取，最后一次采样之后的部分不计入。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/25
+ */
+@Slf4j
+public final class RunningProcess {
+
+    private static final Pattern ANSI_ESCAPE = Pattern.compile("\u001B\\[[;?\\d]*[A-Za-z]");
+
+    /**
+     * 单行保留的最大长度，压缩后的产物等超长行截断
+     */
+    private static final int MAX_LINE_LENGTH = 2000;
+
+    private static final long CPU_SAMPLE_MILLIS = 1000;
+
+    /**
+     * 进程结束后等待输出读完的最长时间
+     */
+    private static final long DRAIN_TIMEOUT_MILLIS = 5000;
+
+    private final Process process;
+
+    private final ProcessRunner.LineListener listener;
+
+    private final int maxTailLines;
+
+    private final Deque<String> tail;
+
+    /**
+     * pid -> 采样到的最大累计 CPU 时间
+     */
+    private final Map<Long, Duration> cpuByPid = new ConcurrentHashMap<>();
+
+    private final long startNanos = System.nanoTime();
+
+    private final Thread stdoutReader;
+
+    private final Thread stderrReader;
+
+    RunningProcess(String name, Process process, int maxTailLines, ProcessRunner.LineListener listener) {
+        this.process = process;
+        this.listener = listener;
+        this.maxTailLines = maxTailLines;
+        this.tail = new ArrayDeque<>(maxTailLines);
+        this.stdoutReader = Thread.ofVirtual().name(name + "-out").start(() -> drain(process.getInputStream(), false));
+        this.stderrReader = Thread.ofVirtual().name(name + "-err").start(() -> drain(process.getErrorStream(), true));
+        Thread.ofVirtual().name(name + "-cpu").start(this::sampleCpuWhileAlive);
+    }
+
+    public boolean isAlive() {
+        return process.isAlive();
+    }
+
+    /**
+     * 等待进程结束，超时或当前线程被中断时终止整个进程树
+     *
+     * @param timeout 超时时间
+     * @return 执行结果；被中断时返回前恢复中断标记
+     */
+    public ProcessResult await(Duration timeout) {
+        boolean finished = false;
+        boolean interrupted = false;
+        try {
+            finished = process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            interrupted = true;
+        }
+        if (!finished) {
+            destroy();
+        }
+        int exitCode = awaitExit();
+        Duration wallTime = Duration.ofNanos(System.nanoTime() - startNanos);
+        awaitDrained();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        return new ProcessResult(exitCode, !finished && !interrupted, interrupted, wallTime, cpuTime(), tail());
+    }
+
+    /**
+     * 终止整个进程树：npm 会再启动 node 等子进程，只终止 npm 时它们会继续运行并占住输出管道
+     */
+    public void destroy() {
+        sampleCpu();
+        process.descendants().forEach(ProcessHandle::destroyForcibly);
+        process.destroyForcibly();
+    }
+
+    /**
+     * 最后若干行输出
+     */
+    public List<String> tail() {
+        synchronized (tail) {
+            return List.copyOf(tail);
+        }
+    }
+
+    private int awaitExit() {
+        try {
+            return process.waitFor(DRAIN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS) ? process.exitValue() : -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private void awaitDrained() {
+        try {
+            stdoutReader.join(DRAIN_TIMEOUT_MILLIS);
+            stderrReader.join(DRAIN_TIMEOUT_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void drain(InputStream stream, boolean stderr) {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                onLine(clean(line), stderr);
+            }
+        } catch (IOException e) {
+            log.debug("进程输出已关闭: {}", e.getMessage());
+        }
+    }
+
+    private void onLine(String line, boolean stderr) {
+        synchronized (tail) {
+            if (tail.size() == maxTailLines) {
+                tail.removeFirst();
+            }
+            tail.addLast(line);
+        }
+        try {
+            listener.onLine(line, stderr);
+        } catch (RuntimeException e) {
+            log.warn("处理进程输出失败: {}", e.getMessage());
+        }
+    }
+
+    private static String clean(String line) {
+        String cleaned = ANSI_ESCAPE.matcher(line).replaceAll("");
+        return cleaned.length() > MAX_LINE_LENGTH ? cleaned.substring(0, MAX_LINE_LENGTH) + "..." : cleaned;
+    }
+
+    private void sampleCpuWhileAlive() {
+        try {
+            while (process.isAlive()) {
+                sampleCpu();
+                process.waitFor(CPU_SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void sampleCpu() {
+        sampleCpu(process.toHandle());
+        process.descendants().forEach(this::sampleCpu);
+    }
+
+    private void sampleCpu(ProcessHandle handle) {
+        handle.info().totalCpuDuration().ifPresent(cpu ->
+                cpuByPid.merge(handle.pid(), cpu, (previous, current) -> current.compareTo(previous) > 0 ? current : previous));
+    }
+
+    private Duration cpuTime() {
+        return cpuByPid.values().stream().reduce(Duration.ZERO, Duration::plus);
+    }
+}
@@ -0,0 +1,334 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 常驻的 Vite 增量构建进程
+ * 为最近构建过的 Vue 工程保留一个 {@code vite build --watch} 进程：工具改动文件后它立即增量重建，
+ * 构建请求只需等到改动之后开始的那次重建完成，通常在生成结束时就已经建好。
+ * </p>
+ * 通过输出中的 {@code build started} / {@code built in} 判断重建开始与完成，错误输出判为失败，输出同时写入构建日志。
+ * 进程数超过上限时停止最久未使用的，空闲超时的定时停止。
+ * 每个常驻进程占用一个构建名额（见 {@link BuildSlots}），拿不到名额时不启动，改为完整构建；
+ * 构建缺少名额时回收最久未使用的空闲进程。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/24
+ */
+@Slf4j
+@Component
+public class ViteWatchPool {
+
+    /**
+     * 重建完成后再观察这么久没有开始新一轮，才认为改动已全部构建（期间的改动会让 Rollup 立即重跑）
+     */
+    private static final long SETTLE_MILLIS = 150;
+
+    /**
+     * 改动后这么久都没有开始重建，说明改动的文件不在模块图中（如未被引用的新文件），现有产物仍然有效
+     */
+    private static final long UNWATCHED_GRACE_MILLIS = 2000;
+
+    private final VueBuildConfig vueBuildConfig;
+
+    private final ProcessRunner processRunner;
+
+    private final BuildLogBroadcaster buildLogBroadcaster;
+
+    private final BuildSlots buildSlots;
+
+    /**
+     * 工程目录 -> 常驻进程
+     */
+    private final Map<String, Watcher> watchers = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("vite-watch-sweep").daemon().factory());
+
+    public ViteWatchPool(VueBuildConfig vueBuildConfig, ProcessRunner processRunner,
+                         BuildLogBroadcaster buildLogBroadcaster, BuildSlots buildSlots) {
+        this.vueBuildConfig = vueBuildConfig;
+        this.processRunner = processRunner;
+        this.buildLogBroadcaster = buildLogBroadcaster;
+        this.buildSlots = buildSlots;
+        buildSlots.onReclaim(this::reclaimLeastRecentlyUsed);
+        sweeper.scheduleWithFixedDelay(this::stopIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    /**
+     * 用常驻进程构建，没有时启动一个（启动时先完整构建一次）
+     *
+     * @param projectDir 工程目录，依赖已安装
+     * @param changedAt  最后一次改动的时间戳，等待在此之后开始的重建
+     * @return 构建是否成功；进程无法启动、退出或超时返回 null，调用方改为完整构建
+     */
+    public Boolean build(File projectDir, long changedAt) {
+        String key = key(projectDir);
+        Watcher watcher = watchers.get(key);
+        if (watcher == null || !watcher.isAlive()) {
+            watcher = start(key, projectDir);
+            if (watcher == null) {
+                return null;
+            }
+        }
+        Boolean result = watcher.awaitBuildAfter(changedAt, vueBuildConfig.getWarmBuildTimeout().toMillis());
+        if (result == null && watchers.remove(key, watcher)) {
+            log.warn("常驻构建进程未按时完成重建，停止: {}", key);
+            watcher.destroy();
+        }
+        return result;
+    }
+
+    /**
+     * 工程是否有运行中的常驻进程
+     */
+    public boolean isWatching(File projectDir) {
+        Watcher watcher = watchers.get(key(projectDir));
+        return watcher != null && watcher.isAlive();
+    }
+
+    /**
+     * 停止工程的常驻进程，依赖或构建配置变化时调用
+     */
+    public void stop(File projectDir) {
+        Watcher watcher = watchers.remove(key(projectDir));
+        if (watcher != null) {
+            watcher.destroy();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        watchers.values().forEach(Watcher::destroy);
+        watchers.clear();
+    }
+
+    private synchronized Watcher start(String key, File projectDir) {
+        Watcher existing = watchers.get(key);
+        if (existing != null) {
+            if (existing.isAlive()) {
+                return existing;
+            }
+            // 进程已自行退出，归还它的名额
+            watchers.remove(key, existing);
+            existing.destroy();
+        }
+        Path vite = projectDir.toPath().resolve("node_modules").resolve(".bin").resolve(isWindows() ? "vite.cmd" : "vite");
+        if (!Files.exists(vite)) {
+            log.warn("工程中没有 vite，无法启动常驻构建: {}", projectDir);
+            return null;
+        }
+        evictLeastRecentlyUsed(vueBuildConfig.getMaxWarmProjects() - 1);
+        if (!buildSlots.tryAcquire()) {
+            log.info("构建名额已满，不启动常驻构建进程: {}", key);
+            return null;
+        }
+        Watcher watcher = new Watcher(line -> buildLogBroadcaster.publish(key, line), buildSlots::release);
+        try {
+            watcher.process = processRunner.start("vite-watch", projectDir,
+                    List.of(vite.toString(), "build", "--watch"), watcher::onLine);
+            watchers.put(key, watcher);
+            log.info("启动常驻构建进程: {}", key);
+            return watcher;
+        } catch (IOException e) {
+            log.error("启动常驻构建进程失败: {}", key, e);
+            watcher.destroy();
+            return null;
+        }
+    }
+
+    /**
+     * 为构建腾出名额：停止最久未使用的空闲进程（没有构建在等待它的重建）
+     *
+     * @return 是否停止了一个进程
+     */
+    private boolean reclaimLeastRecentlyUsed() {
+        List<Map.Entry<String, Watcher>> entries = watchers.entrySet().stream()
+                .filter(entry -> entry.getValue().isIdle())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .toList();
+        for (Map.Entry<String, Watcher> entry : entries) {
+            if (watchers.remove(entry.getKey(), entry.getValue())) {
+                log.info("构建名额不足，停止空闲的常驻构建进程: {}", entry.getKey());
+                entry.getValue().destroy();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void evictLeastRecentlyUsed(int keep) {
+        List<Map.Entry<String, Watcher>> entries = watchers.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().lastUsed))
+                .toList();
+        for (int i = 0; i < entries.size() - Math.max(keep, 0); i++) {
+            Map.Entry<String, Watcher> entry = entries.get(i);
+            if (watchers.remove(entry.getKey(), entry.getValue())) {
+                log.info("常驻构建进程数已满，停止最久未使用的: {}", entry.getKey());
+                entry.getValue().destroy();
+            }
+        }
+    }
+
+    private void stopIdle() {
+        long idleMillis = vueBuildConfig.getWarmIdleTimeout().toMillis();
+        long now = System.currentTimeMillis();
+        watchers.forEach((key, watcher) -> {
+            if ((now - watcher.lastUsed > idleMillis || !watcher.isAlive()) && watchers.remove(key, watcher)) {
+                log.info("停止空闲的常驻构建进程: {}", key);
+                watcher.destroy();
+            }
+        });
+    }
+
+    private static String key(File projectDir) {
+        return Paths.get(projectDir.getAbsolutePath()).normalize().toString();
+    }
+
+    private static boolean isWindows() {
+        return System.getProperty("os.name").toLowerCase().contains("windows");
+    }
+
+    /**
+     * 单个常驻进程及其最近一次重建的状态
+     */
+    private static final class Watcher {
+
+        private final Consumer<String> logs;
+
+        /**
+         * 归还占用的构建名额
+         */
+        private final Runnable releaseSlot;
+
+        private final AtomicBoolean destroyed = new AtomicBoolean();
+
+        private volatile RunningProcess process;
+
+        /**
+         * 正在等待重建结果的构建数
+         */
+        private int awaiting;
+
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        /**
+         * 启动即开始首次完整构建
+         */
+        private boolean building = true;
+
+        private long lastStart = System.currentTimeMillis();
+
+        private long lastFinish;
+
+        private boolean lastSucceeded;
+
+        private Watcher(Consumer<String> logs, Runnable releaseSlot) {
+            this.logs = logs;
+            this.releaseSlot = releaseSlot;
+        }
+
+        private boolean isAlive() {
+            return process != null && process.isAlive();
+        }
+
+        private synchronized boolean isIdle() {
+            return awaiting == 0;
+        }
+
+        /**
+         * 等待在 changedAt 之后开始的重建完成，且之后没有新的重建开始
+         */
+        private synchronized Boolean awaitBuildAfter(long changedAt, long timeoutMillis) {
+            lastUsed = System.currentTimeMillis();
+            long deadline = lastUsed + timeoutMillis;
+            awaiting++;
+            try {
+                while (true) {
+                    long now = System.currentTimeMillis();
+                    if (!isAlive() || now >= deadline) {
+                        return null;
+                    }
+                    if (building) {
+                        wait(Math.min(deadline - now, 1000));
+                    } else if (lastStart >= changedAt) {
+                        long settled = now - lastFinish;
+                        if (settled >= SETTLE_MILLIS) {
+                            return lastSucceeded;
+                        }
+                        wait(SETTLE_MILLIS - settled);
+                    } else {
+                        long quiet = now - Math.max(changedAt, lastFinish);
+                        if (quiet >= UNWATCHED_GRACE_MILLIS) {
+                            return lastSucceeded;
+                        }
+                        wait(UNWATCHED_GRACE_MILLIS - quiet);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 构建被调度器取消
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                awaiting--;
+                lastUsed = System.currentTimeMillis();
+            }
+        }
+
+        private void onLine(String line, boolean error) {
+            logs.accept(line);
+            synchronized (this) {
+                onBuildEvent(line, error);
+            }
+        }
+
+        private void onBuildEvent(String line, boolean error) {
+            if (line.contains("build started")) {
+                building = true;
+                lastStart = System.currentTimeMillis();
+            } else if (line.contains("built in")) {
+                building = false;
+                lastFinish = System.currentTimeMillis();
+                lastSucceeded = true;
+            } else if (error && building && line.toLowerCase().contains("error")) {
+                log.warn("增量构建失败: {}", line);
+                building = false;
+                lastFinish = System.currentTimeMillis();
+                lastSucceeded = false;
+            } else {
+                return;
+            }
+            notifyAll();
+        }
+
+        private void destroy() {
+            if (!destroyed.compareAndSet(false, true)) {
+                return;
+            }
+            if (process != null) {
+                process.destroy();
+            }
+            releaseSlot.run();
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Predicate;
+
+/**
+ * <p>
+ * Vue 工程构建调度器
+ * 构建在固定数量的名额（线程）上运行，每个名额同时只跑一组 npm 进程，超出的构建排队；
+ * 名额与常驻的 vite build --watch 进程共用，见 {@link BuildSlots}。
+ * 同一工程的构建串行：排队中的请求合并为一次，构建时读取的总是最新源码；
+ * 构建进行中又有新请求时按 {@link BuildSupersedePolicy} 终止当前构建或等它结束，之后再构建一次。
+ * </p>
+ * 被取代的构建，其等待者拿到的是取代它的那次构建的结果。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/23
+ */
+@Slf4j
+@Component
+public class VueBuildScheduler {
+
+    private final Predicate<String> builder;
+
+    private final BuildSupersedePolicy supersedePolicy;
+
+    private final BuildSlots buildSlots;
+
+    private final ExecutorService executor;
+
+    /**
+     * 工程目录 -> 构建状态
+     */
+    private final Map<String, ProjectBuild> projects = new ConcurrentHashMap<>();
+
+    @Autowired
+    public VueBuildScheduler(VueBuildConfig vueBuildConfig, VueProjectBuilder vueProjectBuilder, BuildSlots buildSlots) {
+        this(vueBuildConfig, vueProjectBuilder::buildProject, buildSlots);
+    }
+
+    /**
+     * @param builder 执行一次构建，测试时替换
+     */
+    VueBuildScheduler(VueBuildConfig vueBuildConfig, Predicate<String> builder) {
+        this(vueBuildConfig, builder, new BuildSlots(vueBuildConfig));
+    }
+
+    VueBuildScheduler(VueBuildConfig vueBuildConfig, Predicate<String> builder, BuildSlots buildSlots) {
+        this.builder = builder;
+        this.supersedePolicy = vueBuildConfig.getSupersedePolicy();
+        this.buildSlots = buildSlots;
+        int slots = buildSlots.total();
+        this.executor = Executors.newFixedThreadPool(slots, Thread.ofPlatform().name("vue-build-", 0).daemon().factory());
+        log.info("Vue 构建名额: {}", slots);
+    }
+
+    /**
+     * 源码有变化，请求构建工程
+     *
+     * @param projectPath 工程目录
+     * @return 覆盖本次请求的构建结果，是否成功
+     */
+    public CompletableFuture<Boolean> submit(String projectPath) {
+        ProjectBuild project = project(projectPath);
+        synchronized (project) {
+            if (project.queued != null) {
+                return project.queued.result;
+            }
+            if (project.running == null) {
+                return enqueue(project, new BuildJob());
+            }
+            if (project.next == null) {
+                project.next = new BuildJob();
+            }
+            if (supersedePolicy == BuildSupersedePolicy.CANCEL_RUNNING && !project.running.superseded) {
+                log.info("源码已更新，终止进行中的构建: {}", projectPath);
+                project.running.superseded = true;
+                project.running.future.cancel(true);
+            }
+            return project.next.result;
+        }
+    }
+
+    /**
+     * 有构建在进行或排队时等待它，没有时发起一次构建
+     *
+     * @param projectPath 工程目录
+     * @return 构建结果，是否成功
+     */
+    public CompletableFuture<Boolean> awaitBuild(String projectPath) {
+        ProjectBuild project = project(projectPath);
+        synchronized (project) {
+            if (project.next != null) {
+                return project.next.result;
+            }
+            if (project.queued != null) {
+                return project.queued.result;
+            }
+            if (project.running != null) {
+                return project.running.result;
+            }
+            return enqueue(project, new BuildJob());
+        }
+    }
+
+    /**
+     * 查询工程的构建状态
+     */
+    public Snapshot status(String projectPath) {
+        ProjectBuild project = projects.get(key(projectPath));
+        if (project == null) {
+            return new Snapshot(VueBuildStatus.NONE, null, null, false);
+        }
+        synchronized (project) {
+            return new Snapshot(project.status, project.startTime, project.finishTime, project.next != null);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private ProjectBuild project(String projectPath) {
+        return projects.computeIfAbsent(key(projectPath), ProjectBuild::new);
+    }
+
+    private CompletableFuture<Boolean> enqueue(ProjectBuild project, BuildJob job) {
+        project.queued = job;
+        project.status = VueBuildStatus.QUEUED;
+        job.future = executor.submit(() -> run(project, job));
+        return job.result;
+    }
+
+    private void run(ProjectBuild project, BuildJob job) {
+        synchronized (project) {
+            project.queued = null;
+            project.running = job;
+            project.status = VueBuildStatus.BUILDING;
+            project.startTime = LocalDateTime.now();
+            project.finishTime = null;
+        }
+        boolean success = false;
+        boolean acquired = false;
+        try {
+            buildSlots.acquire();
+            acquired = true;
+            success = builder.test(project.projectPath);
+        } catch (InterruptedException e) {
+            log.info("构建在等待名额时被取消: {}", project.projectPath);
+        } catch (Exception e) {
+            log.error("构建项目失败: {}", e.getMessage(), e);
+        } finally {
+            if (acquired) {
+                buildSlots.release();
+            }
+            // 被终止时中断标记可能还在，清掉后再归还线程
+            Thread.interrupted();
+        }
+        BuildJob next;
+        synchronized (project) {
+            project.running = null;
+            project.finishTime = LocalDateTime.now();
+            project.status = job.superseded ? VueBuildStatus.CANCELLED
+                    : success ? VueBuildStatus.SUCCEEDED : VueBuildStatus.FAILED;
+            next = project.next;
+            project.next = null;
+            if (next != null) {
+                enqueue(project, next);
+            }
+        }
+        if (job.superseded && next != null) {
+            next.result.whenComplete((result, error) -> job.result.complete(error == null && result));
+        } else {
+            job.result.complete(success);
+        }
+    }
+
+    private static String key(String projectPath) {
+        return Paths.get(projectPath).toAbsolutePath().normalize().toString();
+    }
+
+    /**
+     * 构建状态快照
+     *
+     * @param status     当前状态
+     * @param startTime  最近一次构建的开始时间
+     * @param finishTime 最近一次构建的结束时间，进行中为 null
+     * @param pending    是否还有一次待进行的构建
+     */
+    public record Snapshot(VueBuildStatus status, LocalDateTime startTime, LocalDateTime finishTime,
+                           boolean pending) {
+    }
+
+    /**
+     * 单个工程的构建队列：最多一个排队中或进行中的构建，外加进行中时到来的一次后续构建
+     */
+    private static final class ProjectBuild {
+
+        private final String projectPath;
+
+        private BuildJob queued;
+
+        private BuildJob running;
+
+        private BuildJob next;
+
+        private VueBuildStatus status = VueBuildStatus.NONE;
+
+        private LocalDateTime startTime;
+
+        private LocalDateTime finishTime;
+
+        private ProjectBuild(String projectPath) {
+            this.projectPath = projectPath;
+        }
+    }
+
+    private static final class BuildJob {
+
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+
+        private Future<?> future;
+
+        private boolean superseded;
+    }
+}
@@ -0,0 +1,33 @@
+package com.aih.pagepilot.core.builder;
+
+/**
+ * <p>
+ * Vue 工程构建状态
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/23
+ */
+public enum VueBuildStatus {
+
+    /**
+     * 本节点启动后没有构建过
+     */
+    NONE,
+
+    /**
+     * 等待构建名额
+     */
+    QUEUED,
+
+    BUILDING,
+
+    SUCCEEDED,
+
+    FAILED,
+
+    /**
+     * 被更新的构建请求取代
+     */
+    CANCELLED
+}
@@ -1,11 +1,17 @@
 package com.aih.pagepilot.core.builder;
 
-import cn.hutool.core.util.RuntimeUtil;
+import com.aih.pagepilot.config.VueBuildConfig;
+import jakarta.annotation.Resource;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
-import java.util.concurrent.TimeUnit;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * <p>
@@ -19,18 +25,33 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class VueProjectBuilder {
 
-    public void buildProjectAsync(String projectPath) {
-        Thread.ofVirtual().name("vue-build-" + System.currentTimeMillis()).start(()->{
-            try {
-                buildProject(projectPath);
-            } catch (Exception e) {
-                log.error("构建项目失败: {}", e.getMessage(), e);
-            }
-        });
-    }
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+
+    @Resource
+    private NodeModulesCache nodeModulesCache;
+
+    @Resource
+    private ProjectChangeTracker projectChangeTracker;
+
+    @Resource
+    private ViteWatchPool viteWatchPool;
+
+    @Resource
+    private ProcessRunner processRunner;
+
+    @Resource
+    private BuildLogBroadcaster buildLogBroadcaster;
+
+    @Resource
+    private BuildArtifactCache buildArtifactCache;
 
     /**
      * 构建 Vue 项目
+     * 根据上次成功构建以来工具记录的改动决定：无相关改动时跳过；依赖或构建配置变化时重新安装依赖并重启常驻构建进程；
+     * 其余情况交给常驻的 vite build --watch 增量重建，不可用时执行完整的 npm run build。
+     * 有改动时先按源码哈希查找可复用的构建产物，见 {@link BuildArtifactCache}。
+     * 构建过程的输出写入 {@link BuildLogBroadcaster}。
      *
      * @param projectPath 项目根目录路径
      * @return 是否构建成功
@@ -47,49 +68,156 @@ public class VueProjectBuilder {
             log.error("package.json 文件不存在: {}", packageJson.getAbsolutePath());
             return false;
         }
-        log.info("开始构建 Vue 项目: {}", projectPath);
-        File nodeModules = new File(projectDir, "node_modules");
-        if (nodeModules.isDirectory()) {
-            log.info("跳过 npm install，已存在 node_modules: {}", nodeModules.getAbsolutePath());
-        } else if (!executeNpmInstall(projectDir)) {
+        ProjectChanges changes = projectChangeTracker.drain(projectPath);
+        ProcessRunner.LineListener logs = (line, stderr) -> buildLogBroadcaster.publish(projectPath, line);
+        buildLogBroadcaster.begin(projectPath);
+        boolean success = false;
+        try {
+            success = build(projectDir, changes, logs);
+            return success;
+        } finally {
+            if (!success) {
+                projectChangeTracker.restore(projectPath, changes);
+            }
+            buildLogBroadcaster.end(projectPath, success);
+        }
+    }
+
+    private boolean build(File projectDir, ProjectChanges changes, ProcessRunner.LineListener logs) {
+        File distDir = new File(projectDir, "dist");
+        if (!changes.hasRelevantChanges() && distDir.isDirectory()) {
+            log.info("上次构建后没有相关改动，跳过构建: {}", projectDir.getAbsolutePath());
+            logs.onLine("上次构建后没有相关改动，跳过构建", false);
+            return true;
+        }
+        String sourceHash = vueBuildConfig.isArtifactCacheEnabled() ? buildArtifactCache.sourceHash(projectDir) : null;
+        if (sourceHash != null && reuseArtifact(projectDir, sourceHash, logs)) {
+            return true;
+        }
+        log.info("开始构建 Vue 项目: {}, 改动: {}", projectDir.getAbsolutePath(),
+                changes.complete() ? changes.paths() : "未知");
+        buildArtifactCache.invalidate(projectDir);
+        if (changes.requiresRestart()) {
+            viteWatchPool.stop(projectDir);
+        }
+        if (!installDependencies(projectDir, changes.complete() && changes.requiresDependencyInstall(), logs)) {
             log.error("npm install 执行失败");
             return false;
         }
-        // 执行 npm run build
-        if (!executeNpmBuild(projectDir)) {
+        Boolean warmResult = vueBuildConfig.isWarmBuildEnabled()
+                ? viteWatchPool.build(projectDir, changes.lastChangeTime()) : null;
+        if (warmResult != null) {
+            if (!warmResult) {
+                log.error("增量构建失败: {}", projectDir.getAbsolutePath());
+                return false;
+            }
+        } else if (Thread.currentThread().isInterrupted()) {
+            return false;
+        } else if (!executeNpmBuild(projectDir, logs)) {
+            // 执行 npm run build
             log.error("npm run build 执行失败");
             return false;
         }
         // 验证 dist 目录是否生成
-        File distDir = new File(projectDir, "dist");
         if (!distDir.exists()) {
             log.error("构建完成但 dist 目录未生成: {}", distDir.getAbsolutePath());
             return false;
         }
         log.info("Vue 项目构建成功，dist 目录: {}", distDir.getAbsolutePath());
+        if (sourceHash != null) {
+            buildArtifactCache.save(projectDir, sourceHash);
+        }
         return true;
     }
 
+    /**
+     * 工程现有的 dist 是否由当前源码构建，部署时据此免去等待构建
+     *
+     * @param projectPath 项目根目录路径
+     * @return 是否可以直接使用现有的 dist
+     */
+    public boolean isUpToDate(String projectPath) {
+        File projectDir = new File(projectPath);
+        if (!vueBuildConfig.isArtifactCacheEnabled() || !projectDir.isDirectory()
+                || viteWatchPool.isWatching(projectDir)) {
+            return false;
+        }
+        String sourceHash = buildArtifactCache.sourceHash(projectDir);
+        return sourceHash != null && buildArtifactCache.isCurrent(projectDir, sourceHash);
+    }
 
+    /**
+     * 按源码哈希复用构建产物：dist 已由这份源码构建时直接使用，否则复制缓存中源码相同的产物。
+     * 常驻构建进程会随改动改写 dist，有常驻进程时不复用，交给它增量重建。
+     */
+    private boolean reuseArtifact(File projectDir, String sourceHash, ProcessRunner.LineListener logs) {
+        if (viteWatchPool.isWatching(projectDir)) {
+            return false;
+        }
+        if (buildArtifactCache.isCurrent(projectDir, sourceHash)) {
+            log.info("源码与现有构建产物一致，跳过构建: {}", projectDir.getAbsolutePath());
+            logs.onLine("源码与现有构建产物一致，跳过构建", false);
+            return true;
+        }
+        if (buildArtifactCache.restore(projectDir, sourceHash)) {
+            logs.onLine("复用源码相同的构建产物", false);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 准备 node_modules：优先链接共享依赖缓存，缓存不可用时在工程内安装
+     *
+     * @param dependenciesChanged 已知依赖有变化，工程内已有的 node_modules 不能沿用
+     */
+    private boolean installDependencies(File projectDir, boolean dependenciesChanged, ProcessRunner.LineListener logs) {
+        if (vueBuildConfig.isDependencyCacheEnabled()) {
+            if (nodeModulesCache.link(projectDir, (dir, npmArgs) -> executeNpmInstall(dir, npmArgs, logs))) {
+                return true;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                // 构建已被取代，不再退回工程内安装
+                return false;
+            }
+            log.warn("共享依赖缓存不可用，在工程内安装依赖: {}", projectDir.getAbsolutePath());
+        }
+        Path nodeModules = projectDir.toPath().resolve(NodeModulesCache.NODE_MODULES);
+        if (Files.isSymbolicLink(nodeModules)) {
+            // 指向缓存的链接，缓存已被淘汰或依赖已变化，不能沿用
+            try {
+                Files.delete(nodeModules);
+            } catch (IOException e) {
+                log.error("删除 node_modules 链接失败: {}", nodeModules, e);
+                return false;
+            }
+        } else if (Files.isDirectory(nodeModules) && !dependenciesChanged) {
+            log.info("跳过 npm install，已存在 node_modules: {}", nodeModules);
+            return true;
+        }
+        return executeNpmInstall(projectDir, nodeModulesCache.npmArgs(), logs);
+    }
 
     /**
      * 执行 npm install 命令
      */
-    private boolean executeNpmInstall(File projectDir) {
+    private boolean executeNpmInstall(File projectDir, List<String> npmArgs, ProcessRunner.LineListener logs) {
         log.info("执行 npm install...");
-        String command = String.format("%s install", buildNpmByOs());
+        List<String> command = new ArrayList<>();
+        command.add(buildNpmByOs());
+        command.add("install");
+        command.addAll(npmArgs);
         // 5分钟超时
-        return executeCommand(projectDir, command, 300);
+        return executeCommand("install", projectDir, command, 300, logs);
     }
 
     /**
      * 执行 npm run build 命令
      */
-    private boolean executeNpmBuild(File projectDir) {
+    private boolean executeNpmBuild(File projectDir, ProcessRunner.LineListener logs) {
         log.info("执行 npm run build...");
-        String command = String.format("%s run build", buildNpmByOs());
         // 3分钟超时
-        return executeCommand(projectDir, command, 180);
+        return executeCommand("build", projectDir, List.of(buildNpmByOs(), "run", "build"), 180, logs);
     }
 
     private boolean isWindows() {
@@ -105,43 +233,36 @@ public class VueProjectBuilder {
 
 
     /**
-     * 执行命令
+     * 执行命令，输出逐行写入构建日志，失败时打印末尾输出
      *
-     * @param directory     工作目录
-     * @param command        命令字符串
+     * @param phase          构建阶段，用于耗时统计
+     * @param directory      工作目录
+     * @param command        命令及参数
      * @param timeoutSeconds 超时时间（秒）
+     * @param logs           构建日志
      * @return 是否执行成功
      */
-    private boolean executeCommand(File directory, String command, int timeoutSeconds) {
-        try {
-            log.info("在目录 {} 中执行命令: {}", directory.getAbsolutePath(), command);
-            Process process = RuntimeUtil.exec(
-                    null,
-                    directory,
-                    // 命令分割为数组
-                    command.split("\\s+")
-            );
-            // 等待进程完成，设置超时
-            boolean finished = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
-            if (!finished) {
-                log.error("命令执行超时（{}秒），强制终止进程", timeoutSeconds);
-                process.destroyForcibly();
-                return false;
-            }
-            int exitCode = process.exitValue();
-            if (exitCode == 0) {
-                log.info("命令执行成功: {}", command);
-                return true;
-            } else {
-                log.error("命令执行失败，退出码: {}", exitCode);
-                return false;
-            }
-        } catch (Exception e) {
-            log.error("执行命令失败: {}, 错误信息: {}", command, e.getMessage());
+    private boolean executeCommand(String phase, File directory, List<String> command, int timeoutSeconds,
+                                   ProcessRunner.LineListener logs) {
+        log.info("在目录 {} 中执行命令: {}", directory.getAbsolutePath(), command);
+        logs.onLine("> " + String.join(" ", command), false);
+        ProcessResult result = processRunner.run(phase, directory, command, Duration.ofSeconds(timeoutSeconds), logs);
+        if (result.success()) {
+            log.info("命令执行成功: {}, 耗时: {}ms, CPU: {}ms", command,
+                    result.wallTime().toMillis(), result.cpuTime().toMillis());
+            return true;
+        }
+        if (result.interrupted()) {
+            // 构建被调度器取消，进程树已终止
+            log.info("命令被中断，已终止进程: {}", command);
             return false;
         }
+        if (result.timedOut()) {
+            log.error("命令执行超时（{}秒），已强制终止进程", timeoutSeconds);
+        } else {
+            log.error("命令执行失败，退出码: {}", result.exitCode());
+        }
+        log.error("命令输出末尾:\n{}", String.join("\n", result.tail()));
+        return false;
     }
-
-
-
 }
@@ -0,0 +1,27 @@
+package com.aih.pagepilot.core.generation;
+
+/**
+ * <p>
+ * 同一应用已有生成在进行时，新生成请求的处理策略
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/18
+ */
+public enum GenerationConflictPolicy {
+
+    /**
+     * 直接拒绝新请求
+     */
+    REJECT,
+
+    /**
+     * 排队，等前一次生成结束后开始
+     */
+    QUEUE,
+
+    /**
+     * 取消前一次生成，再开始新的生成
+     */
+    CANCEL_PREVIOUS
+}
@@ -0,0 +1,42 @@
+package com.aih.pagepilot.core.generation;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * 一次生成中按顺序编号的输出片段，或排队位置等状态事件
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/17
+ */
+@Getter
+@AllArgsConstructor
+public class GenerationEvent {
+
+    /**
+     * 排队位置事件名
+     */
+    public static final String QUEUE_EVENT = "queue";
+
+    /**
+     * 重连位置已移出缓冲区时下发的结束事件名，客户端需重新加载对话历史，不能再续接
+     */
+    public static final String RESET_EVENT = "reset";
+
+    /**
+     * 事件序号，从 1 开始递增，作为 SSE 的 id 下发；排队位置等状态事件为 0，不进入补发缓冲区
+     */
+    private final long seq;
+
+    /**
+     * SSE 事件名，生成输出片段为 null
+     */
+    private final String event;
+
+    /**
+     * 片段内容
+     */
+    private final String data;
+}
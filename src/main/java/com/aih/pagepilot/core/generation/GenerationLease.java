@@ -0,0 +1,182 @@
+package com.aih.pagepilot.core.generation;
+
+import com.aih.pagepilot.config.GenerationConfig;
+import com.aih.pagepilot.exception.BusinessException;
+import com.aih.pagepilot.exception.ErrorCode;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RScript;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.ByteArrayCodec;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * <p>
+ * 应用生成的分布式租约
+ * 基于 Redis 的 SET NX + 过期时间，保证多节点下同一应用同时只有一次生成，生成期间定期续期；
+ * 取消请求通过发布订阅广播，由持有该应用生成的节点执行取消。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/18
+ */
+@Slf4j
+@Component
+public class GenerationLease {
+
+    private static final String LEASE_KEY_PREFIX = "generation:lease:";
+
+    private static final String CANCEL_TOPIC = "generation:cancel";
+
+    private static final String CANCEL_MESSAGE_SEPARATOR = ":";
+
+    /**
+     * 持有者一致时续期：ARGV[1] 按租约编码的生成 ID，ARGV[2] 有效期毫秒数
+     */
+    private static final String RENEW_SCRIPT = """
+            if redis.call('GET', KEYS[1]) ~= ARGV[1] then return 0 end
+            return redis.call('PEXPIRE', KEYS[1], ARGV[2])""";
+
+    /**
+     * 排队时轮询租约的间隔
+     */
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(300);
+
+    @Resource
+    private RedissonClient redissonClient;
+
+    @Resource
+    private GenerationConfig generationConfig;
+
+    /**
+     * 尝试获取租约
+     *
+     * @param appId        应用 ID
+     * @param generationId 生成 ID，作为租约持有者标识
+     * @return 是否获取成功
+     */
+    public boolean tryAcquire(long appId, String generationId) {
+        return getBucket(appId).setIfAbsent(generationId, generationConfig.getLeaseTtl());
+    }
+
+    /**
+     * 等待获取租约，超时以业务异常结束
+     */
+    public Mono<Void> awaitAcquire(long appId, String generationId) {
+        return Mono.fromCallable(() -> tryAcquire(appId, generationId))
+                .subscribeOn(Schedulers.boundedElastic())
+                .filter(Boolean::booleanValue)
+                .repeatWhenEmpty(attempts -> attempts.delayElements(POLL_INTERVAL))
+                .timeout(generationConfig.getQueueTimeout(),
+                        Mono.error(new BusinessException(ErrorCode.OPERATION_ERROR, "等待前一次生成结束超时，请稍后再试")))
+                .then();
+    }
+
+    /**
+     * 生成期间定期续期租约，每 1/3 有效期续期一次
+     *
+     * @return 停止续期的句柄，生成结束时调用
+     */
+    public Disposable keepAlive(long appId, String generationId) {
+        Duration ttl = generationConfig.getLeaseTtl();
+        Duration period = ttl.dividedBy(3);
+        return Flux.interval(period, period)
+                .onBackpressureDrop()
+                .concatMap(tick -> Mono.fromCallable(() -> renew(appId, generationId, ttl))
+                        .subscribeOn(Schedulers.boundedElastic())
+                        .onErrorResume(e -> {
+                            // 单次续期失败不中断，剩余有效期内还会重试
+                            log.warn("续期生成租约失败, appId: {}, generationId: {}, error: {}",
+                                    appId, generationId, e.getMessage());
+                            return Mono.just(true);
+                        }))
+                .takeUntil(renewed -> !renewed)
+                .subscribe(renewed -> {
+                    if (!renewed) {
+                        log.warn("生成租约已失效, appId: {}, generationId: {}", appId, generationId);
+                    }
+                });
+    }
+
+    /**
+     * 续期租约，只有持有者才能续期
+     *
+     * @return 是否仍持有租约
+     */
+    boolean renew(long appId, String generationId, Duration ttl) throws IOException {
+        RBucket<String> bucket = getBucket(appId);
+        // 比较与续期在一个脚本内完成，租约易主后不会误续他人的租约
+        Long result = redissonClient.getScript(ByteArrayCodec.INSTANCE).eval(RScript.Mode.READ_WRITE, RENEW_SCRIPT,
+                RScript.ReturnType.INTEGER, List.<Object>of(bucket.getName()),
+                encode(bucket, generationId), String.valueOf(ttl.toMillis()).getBytes(StandardCharsets.UTF_8));
+        return result != null && result == 1L;
+    }
+
+    /**
+     * 释放租约，只有持有者才能释放
+     */
+    public void release(long appId, String generationId) {
+        try {
+            getBucket(appId).compareAndSet(generationId, null);
+        } catch (Exception e) {
+            // 释放失败时租约到期自动失效
+            log.error("释放生成租约失败, appId: {}, generationId: {}", appId, generationId, e);
+        }
+    }
+
+    /**
+     * 广播取消请求
+     *
+     * @param appId                 应用 ID
+     * @param requesterGenerationId 发起取消的生成 ID，收到广播时不会取消它自己；为空串时取消该应用的任意生成
+     */
+    public void requestCancel(long appId, String requesterGenerationId) {
+        getCancelTopic().publish(appId + CANCEL_MESSAGE_SEPARATOR + requesterGenerationId);
+    }
+
+    /**
+     * 订阅取消请求
+     *
+     * @param listener 参数为应用 ID 与发起取消的生成 ID
+     */
+    public void onCancelRequest(BiConsumer<Long, String> listener) {
+        getCancelTopic().addListener(String.class, (channel, message) -> {
+            int separator = message.indexOf(CANCEL_MESSAGE_SEPARATOR);
+            listener.accept(Long.parseLong(message.substring(0, separator)), message.substring(separator + CANCEL_MESSAGE_SEPARATOR.length()));
+        });
+    }
+
+    /**
+     * 按租约的编码方式编码，脚本内才能与 Redis 中保存的值逐字节比较
+     */
+    private static byte[] encode(RBucket<String> bucket, String value) throws IOException {
+        ByteBuf buf = bucket.getCodec().getValueEncoder().encode(value);
+        try {
+            return ByteBufUtil.getBytes(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private RBucket<String> getBucket(long appId) {
+        return redissonClient.getBucket(LEASE_KEY_PREFIX + appId);
+    }
+
+    private RTopic getCancelTopic() {
+        return redissonClient.getTopic(CANCEL_TOPIC);
+    }
+}
@@ -0,0 +1,22 @@
+package com.aih.pagepilot.core.generation;
+
+/**
+ * <p>
+ * 生成排队优先级，高优先级队列中有请求时先调度
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/19
+ */
+public enum GenerationPriority {
+
+    /**
+     * 管理员、精选应用
+     */
+    HIGH,
+
+    /**
+     * 普通用户
+     */
+    NORMAL
+}
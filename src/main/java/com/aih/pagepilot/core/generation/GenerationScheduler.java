@@ -0,0 +1,297 @@
+package com.aih.pagepilot.core.generation;
+
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.config.GenerationConfig;
+import com.aih.pagepilot.exception.BusinessException;
+import com.aih.pagepilot.exception.ErrorCode;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>
+ * 生成调度器
+ * 位于应用服务与模型调用之间，按模型限制本节点同时进行的生成数，超出的请求排队：
+ * 高优先级队列先调度；同一优先级内按用户轮转，避免单个用户的连续请求占满队列。
+ * 排队位置变化时回调通知，用于向客户端推送排队进度。
+ * </p>
+ * 指标：{@code page_pilot.generation.queue.depth}、{@code page_pilot.generation.running}（按模型），
+ * {@code page_pilot.generation.queue.wait}（按模型与优先级）。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/19
+ */
+@Slf4j
+@Component
+public class GenerationScheduler {
+
+    private static final String OPENAI_MODEL = "openAiStreamingChatModel";
+
+    private static final String REASONING_MODEL = "reasoningStreamingChatModel";
+
+    private final Map<String, ModelLane> lanes = new HashMap<>();
+
+    public GenerationScheduler(GenerationConfig generationConfig, MeterRegistry meterRegistry) {
+        for (String model : List.of(OPENAI_MODEL, REASONING_MODEL)) {
+            int maxConcurrency = generationConfig.getModelConcurrency().getOrDefault(model, 10);
+            ModelLane lane = new ModelLane(model, maxConcurrency, generationConfig.getMaxQueueSize(), meterRegistry);
+            lanes.put(model, lane);
+        }
+    }
+
+    /**
+     * 调度一次生成，拿到模型的并发名额后才订阅生成流，生成结束或取消后归还名额
+     *
+     * @param codeGenType     代码生成类型，决定使用的模型
+     * @param userId          用户 ID，同一优先级内按用户轮转
+     * @param priority        优先级
+     * @param generation      生成流
+     * @param onQueuePosition 排队位置变化回调，参数从 1 开始，开始生成时回调 0
+     * @return 调度后的生成流
+     */
+    public <T> Flux<T> schedule(CodeGenTypeEnum codeGenType, long userId, GenerationPriority priority,
+                                Flux<T> generation, IntConsumer onQueuePosition) {
+        ModelLane lane = lanes.get(modelOf(codeGenType));
+        return Flux.defer(() -> {
+            Ticket ticket = new Ticket(userId, priority, onQueuePosition);
+            return lane.acquire(ticket)
+                    .thenMany(generation)
+                    .doFinally(signal -> lane.release(ticket));
+        });
+    }
+
+    /**
+     * Vue 工程使用推理模型，其余使用默认模型，与 AI 服务工厂的模型选择保持一致
+     */
+    private static String modelOf(CodeGenTypeEnum codeGenType) {
+        return codeGenType == CodeGenTypeEnum.VUE_PROJECT ? REASONING_MODEL : OPENAI_MODEL;
+    }
+
+    /**
+     * 排队中的一次生成
+     */
+    private static final class Ticket {
+
+        private final long userId;
+
+        private final GenerationPriority priority;
+
+        private final IntConsumer onQueuePosition;
+
+        private final long enqueuedAt = System.nanoTime();
+
+        private MonoSink<Void> sink;
+
+        private boolean granted;
+
+        private int notifiedPosition = -1;
+
+        private Ticket(long userId, GenerationPriority priority, IntConsumer onQueuePosition) {
+            this.userId = userId;
+            this.priority = priority;
+            this.onQueuePosition = onQueuePosition;
+        }
+    }
+
+    private record Notice(Ticket ticket, int position) {
+    }
+
+    /**
+     * 单个模型的并发名额与排队队列
+     */
+    private static final class ModelLane {
+
+        private final String model;
+
+        private final int maxConcurrency;
+
+        private final int maxQueueSize;
+
+        /**
+         * 优先级 -> 用户 ID -> 该用户的排队请求，用户按轮转顺序排列
+         */
+        private final Map<GenerationPriority, LinkedHashMap<Long, ArrayDeque<Ticket>>> queues =
+                new EnumMap<>(GenerationPriority.class);
+
+        private final Map<GenerationPriority, Timer> waitTimers = new EnumMap<>(GenerationPriority.class);
+
+        private int running;
+
+        private int queued;
+
+        private ModelLane(String model, int maxConcurrency, int maxQueueSize, MeterRegistry meterRegistry) {
+            this.model = model;
+            this.maxConcurrency = maxConcurrency;
+            this.maxQueueSize = maxQueueSize;
+            for (GenerationPriority priority : GenerationPriority.values()) {
+                queues.put(priority, new LinkedHashMap<>());
+                waitTimers.put(priority, Timer.builder("page_pilot.generation.queue.wait")
+                        .description("生成请求排队等待时间")
+                        .tag("model", model)
+                        .tag("priority", priority.name())
+                        .publishPercentiles(0.5, 0.9, 0.99)
+                        .register(meterRegistry));
+            }
+            Gauge.builder("page_pilot.generation.queue.depth", this, lane -> lane.queued)
+                    .description("排队中的生成请求数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+            Gauge.builder("page_pilot.generation.running", this, lane -> lane.running)
+                    .description("进行中的生成数")
+                    .tag("model", model)
+                    .register(meterRegistry);
+        }
+
+        Mono<Void> acquire(Ticket ticket) {
+            return Mono.create(sink -> {
+                List<Notice> notices;
+                synchronized (this) {
+                    ticket.sink = sink;
+                    if (running < maxConcurrency && queued == 0) {
+                        notices = List.of(grant(ticket));
+                    } else if (queued >= maxQueueSize) {
+                        log.warn("生成排队已满, model: {}, queued: {}", model, queued);
+                        sink.error(new BusinessException(ErrorCode.TOO_MANY_REQUEST, "当前生成人数过多，请稍后再试"));
+                        return;
+                    } else {
+                        queues.get(ticket.priority).computeIfAbsent(ticket.userId, id -> new ArrayDeque<>()).addLast(ticket);
+                        queued++;
+                        notices = reorder();
+                    }
+                }
+                dispatch(notices);
+            });
+        }
+
+        /**
+         * 生成结束、取消或排队中被取消时调用，归还名额或移出队列
+         */
+        void release(Ticket ticket) {
+            List<Notice> notices;
+            synchronized (this) {
+                if (ticket.granted) {
+                    ticket.granted = false;
+                    running--;
+                } else if (!removeQueued(ticket)) {
+                    return;
+                }
+                // 依次放行排在最前的请求
+                List<Notice> started = new ArrayList<>();
+                Ticket next;
+                while (running < maxConcurrency && (next = pollNext()) != null) {
+                    started.add(grant(next));
+                }
+                notices = reorder();
+                notices.addAll(started);
+            }
+            dispatch(notices);
+        }
+
+        private Notice grant(Ticket ticket) {
+            ticket.granted = true;
+            ticket.notifiedPosition = 0;
+            running++;
+            waitTimers.get(ticket.priority).record(Duration.ofNanos(System.nanoTime() - ticket.enqueuedAt));
+            return new Notice(ticket, 0);
+        }
+
+        /**
+         * 按调度顺序取出下一个请求：高优先级优先，同一优先级内取队首用户的最早请求，再把该用户移到末尾
+         */
+        private Ticket pollNext() {
+            for (LinkedHashMap<Long, ArrayDeque<Ticket>> users : queues.values()) {
+                Iterator<Map.Entry<Long, ArrayDeque<Ticket>>> iterator = users.entrySet().iterator();
+                if (!iterator.hasNext()) {
+                    continue;
+                }
+                Map.Entry<Long, ArrayDeque<Ticket>> first = iterator.next();
+                ArrayDeque<Ticket> tickets = first.getValue();
+                Ticket ticket = tickets.pollFirst();
+                iterator.remove();
+                if (!tickets.isEmpty()) {
+                    users.put(first.getKey(), tickets);
+                }
+                queued--;
+                return ticket;
+            }
+            return null;
+        }
+
+        private boolean removeQueued(Ticket ticket) {
+            LinkedHashMap<Long, ArrayDeque<Ticket>> users = queues.get(ticket.priority);
+            ArrayDeque<Ticket> tickets = users.get(ticket.userId);
+            if (tickets == null || !tickets.remove(ticket)) {
+                return false;
+            }
+            if (tickets.isEmpty()) {
+                users.remove(ticket.userId);
+            }
+            queued--;
+            return true;
+        }
+
+        /**
+         * 按调度顺序重新计算排队位置，返回位置有变化的请求
+         */
+        private List<Notice> reorder() {
+            List<Notice> changed = new ArrayList<>();
+            int position = 0;
+            for (LinkedHashMap<Long, ArrayDeque<Ticket>> users : queues.values()) {
+                // 第 round 轮取每个用户的第 round 个请求
+                List<Iterator<Ticket>> cursors = new ArrayList<>();
+                for (ArrayDeque<Ticket> tickets : users.values()) {
+                    cursors.add(tickets.iterator());
+                }
+                boolean remaining = true;
+                while (remaining) {
+                    remaining = false;
+                    for (Iterator<Ticket> cursor : cursors) {
+                        if (!cursor.hasNext()) {
+                            continue;
+                        }
+                        remaining = true;
+                        Ticket ticket = cursor.next();
+                        position++;
+                        if (ticket.notifiedPosition != position) {
+                            ticket.notifiedPosition = position;
+                            changed.add(new Notice(ticket, position));
+                        }
+                    }
+                }
+            }
+            return changed;
+        }
+
+        /**
+         * 在锁外回调排队位置，位置为 0 表示开始生成
+         */
+        private void dispatch(List<Notice> notices) {
+            for (Notice notice : notices) {
+                try {
+                    notice.ticket().onQueuePosition.accept(notice.position());
+                } catch (Exception e) {
+                    log.warn("推送排队位置失败: {}", e.getMessage());
+                }
+                if (notice.position() == 0) {
+                    notice.ticket().sink.success();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.aih.pagepilot.core.generation;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 生成会话
+ * 一次生成只订阅一次上游，与 HTTP 连接解耦：输出片段编号后写入有界环形缓冲区并推送给当前连接，
+ * 连接断开不影响生成，重连时按 Last-Event-ID 补发缺失的部分再继续跟随，缺失部分已移出缓冲区时只下发 reset 事件并结束；开始后一直没有连接、或最后一个连接断开后，超过宽限期仍无人连接，视为放弃并取消生成。
+ * </p>
+ * 缓冲区、连接列表与状态的修改都在会话锁内完成，保证补发与实时推送之间不丢、不重。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/17
+ */
+@Slf4j
+public class GenerationSession {
+
+    public enum Status {
+        RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    @Getter
+    private final String generationId;
+
+    @Getter
+    private final long appId;
+
+    @Getter
+    private final long userId;
+
+    private final int capacity;
+
+    /**
+     * 无人连接时等待重连的时间
+     */
+    private final Duration abandonGrace;
+
+    private final ArrayDeque<GenerationEvent> events;
+
+    private final List<FluxSink<GenerationEvent>> viewers = new ArrayList<>();
+
+    private long lastSeq;
+
+    @Getter
+    private volatile Status status = Status.RUNNING;
+
+    private Throwable error;
+
+    /**
+     * 排队位置，0 表示未排队或已开始生成
+     */
+    private int queuePosition;
+
+    /**
+     * 结束时间，运行中为 0
+     */
+    @Getter
+    private volatile long finishedAt;
+
+    private final Sinks.Empty<Void> terminated = Sinks.empty();
+
+    private volatile Disposable upstream;
+
+    GenerationSession(String generationId, long appId, long userId, int capacity, Duration abandonGrace) {
+        this.generationId = generationId;
+        this.appId = appId;
+        this.userId = userId;
+        this.capacity = capacity;
+        this.abandonGrace = abandonGrace;
+        this.events = new ArrayDeque<>(Math.min(capacity, 256));
+    }
+
+    /**
+     * 订阅上游，开始生成；发起方始终没有连接上时，宽限期后同样取消
+     */
+    void start(Flux<String> source) {
+        upstream = source.subscribe(this::onNext, this::onError, this::onComplete);
+        scheduleAbandonCheck();
+    }
+
+    /**
+     * 取消生成，停止订阅上游，已连接的客户端收到结束事件
+     */
+    public void cancel() {
+        Disposable current;
+        synchronized (this) {
+            if (status != Status.RUNNING) {
+                return;
+            }
+            current = upstream;
+            finish(Status.CANCELLED);
+        }
+        if (current != null) {
+            current.dispose();
+        }
+    }
+
+    /**
+     * 会话结束（完成、失败或取消）时完成
+     */
+    public Mono<Void> awaitTermination() {
+        return terminated.asMono();
+    }
+
+    /**
+     * 连接到会话
+     *
+     * @param lastEventId 客户端已收到的最后一个事件序号，首次连接传 0
+     * @return 序号大于 lastEventId 的事件，先补发缓冲区内容，再跟随实时输出直到生成结束；
+     * 缺失的事件已移出缓冲区时只有一个 {@link GenerationEvent#RESET_EVENT} 事件，避免客户端拼出不完整的内容
+     */
+    public Flux<GenerationEvent> attach(long lastEventId) {
+        return Flux.create(sink -> {
+            synchronized (this) {
+                GenerationEvent oldest = events.peekFirst();
+                if (oldest != null && oldest.getSeq() > lastEventId + 1) {
+                    log.warn("重连位置已超出缓冲区, generationId: {}, lastEventId: {}, 最早可补发: {}",
+                            generationId, lastEventId, oldest.getSeq());
+                    sink.next(new GenerationEvent(0, GenerationEvent.RESET_EVENT,
+                            "{\"oldestEventId\":" + oldest.getSeq() + "}"));
+                    sink.complete();
+                    return;
+                }
+                for (GenerationEvent event : events) {
+                    if (event.getSeq() > lastEventId) {
+                        sink.next(event);
+                    }
+                }
+                if (queuePosition > 0) {
+                    sink.next(queueEvent(queuePosition));
+                }
+                if (status == Status.RUNNING) {
+                    viewers.add(sink);
+                    sink.onDispose(() -> removeViewer(sink));
+                } else {
+                    terminate(sink);
+                }
+            }
+        });
+    }
+
+    /**
+     * 更新排队位置并推送给当前连接
+     *
+     * @param position 排队位置，从 1 开始，0 表示开始生成
+     */
+    public synchronized void updateQueuePosition(int position) {
+        if (status != Status.RUNNING || position == queuePosition) {
+            return;
+        }
+        queuePosition = position;
+        GenerationEvent event = queueEvent(position);
+        for (FluxSink<GenerationEvent> viewer : viewers) {
+            viewer.next(event);
+        }
+    }
+
+    /**
+     * 当前连接数
+     */
+    public synchronized int getViewerCount() {
+        return viewers.size();
+    }
+
+    private synchronized void onNext(String data) {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        queuePosition = 0;
+        GenerationEvent event = new GenerationEvent(++lastSeq, null, data);
+        if (events.size() >= capacity) {
+            events.pollFirst();
+        }
+        events.addLast(event);
+        for (FluxSink<GenerationEvent> viewer : viewers) {
+            viewer.next(event);
+        }
+    }
+
+    private synchronized void onError(Throwable e) {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        error = e;
+        finish(Status.FAILED);
+    }
+
+    private synchronized void onComplete() {
+        if (status != Status.RUNNING) {
+            return;
+        }
+        finish(Status.COMPLETED);
+    }
+
+    private void finish(Status finalStatus) {
+        status = finalStatus;
+        finishedAt = System.currentTimeMillis();
+        List<FluxSink<GenerationEvent>> current = new ArrayList<>(viewers);
+        viewers.clear();
+        for (FluxSink<GenerationEvent> viewer : current) {
+            terminate(viewer);
+        }
+        terminated.tryEmitEmpty();
+    }
+
+    private static GenerationEvent queueEvent(int position) {
+        return new GenerationEvent(0, GenerationEvent.QUEUE_EVENT, "{\"position\":" + position + "}");
+    }
+
+    private void terminate(FluxSink<GenerationEvent> sink) {
+        if (status == Status.FAILED) {
+            sink.error(error);
+        } else {
+            sink.complete();
+        }
+    }
+
+    private synchronized void removeViewer(FluxSink<GenerationEvent> sink) {
+        if (viewers.remove(sink) && viewers.isEmpty() && status == Status.RUNNING) {
+            scheduleAbandonCheck();
+        }
+    }
+
+    private void scheduleAbandonCheck() {
+        Schedulers.parallel().schedule(this::cancelIfAbandoned, abandonGrace.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelIfAbandoned() {
+        synchronized (this) {
+            if (!viewers.isEmpty() || status != Status.RUNNING) {
+                return;
+            }
+        }
+        log.info("生成已无人连接，取消生成, generationId: {}", generationId);
+        cancel();
+    }
+}
@@ -0,0 +1,226 @@
+package com.aih.pagepilot.core.generation;
+
+import cn.hutool.core.util.IdUtil;
+import com.aih.pagepilot.config.GenerationConfig;
+import com.aih.pagepilot.exception.ErrorCode;
+import com.aih.pagepilot.exception.ThrowUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * <p>
+ * 生成会话管理器
+ * 按生成 ID 登记进行中和刚结束的会话，并按应用 ID 索引进行中与排队中的会话；结束超过保留时间的会话由后台任务清理。
+ * </p>
+ * 同一应用同时只允许一次生成：本节点内用分段锁串行化判断与登记，跨节点由 {@link GenerationLease} 保证，
+ * 冲突时按 {@link GenerationConflictPolicy} 拒绝、排队或取消前一次生成。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/17
+ */
+@Slf4j
+@Component
+public class GenerationSessionManager {
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final Object[] locks = new Object[LOCK_STRIPES];
+
+    private final Map<String, GenerationSession> sessions = new ConcurrentHashMap<>();
+
+    /**
+     * 应用 ID -> 进行中（已拿到租约）的会话
+     */
+    private final Map<Long, GenerationSession> runningSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 应用 ID -> 排队等待前一次生成结束的会话，按开始顺序排列，由分段锁保护
+     */
+    private final Map<Long, Deque<GenerationSession>> waitingSessions = new ConcurrentHashMap<>();
+
+    @Resource
+    private GenerationLease generationLease;
+
+    @Resource
+    private GenerationConfig generationConfig;
+
+    public GenerationSessionManager() {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new Object();
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        // 其他节点请求取消时，由持有该应用生成的节点执行
+        generationLease.onCancelRequest(this::cancelLocal);
+    }
+
+    /**
+     * 创建会话并开始生成
+     *
+     * @param appId  应用 ID
+     * @param userId 发起生成的用户 ID
+     * @param sourceFactory 根据会话创建生成输出流，流只会被订阅一次，拿到租约后才订阅
+     * @return 生成会话
+     */
+    public GenerationSession start(long appId, long userId, Function<GenerationSession, Flux<String>> sourceFactory) {
+        GenerationConflictPolicy policy = generationConfig.getConflictPolicy();
+        String generationId = IdUtil.getSnowflakeNextIdStr();
+        synchronized (lockOf(appId)) {
+            GenerationSession running = runningSessions.get(appId);
+            Deque<GenerationSession> waiting = waitingSessions.get(appId);
+            // 排在本节点最后一个会话之后
+            GenerationSession previous = waiting != null ? waiting.peekLast() : running;
+            Mono<Void> ready = null;
+            if (previous != null) {
+                // 本节点已有生成
+                ThrowUtils.throwIf(policy == GenerationConflictPolicy.REJECT, ErrorCode.OPERATION_ERROR,
+                        "该应用正在生成中，请稍后再试");
+                if (policy == GenerationConflictPolicy.CANCEL_PREVIOUS) {
+                    cancelAll(running, waiting);
+                }
+                ready = previous.awaitTermination().then(generationLease.awaitAcquire(appId, generationId));
+            } else if (!generationLease.tryAcquire(appId, generationId)) {
+                // 其他节点持有租约
+                ThrowUtils.throwIf(policy == GenerationConflictPolicy.REJECT, ErrorCode.OPERATION_ERROR,
+                        "该应用正在生成中，请稍后再试");
+                if (policy == GenerationConflictPolicy.CANCEL_PREVIOUS) {
+                    generationLease.requestCancel(appId, generationId);
+                }
+                ready = generationLease.awaitAcquire(appId, generationId);
+            }
+            GenerationSession session = new GenerationSession(generationId, appId, userId,
+                    generationConfig.getEventBufferSize(), generationConfig.getAbandonGrace());
+            Disposable.Swap leaseKeepAlive = Disposables.swap();
+            sessions.put(generationId, session);
+            Mono<Void> promote;
+            if (ready == null) {
+                promoteToRunning(session, leaseKeepAlive);
+                promote = Mono.empty();
+            } else {
+                // 排队中的会话拿到租约后才登记为进行中，不影响正在进行的会话被连接与取消
+                waitingSessions.computeIfAbsent(appId, key -> new ArrayDeque<>()).addLast(session);
+                promote = ready.then(Mono.fromRunnable(() -> promoteToRunning(session, leaseKeepAlive)));
+            }
+            session.start(promote.thenMany(sourceFactory.apply(session)).doFinally(signal -> {
+                leaseKeepAlive.dispose();
+                unregister(session);
+                generationLease.release(appId, generationId);
+            }));
+            log.info("开始生成, appId: {}, generationId: {}, 等待前一次生成: {}", appId, generationId, ready != null);
+            return session;
+        }
+    }
+
+    /**
+     * 获取会话
+     *
+     * @param generationId 生成 ID
+     * @return 会话，不存在或已过期返回 null
+     */
+    public GenerationSession get(String generationId) {
+        return generationId == null ? null : sessions.get(generationId);
+    }
+
+    /**
+     * 获取应用进行中的会话，其他页面可以直接连接，共享同一次模型调用
+     *
+     * @param appId 应用 ID
+     * @return 会话，没有进行中的生成返回 null
+     */
+    public GenerationSession getRunning(long appId) {
+        return runningSessions.get(appId);
+    }
+
+    /**
+     * 取消应用进行中的生成，不在本节点时广播给持有该应用生成的节点
+     *
+     * @param appId 应用 ID
+     */
+    public void cancel(long appId) {
+        GenerationSession session;
+        synchronized (lockOf(appId)) {
+            session = runningSessions.get(appId);
+        }
+        if (session != null) {
+            log.info("取消生成, appId: {}, generationId: {}", appId, session.getGenerationId());
+            session.cancel();
+        } else {
+            generationLease.requestCancel(appId, "");
+        }
+    }
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 60_000)
+    public void sweep() {
+        long expireBefore = System.currentTimeMillis() - generationConfig.getRetain().toMillis();
+        sessions.values().removeIf(session -> session.getStatus() != GenerationSession.Status.RUNNING
+                && session.getFinishedAt() < expireBefore);
+    }
+
+    private void cancelLocal(long appId, String requesterGenerationId) {
+        synchronized (lockOf(appId)) {
+            GenerationSession session = runningSessions.get(appId);
+            // 发起取消的节点也会收到广播，跳过它自己排队中的会话
+            if (session != null && !session.getGenerationId().equals(requesterGenerationId)) {
+                log.info("收到取消请求, appId: {}, generationId: {}", appId, session.getGenerationId());
+                session.cancel();
+            }
+        }
+    }
+
+    /**
+     * 登记为应用进行中的会话，并在生成期间续期租约
+     */
+    private void promoteToRunning(GenerationSession session, Disposable.Swap leaseKeepAlive) {
+        long appId = session.getAppId();
+        synchronized (lockOf(appId)) {
+            removeWaiting(session);
+            runningSessions.put(appId, session);
+        }
+        leaseKeepAlive.update(generationLease.keepAlive(appId, session.getGenerationId()));
+    }
+
+    private void unregister(GenerationSession session) {
+        synchronized (lockOf(session.getAppId())) {
+            runningSessions.remove(session.getAppId(), session);
+            removeWaiting(session);
+        }
+    }
+
+    private void removeWaiting(GenerationSession session) {
+        Deque<GenerationSession> waiting = waitingSessions.get(session.getAppId());
+        if (waiting != null && waiting.remove(session) && waiting.isEmpty()) {
+            waitingSessions.remove(session.getAppId());
+        }
+    }
+
+    private static void cancelAll(GenerationSession running, Deque<GenerationSession> waiting) {
+        // 先取消排队的会话，避免进行中的会话结束时把它们登记为进行中；取消会同步移出排队列表，先复制
+        if (waiting != null) {
+            for (GenerationSession session : waiting.toArray(GenerationSession[]::new)) {
+                session.cancel();
+            }
+        }
+        if (running != null) {
+            running.cancel();
+        }
+    }
+
+    private Object lockOf(long appId) {
+        return locks[(int) (appId & (LOCK_STRIPES - 1))];
+    }
+}
@@ -0,0 +1,220 @@
+package com.aih.pagepilot.core.handler;
+
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>
+ * 流式片段合并器
+ * 模型每次只吐 1~4 个字符，逐条下发会放大序列化和写 socket 的次数。
+ * 把连续的小片段攒成一批：按 UTF-8 编码攒够 maxBytes 字节立即下发，否则最多等待 maxLatency；
+ * 不可合并的元素（如工具调用事件）先冲刷已攒的内容，再原样立即下发，保证顺序不变。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/15
+ */
+public final class ChunkCoalescer {
+
+    /**
+     * 默认最长等待时间
+     */
+    public static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(20);
+
+    /**
+     * 默认攒批字节数上限
+     */
+    public static final int DEFAULT_MAX_BYTES = 512;
+
+    /**
+     * 文本片段：全部可合并，按顺序拼接
+     */
+    public static final Batching<String> STRING_BATCHING = new Batching<>() {
+        @Override
+        public boolean isMergeable(String item) {
+            return true;
+        }
+
+        @Override
+        public int sizeOf(String item) {
+            return utf8Length(item);
+        }
+
+        @Override
+        public String merge(List<String> items) {
+            return items.size() == 1 ? items.get(0) : String.join("", items);
+        }
+    };
+
+    private ChunkCoalescer() {
+    }
+
+    /**
+     * 文本按 UTF-8 编码后的字节数，不实际编码
+     *
+     * @param text 文本
+     * @return 字节数
+     */
+    public static int utf8Length(CharSequence text) {
+        int length = text.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x800) {
+                // 三字节字符；代理对两个 char 共四字节，每个 char 按两字节计
+                bytes += Character.isSurrogate(c) ? 1 : 2;
+            } else if (c >= 0x80) {
+                bytes++;
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * 合并流中的小片段
+     *
+     * @param source     原始流
+     * @param maxLatency 片段最长等待时间，为 0 时不合并
+     * @param maxBytes   攒批字节数上限（见 {@link Batching#sizeOf}），达到即下发，不大于 0 时不合并
+     * @param batching   合并策略
+     * @return 合并后的流
+     */
+    public static <T> Flux<T> coalesce(Flux<T> source, Duration maxLatency, int maxBytes, Batching<T> batching) {
+        if (maxLatency.isZero() || maxLatency.isNegative() || maxBytes <= 0) {
+            return source;
+        }
+        return Flux.create(sink -> {
+            Coalescer<T> coalescer = new Coalescer<>(sink, maxLatency, maxBytes, batching);
+            Disposable upstream = source.subscribe(coalescer::onNext, coalescer::onError, coalescer::onComplete);
+            sink.onDispose(() -> {
+                coalescer.cancel();
+                upstream.dispose();
+            });
+        });
+    }
+
+    /**
+     * 合并策略
+     */
+    public interface Batching<T> {
+
+        /**
+         * 是否可以与相邻元素合并
+         */
+        boolean isMergeable(T item);
+
+        /**
+         * 元素按 UTF-8 编码后的字节数，用于判断是否攒够一批
+         */
+        int sizeOf(T item);
+
+        /**
+         * 把按顺序攒下的元素合并为一个，每次冲刷调用一次，只有一个元素时也会调用
+         */
+        T merge(List<T> items);
+    }
+
+    /**
+     * 单个订阅的合并状态；上游信号与定时冲刷可能来自不同线程，统一加锁保证下发顺序
+     */
+    private static final class Coalescer<T> {
+
+        private final FluxSink<T> sink;
+
+        private final long maxLatencyMillis;
+
+        private final int maxBytes;
+
+        private final Batching<T> batching;
+
+        private final List<T> buffer = new ArrayList<>();
+
+        private int bufferedBytes;
+
+        private Disposable pendingFlush;
+
+        private boolean done;
+
+        private Coalescer(FluxSink<T> sink, Duration maxLatency, int maxBytes, Batching<T> batching) {
+            this.sink = sink;
+            this.maxLatencyMillis = maxLatency.toMillis();
+            this.maxBytes = maxBytes;
+            this.batching = batching;
+        }
+
+        synchronized void onNext(T item) {
+            if (done) {
+                return;
+            }
+            if (!batching.isMergeable(item)) {
+                flush();
+                sink.next(item);
+                return;
+            }
+            buffer.add(item);
+            bufferedBytes += batching.sizeOf(item);
+            if (bufferedBytes >= maxBytes) {
+                flush();
+            } else if (pendingFlush == null) {
+                pendingFlush = Schedulers.parallel().schedule(this::onTimeout, maxLatencyMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        synchronized void onError(Throwable error) {
+            if (done) {
+                return;
+            }
+            // 先把已生成的内容送达，再传递错误
+            flush();
+            done = true;
+            sink.error(error);
+        }
+
+        synchronized void onComplete() {
+            if (done) {
+                return;
+            }
+            flush();
+            done = true;
+            sink.complete();
+        }
+
+        synchronized void cancel() {
+            done = true;
+            cancelPendingFlush();
+            buffer.clear();
+        }
+
+        private synchronized void onTimeout() {
+            pendingFlush = null;
+            if (!done) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            cancelPendingFlush();
+            if (buffer.isEmpty()) {
+                return;
+            }
+            T merged = batching.merge(buffer);
+            buffer.clear();
+            bufferedBytes = 0;
+            sink.next(merged);
+        }
+
+        private void cancelPendingFlush() {
+            if (pendingFlush != null) {
+                pendingFlush.dispose();
+                pendingFlush = null;
+            }
+        }
+    }
+}
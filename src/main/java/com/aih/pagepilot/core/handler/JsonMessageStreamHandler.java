@@ -5,13 +5,12 @@ import cn.hutool.json.JSONObject;
 import cn.hutool.json.JSONUtil;
 import com.aih.pagepilot.ai.model.message.AiResponseMessage;
 import com.aih.pagepilot.ai.model.message.StreamMessage;
-import com.aih.pagepilot.ai.model.message.StreamMessageTypeEnum;
 import com.aih.pagepilot.ai.model.message.ToolExecutedMessage;
 import com.aih.pagepilot.ai.model.message.ToolRequestMessage;
 import com.aih.pagepilot.ai.tools.BaseTool;
 import com.aih.pagepilot.ai.tools.ToolManager;
 import com.aih.pagepilot.constant.AppConstant;
-import com.aih.pagepilot.core.builder.VueProjectBuilder;
+import com.aih.pagepilot.core.builder.VueBuildScheduler;
 import com.aih.pagepilot.model.entity.User;
 import com.aih.pagepilot.model.enums.MessageTypeEnum;
 import com.aih.pagepilot.service.ChatHistoryService;
@@ -32,21 +31,21 @@ import java.util.Set;
 public class JsonMessageStreamHandler {
 
     @Resource
-    private VueProjectBuilder vueProjectBuilder;
+    private VueBuildScheduler vueBuildScheduler;
     @Resource
     private ToolManager toolManager;
 
     /**
      * 处理 TokenStream（VUE_PROJECT）
-     * 解析 JSON 消息并重组为完整的响应格式
+     * 按消息类型重组为完整的响应格式
      *
-     * @param originFlux         原始流
+     * @param originFlux         原始消息流
      * @param chatHistoryService 聊天历史服务
      * @param appId              应用ID
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         // 收集数据用于生成后端记忆格式
@@ -54,17 +53,20 @@ public class JsonMessageStreamHandler {
         // 用于跟踪已经见过的工具ID，判断是否是第一次调用
         Set<String> seenToolIds = new HashSet<>();
         return originFlux
-                // 解析每个 JSON 消息块
-                .map(chunk -> {
-                    return handleJsonMessageChunk(chunk, chatHistoryStringBuilder, seenToolIds);
-                })
+                // 处理每条消息
+                .map(message -> handleStreamMessage(message, chatHistoryStringBuilder, seenToolIds))
                 // 过滤空字串
                 .filter(StrUtil::isNotEmpty)
                 // 流式响应完成后，添加 AI 消息到对话历史
                 .doOnComplete(() -> {
                     String aiResponse = chatHistoryStringBuilder.toString();
                     chatHistoryService.addChatMessage(appId, aiResponse, MessageTypeEnum.AI.getValue(), loginUser.getId());
-                    vueProjectBuilder.buildProjectAsync(AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId);
+                    vueBuildScheduler.submit(AppConstant.CODE_OUTPUT_ROOT_DIR + "/vue_project_" + appId);
+                })
+                // 生成被取消，保留已生成的部分，不触发构建
+                .doOnCancel(() -> {
+                    String aiResponse = chatHistoryStringBuilder + AppConstant.GENERATION_CANCELLED_MARK;
+                    chatHistoryService.addChatMessage(appId, aiResponse, MessageTypeEnum.AI.getValue(), loginUser.getId());
                 })
                 // 如果AI回复失败，也要记录错误消息
                 .doOnError(error -> {
@@ -74,38 +76,30 @@ public class JsonMessageStreamHandler {
     }
 
     /**
-     * 解析并收集 TokenStream 数据
+     * 按类型处理并收集 TokenStream 消息
      */
-    private String handleJsonMessageChunk(String chunk, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
-        // 解析 JSON
-        StreamMessage streamMessage = JSONUtil.toBean(chunk, StreamMessage.class);
-        StreamMessageTypeEnum typeEnum = StreamMessageTypeEnum.getEnumByValue(streamMessage.getType());
-        switch (typeEnum) {
-            case AI_RESPONSE -> {
-                AiResponseMessage aiMessage = JSONUtil.toBean(chunk, AiResponseMessage.class);
+    String handleStreamMessage(StreamMessage streamMessage, StringBuilder chatHistoryStringBuilder, Set<String> seenToolIds) {
+        return switch (streamMessage) {
+            case AiResponseMessage aiMessage -> {
                 String data = aiMessage.getData();
                 // 直接拼接响应
                 chatHistoryStringBuilder.append(data);
-                return data;
+                yield data;
             }
-            case TOOL_REQUEST -> {
-                ToolRequestMessage toolRequestMessage = JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case ToolRequestMessage toolRequestMessage -> {
                 String toolId = toolRequestMessage.getId();
                 String toolName = toolRequestMessage.getName();
                 // 如果第一次调用这个工具，记录 ID 并完整返回工具信息
-                if (toolId != null && !seenToolIds.contains(toolId)) {
-                    seenToolIds.add(toolId);
+                if (toolId != null && seenToolIds.add(toolId)) {
                     // 根据工具名称获取工具实例
                     BaseTool tool = toolManager.getTool(toolName);
                     // 返回格式化的工具调用信息
-                    return tool.generateToolRequestResponse();
-                } else {
-                    // 否则直接返回空
-                    return "";
+                    yield tool.generateToolRequestResponse();
                 }
+                // 否则直接返回空
+                yield "";
             }
-            case TOOL_EXECUTED -> {
-                ToolExecutedMessage toolExecutedMessage = JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+            case ToolExecutedMessage toolExecutedMessage -> {
                 String toolName = toolExecutedMessage.getName();
                 // 解析参数
                 JSONObject jsonObject = JSONUtil.parseObj(toolExecutedMessage.getArguments());
@@ -115,12 +109,8 @@ public class JsonMessageStreamHandler {
                 // 输出前端和要持久化的内容
                 String output = String.format("\n\n%s\n\n", result);
                 chatHistoryStringBuilder.append(output);
-                return output;
-            }
-            default -> {
-                log.error("不支持的消息类型: {}", typeEnum);
-                return "";
+                yield output;
             }
-        }
+        };
     }
 }
@@ -1,5 +1,8 @@
 package com.aih.pagepilot.core.handler;
 
+import com.aih.pagepilot.ai.model.message.AiResponseMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
+import com.aih.pagepilot.constant.AppConstant;
 import com.aih.pagepilot.model.entity.User;
 import com.aih.pagepilot.model.enums.MessageTypeEnum;
 import com.aih.pagepilot.service.ChatHistoryService;
@@ -23,13 +26,14 @@ public class SimpleTextStreamHandler {
      * @param loginUser          登录用户
      * @return 处理后的流
      */
-    public Flux<String> handle(Flux<String> originFlux,
+    public Flux<String> handle(Flux<StreamMessage> originFlux,
                                ChatHistoryService chatHistoryService,
                                long appId, User loginUser) {
         StringBuilder aiResponseBuilder = new StringBuilder();
         return originFlux
-                .map(chunk -> {
-                    // 收集AI响应内容
+                .map(message -> {
+                    // 文本流只有 AI 响应消息，收集AI响应内容
+                    String chunk = message instanceof AiResponseMessage aiMessage ? aiMessage.getData() : "";
                     aiResponseBuilder.append(chunk);
                     return chunk;
                 })
@@ -38,6 +42,11 @@ public class SimpleTextStreamHandler {
                     String aiResponse = aiResponseBuilder.toString();
                     chatHistoryService.addChatMessage(appId, aiResponse, MessageTypeEnum.AI.getValue(), loginUser.getId());
                 })
+                .doOnCancel(() -> {
+                    // 生成被取消，保留已生成的部分
+                    String aiResponse = aiResponseBuilder + AppConstant.GENERATION_CANCELLED_MARK;
+                    chatHistoryService.addChatMessage(appId, aiResponse, MessageTypeEnum.AI.getValue(), loginUser.getId());
+                })
                 .doOnError(error -> {
                     // 如果AI回复失败，也要记录错误消息
                     String errorMessage = "AI回复失败: " + error.getMessage();
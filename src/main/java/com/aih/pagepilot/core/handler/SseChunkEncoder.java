@@ -0,0 +1,133 @@
+package com.aih.pagepilot.core.handler;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+
+/**
+ * <p>
+ * SSE 片段编码器
+ * 直接把片段转义写入复用的缓冲区，生成 {@code {"data":"..."}}，不再为每个片段构造 Map 再走一遍 JSON 序列化；
+ * 同时统计该连接下发的帧数与字节数。
+ * </p>
+ * 每个 SSE 连接一个实例，非线程安全（同一连接的信号按顺序到达）。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/15
+ */
+@Slf4j
+public class SseChunkEncoder {
+
+    private static final String PREFIX = "{\"data\":\"";
+
+    private static final String SUFFIX = "\"}";
+
+    /**
+     * 每帧 SSE 协议开销："data:" 与结尾的空行
+     */
+    private static final int FRAME_OVERHEAD_BYTES = "data:".length() + 2;
+
+    /**
+     * 缓冲区超过该容量后不再复用，避免一次大片段（如工具输出）长期占用内存
+     */
+    private static final int MAX_RETAINED_CAPACITY = 64 * 1024;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private StringBuilder buffer = new StringBuilder(256);
+
+    /**
+     * 已下发的帧数
+     */
+    @Getter
+    private long frameCount;
+
+    /**
+     * 已下发的字节数（UTF-8，含 SSE 协议开销）
+     */
+    @Getter
+    private long byteCount;
+
+    /**
+     * 编码一个片段为 SSE 事件
+     *
+     * @param chunk 片段文本
+     * @return SSE 事件，数据为 {@code {"data":"转义后的片段"}}
+     */
+    public ServerSentEvent<String> encode(String chunk) {
+        return encode(null, chunk);
+    }
+
+    /**
+     * 编码一个带序号的片段为 SSE 事件，序号作为事件 id，浏览器重连时通过 Last-Event-ID 带回
+     *
+     * @param id    事件 id，为 null 时不下发
+     * @param chunk 片段文本
+     * @return SSE 事件
+     */
+    public ServerSentEvent<String> encode(String id, String chunk) {
+        StringBuilder sb = buffer;
+        sb.setLength(0);
+        sb.append(PREFIX);
+        appendEscaped(sb, chunk);
+        sb.append(SUFFIX);
+        String json = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_CAPACITY) {
+            buffer = new StringBuilder(256);
+        }
+        frameCount++;
+        byteCount += ChunkCoalescer.utf8Length(json) + FRAME_OVERHEAD_BYTES;
+        if (id != null) {
+            byteCount += "id:".length() + id.length() + 1;
+        }
+        return ServerSentEvent.<String>builder().id(id).data(json).build();
+    }
+
+    /**
+     * 连接结束时输出统计
+     *
+     * @param appId  应用 ID
+     * @param signal 结束原因
+     */
+    public void logSummary(Long appId, Object signal) {
+        log.info("SSE 连接结束, appId: {}, 原因: {}, 帧数: {}, 字节数: {}",
+                appId, signal, frameCount, byteCount);
+    }
+
+    /**
+     * 按 JSON 字符串规则转义
+     */
+    static void appendEscaped(StringBuilder sb, String text) {
+        int length = text.length();
+        int start = 0;
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            String replacement;
+            switch (c) {
+                case '"' -> replacement = "\\\"";
+                case '\\' -> replacement = "\\\\";
+                case '\n' -> replacement = "\\n";
+                case '\r' -> replacement = "\\r";
+                case '\t' -> replacement = "\\t";
+                case '\b' -> replacement = "\\b";
+                case '\f' -> replacement = "\\f";
+                default -> {
+                    // 其余控制字符及 JS 中的行分隔符使用 unicode 转义
+                    if (c >= 0x20 && c != '\u2028' && c != '\u2029') {
+                        continue;
+                    }
+                    replacement = null;
+                }
+            }
+            sb.append(text, start, i);
+            if (replacement != null) {
+                sb.append(replacement);
+            } else {
+                sb.append("\\u").append(HEX[(c >> 12) & 0xF]).append(HEX[(c >> 8) & 0xF])
+                        .append(HEX[(c >> 4) & 0xF]).append(HEX[c & 0xF]);
+            }
+            start = i + 1;
+        }
+        sb.append(text, start, length);
+    }
+}
@@ -1,6 +1,7 @@
 package com.aih.pagepilot.core.handler;
 
 import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
 import com.aih.pagepilot.model.entity.User;
 import com.aih.pagepilot.service.ChatHistoryService;
 import jakarta.annotation.Resource;
@@ -11,7 +12,7 @@ import reactor.core.publisher.Flux;
 /**
  * 流处理器执行器
  * 根据代码生成类型创建合适的流处理器：
- * 1. 传统的 Flux<String> 流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
+ * 1. 传统的文本流（HTML、MULTI_FILE） -> SimpleTextStreamHandler
  * 2. TokenStream 格式的复杂流（VUE_PROJECT） -> JsonMessageStreamHandler
  */
 @Slf4j
@@ -21,24 +22,29 @@ public class StreamHandlerExecutor {
     @Resource
     private JsonMessageStreamHandler jsonMessageStreamHandler;
 
+    @Resource
+    private StreamMessageBatcher streamMessageBatcher;
+
     /**
      * 创建流处理器并处理聊天历史记录
      *
-     * @param originFlux         原始流
+     * @param originFlux         原始消息流
      * @param chatHistoryService 聊天历史服务
      * @param appId              应用ID
      * @param loginUser          登录用户
      * @param codeGenType        代码生成类型
      * @return 处理后的流
      */
-    public Flux<String> doExecute(Flux<String> originFlux,
+    public Flux<String> doExecute(Flux<StreamMessage> originFlux,
                                   ChatHistoryService chatHistoryService,
                                   long appId, User loginUser, CodeGenTypeEnum codeGenType) {
+        // 先合并模型吐出的细碎片段，工具事件立即通过
+        Flux<StreamMessage> batchedFlux = streamMessageBatcher.batch(originFlux, codeGenType);
         return switch (codeGenType) {
             case VUE_PROJECT -> // 使用注入的组件实例
-                    jsonMessageStreamHandler.handle(originFlux, chatHistoryService, appId, loginUser);
+                    jsonMessageStreamHandler.handle(batchedFlux, chatHistoryService, appId, loginUser);
             case HTML, MULTI_FILE -> // 简单文本处理器不需要依赖注入
-                    new SimpleTextStreamHandler().handle(originFlux, chatHistoryService, appId, loginUser);
+                    new SimpleTextStreamHandler().handle(batchedFlux, chatHistoryService, appId, loginUser);
         };
     }
 }
@@ -0,0 +1,278 @@
+package com.aih.pagepilot.core.history;
+
+import com.aih.pagepilot.config.ChatHistoryConfig;
+import com.aih.pagepilot.mapper.ChatHistoryMapper;
+import com.aih.pagepilot.model.entity.ChatHistory;
+import com.mybatisflex.core.keygen.IKeyGenerator;
+import com.mybatisflex.core.keygen.KeyGeneratorFactory;
+import com.mybatisflex.core.keygen.KeyGenerators;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * <p>
+ * 对话历史异步批量写入
+ * 消息入队后立即返回，由专用线程攒批后一次多行插入：满 {@code batchSize} 条或距批次第一条入队超过 {@code maxDelay} 即写入。
+ * 单线程按入队顺序写入，同一应用的消息顺序不变；创建时间和 ID 在入队时确定，查询按创建时间排序不受写入延迟影响。
+ * 队列满或已关闭时退回调用线程同步写入，不丢消息。
+ * </p>
+ * 指标：{@code page_pilot.chat_history.queue.size}、{@code page_pilot.chat_history.queue.lag}（队首消息已等待的毫秒数）、
+ * {@code page_pilot.chat_history.write.lag}（入队到写入完成）、{@code page_pilot.chat_history.batch.size}、
+ * {@code page_pilot.chat_history.write.failures}。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/22
+ */
+@Slf4j
+@Component
+public class ChatHistoryWriter {
+
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    private static final IKeyGenerator ID_GENERATOR = KeyGeneratorFactory.getKeyGenerator(KeyGenerators.snowFlakeId);
+
+    /**
+     * 有人等待写入完成时入队，让写入线程不再攒批
+     */
+    private static final Object FLUSH = new Object();
+
+    private final Consumer<List<ChatHistory>> inserter;
+
+    private final int batchSize;
+
+    private final long maxDelayNanos;
+
+    private final BlockingQueue<Object> queue;
+
+    private final Thread worker;
+
+    /**
+     * 每个应用最近提交、尚未写完的一条，单线程按序写入，它写完即该应用此前的提交都已写完
+     */
+    private final ConcurrentMap<Long, Pending> lastPending = new ConcurrentHashMap<>();
+
+    private final Timer writeLagTimer;
+
+    private final DistributionSummary batchSizeSummary;
+
+    private final Counter failureCounter;
+
+    private volatile boolean running = true;
+
+    @Autowired
+    public ChatHistoryWriter(ChatHistoryConfig chatHistoryConfig, ChatHistoryMapper chatHistoryMapper,
+                             MeterRegistry meterRegistry) {
+        this(chatHistoryConfig, chatHistoryMapper::insertBatch, meterRegistry);
+    }
+
+    /**
+     * @param inserter 多行插入，测试时替换
+     */
+    ChatHistoryWriter(ChatHistoryConfig chatHistoryConfig, Consumer<List<ChatHistory>> inserter,
+                      MeterRegistry meterRegistry) {
+        this.inserter = inserter;
+        this.batchSize = chatHistoryConfig.getBatchSize();
+        this.maxDelayNanos = chatHistoryConfig.getMaxDelay().toNanos();
+        this.queue = new ArrayBlockingQueue<>(chatHistoryConfig.getQueueCapacity());
+        Gauge.builder("page_pilot.chat_history.queue.size", queue, BlockingQueue::size)
+                .description("等待写入的对话历史数")
+                .register(meterRegistry);
+        Gauge.builder("page_pilot.chat_history.queue.lag", this, ChatHistoryWriter::headLagMillis)
+                .description("队首对话历史已等待的时间")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        this.writeLagTimer = Timer.builder("page_pilot.chat_history.write.lag")
+                .description("对话历史从入队到写入完成的时间")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("page_pilot.chat_history.batch.size")
+                .description("每次批量插入的行数")
+                .baseUnit("rows")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry);
+        this.failureCounter = Counter.builder("page_pilot.chat_history.write.failures")
+                .description("写入失败的对话历史数")
+                .register(meterRegistry);
+        this.worker = Thread.ofPlatform().name("chat-history-writer").daemon().start(this::run);
+    }
+
+    /**
+     * 提交一条对话历史，不等待写入
+     */
+    public void write(ChatHistory chatHistory) {
+        LocalDateTime now = LocalDateTime.now();
+        if (chatHistory.getId() == null) {
+            chatHistory.setId((Long) ID_GENERATOR.generate(chatHistory, "id"));
+        }
+        if (chatHistory.getCreateTime() == null) {
+            chatHistory.setCreateTime(now);
+        }
+        if (chatHistory.getUpdateTime() == null) {
+            chatHistory.setUpdateTime(now);
+        }
+        if (chatHistory.getIsDelete() == null) {
+            chatHistory.setIsDelete(0);
+        }
+        Pending pending = new Pending(chatHistory, System.nanoTime(), new CompletableFuture<>());
+        if (chatHistory.getAppId() != null) {
+            lastPending.put(chatHistory.getAppId(), pending);
+        }
+        if (!running || !queue.offer(pending)) {
+            log.warn("对话历史写入队列已满或已关闭，同步写入, appId: {}", chatHistory.getAppId());
+            insert(List.of(pending));
+        }
+    }
+
+    /**
+     * 等待该应用此前提交的对话历史写入，读取数据库前需要看到刚提交的消息时调用
+     * 只等待该应用自己的消息，该应用没有待写入的消息时立即返回，不受其他应用排队的影响
+     *
+     * @return 超时前写入完成（或写入失败放弃）返回 true
+     */
+    public boolean awaitWritten(Long appId, Duration timeout) {
+        Pending last = lastPending.get(appId);
+        if (last == null) {
+            return true;
+        }
+        // 队列已满时批次本就满额写入，无需提示
+        queue.offer(FLUSH);
+        try {
+            last.written().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (ExecutionException | TimeoutException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 写完队列中剩余的对话历史后停止，之后的提交同步写入
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        try {
+            worker.join(Duration.ofSeconds(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        List<Object> drained = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Object first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+                long deadline = System.nanoTime() + maxDelayNanos;
+                // 有人等待写入完成时不再攒批
+                while (drained.size() < batchSize && drained.getLast() != FLUSH) {
+                    long remaining = deadline - System.nanoTime();
+                    Object next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    drained.add(next);
+                }
+            } catch (InterruptedException e) {
+                // 忽略中断，写完已取出的消息后由 running 决定是否退出
+                Thread.interrupted();
+            }
+            process(drained);
+            drained.clear();
+        }
+    }
+
+    private void process(List<Object> drained) {
+        List<Pending> batch = new ArrayList<>(drained.size());
+        for (Object item : drained) {
+            if (item instanceof Pending pending) {
+                batch.add(pending);
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Pending> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            insertBatch(batch);
+        } finally {
+            // 写入失败的也放行等待者，不让读取方一直等到超时
+            for (Pending pending : batch) {
+                lastPending.remove(pending.chatHistory().getAppId(), pending);
+                pending.written().complete(null);
+            }
+        }
+    }
+
+    private void insertBatch(List<Pending> batch) {
+        try {
+            inserter.accept(batch.stream().map(Pending::chatHistory).toList());
+            recordWritten(batch);
+            return;
+        } catch (Exception e) {
+            log.warn("对话历史批量写入失败，逐条重试, size: {}, error: {}", batch.size(), e.getMessage());
+        }
+        // 逐条写入，隔离有问题的那一条
+        for (Pending pending : batch) {
+            try {
+                inserter.accept(List.of(pending.chatHistory()));
+                recordWritten(List.of(pending));
+            } catch (Exception e) {
+                failureCounter.increment();
+                log.error("对话历史写入失败, appId: {}", pending.chatHistory().getAppId(), e);
+            }
+        }
+    }
+
+    private void recordWritten(List<Pending> written) {
+        long now = System.nanoTime();
+        batchSizeSummary.record(written.size());
+        for (Pending pending : written) {
+            writeLagTimer.record(now - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private double headLagMillis() {
+        Object head = queue.peek();
+        if (head instanceof Pending pending) {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pending.enqueuedAt());
+        }
+        return 0;
+    }
+
+    /**
+     * @param written 写入结束（成功或放弃）后完成
+     */
+    private record Pending(ChatHistory chatHistory, long enqueuedAt, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.aih.pagepilot.core.parser;
+
+/**
+ * <p>
+ * 流式代码块监听器
+ * 由 {@link StreamingCodeParser} 在代码块开始、每收到一行、闭合时回调
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/12
+ */
+@FunctionalInterface
+public interface CodeBlockListener {
+
+    /**
+     * 遇到代码块的起始围栏
+     *
+     * @param language 归一化后的语言标识
+     */
+    default void onBlockStart(String language) {
+    }
+
+    /**
+     * 代码块内收到完整的一行（不含换行符），用于增量落盘
+     *
+     * @param language 归一化后的语言标识
+     * @param line     行内容
+     */
+    default void onBlockLine(String language, CharSequence line) {
+    }
+
+    /**
+     * 一个完整的代码块已解析完成
+     *
+     * @param language 归一化后的语言标识（小写，javascript 归一为 js）
+     * @param code     去除首尾空白后的代码内容
+     */
+    void onCodeBlock(String language, String code);
+
+    /**
+     * 是否还需要解析器保留完整原始内容，返回 false 后解析器释放已缓冲的内容且不再缓冲
+     *
+     * @return 默认一直需要
+     */
+    default boolean needsRawContent() {
+        return true;
+    }
+}
@@ -0,0 +1,32 @@
+package com.aih.pagepilot.core.parser;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * <p>
+ * 一个 Markdown 代码围栏块
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/14
+ */
+@Getter
+@AllArgsConstructor
+public class CodeFence {
+
+    /**
+     * 归一化后的语言标识（小写，javascript 归一为 js），没有标识为空串
+     */
+    private final String language;
+
+    /**
+     * 代码内容，不含围栏行
+     */
+    private final String code;
+
+    /**
+     * 是否有闭合围栏，响应被截断时最后一个代码块可能未闭合
+     */
+    private final boolean closed;
+}
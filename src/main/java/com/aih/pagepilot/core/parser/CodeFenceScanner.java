@@ -0,0 +1,138 @@
+package com.aih.pagepilot.core.parser;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>
+ * Markdown 代码围栏扫描器
+ * 单次线性扫描取出全部代码块及其语言标识，替代按语言分别跑一遍惰性正则的做法，
+ * 由 {@link HtmlCodeParser}、{@link MultiFileCodeParser} 共用，围栏识别规则与 {@link StreamingCodeParser} 一致：
+ * 行首（允许缩进）三个反引号开启或闭合代码块。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/14
+ */
+public final class CodeFenceScanner {
+
+    static final String FENCE = "```";
+
+    private CodeFenceScanner() {
+    }
+
+    /**
+     * 扫描全部代码块
+     *
+     * @param content 原始内容
+     * @return 按出现顺序排列的代码块，末尾未闭合的代码块也会返回
+     */
+    public static List<CodeFence> scan(String content) {
+        List<CodeFence> fences = new ArrayList<>();
+        if (content == null || content.isEmpty()) {
+            return fences;
+        }
+        int length = content.length();
+        int lineStart = 0;
+        // 为 null 表示处于代码块外
+        String language = null;
+        int codeStart = 0;
+        while (lineStart < length) {
+            int lineEnd = content.indexOf('\n', lineStart);
+            if (lineEnd < 0) {
+                lineEnd = length;
+            }
+            int fenceStart = fenceStart(content, lineStart, lineEnd);
+            if (fenceStart >= 0) {
+                if (language == null) {
+                    language = StreamingCodeParser.normalizeLanguage(content.substring(fenceStart + FENCE.length(), lineEnd));
+                    codeStart = lineEnd + 1;
+                } else {
+                    fences.add(new CodeFence(language, slice(content, codeStart, lineStart), true));
+                    language = null;
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (language != null) {
+            fences.add(new CodeFence(language, slice(content, codeStart, length), false));
+        }
+        return fences;
+    }
+
+    /**
+     * 按策略取出指定语言的代码，空白代码块会被跳过
+     *
+     * @param fences   {@link #scan} 的结果
+     * @param language 归一化后的语言标识
+     * @param policy   同一语言多个代码块时的取舍策略
+     * @return 代码内容，没有该语言的代码块时返回 null
+     */
+    public static String select(List<CodeFence> fences, String language, DuplicateBlockPolicy policy) {
+        String selected = null;
+        StringBuilder joined = null;
+        for (CodeFence fence : fences) {
+            String code = fence.getCode();
+            if (!language.equals(fence.getLanguage()) || StrUtil.isBlank(code)) {
+                continue;
+            }
+            switch (policy) {
+                case FIRST -> {
+                    return code;
+                }
+                case LARGEST -> {
+                    if (selected == null || code.length() > selected.length()) {
+                        selected = code;
+                    }
+                }
+                case CONCATENATE -> {
+                    if (joined == null) {
+                        joined = new StringBuilder(code);
+                    } else {
+                        joined.append("\n\n").append(code);
+                    }
+                }
+            }
+        }
+        return joined != null ? joined.toString() : selected;
+    }
+
+    /**
+     * [from, to) 这一行的行首（允许缩进）是否为代码围栏
+     *
+     * @return 围栏起始下标，不是围栏返回 -1
+     */
+    static int fenceStart(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to && (text.charAt(i) == ' ' || text.charAt(i) == '\t')) {
+            i++;
+        }
+        if (to - i < FENCE.length()) {
+            return -1;
+        }
+        for (int j = 0; j < FENCE.length(); j++) {
+            if (text.charAt(i + j) != '`') {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    /**
+     * 截取代码内容并去掉末尾的换行符
+     */
+    private static String slice(String content, int start, int end) {
+        if (start >= end) {
+            return "";
+        }
+        if (content.charAt(end - 1) == '\n') {
+            end--;
+        }
+        if (end > start && content.charAt(end - 1) == '\r') {
+            end--;
+        }
+        return content.substring(start, end);
+    }
+}
@@ -5,6 +5,9 @@ import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
 import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
 
+import java.util.EnumMap;
+import java.util.Map;
+
 /**
  * <p>
  * 代码解析执行器
@@ -16,23 +19,43 @@ import com.aih.pagepilot.exception.ErrorCode;
  */
 public class CodeParserExecutor {
 
-    private static final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+    private static final Map<DuplicateBlockPolicy, HtmlCodeParser> htmlCodeParsers = new EnumMap<>(DuplicateBlockPolicy.class);
+
+    private static final Map<DuplicateBlockPolicy, MultiFileCodeParser> multiFileCodeParsers = new EnumMap<>(DuplicateBlockPolicy.class);
 
-    private static final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+    static {
+        for (DuplicateBlockPolicy policy : DuplicateBlockPolicy.values()) {
+            htmlCodeParsers.put(policy, new HtmlCodeParser(policy));
+            multiFileCodeParsers.put(policy, new MultiFileCodeParser(policy));
+        }
+    }
 
     /**
-     * 执行代码解析
+     * 执行代码解析，同一语言只取第一个代码块
      *
      * @param codeContent     代码内容
      * @param codeGenTypeEnum 代码生成类型
      * @return 解析结果（HtmlCodeResult 或 MultiFileCodeResult）
      */
     public static Object executeParser(String codeContent, CodeGenTypeEnum codeGenTypeEnum) {
+        return executeParser(codeContent, codeGenTypeEnum, DuplicateBlockPolicy.FIRST);
+    }
+
+    /**
+     * 执行代码解析
+     *
+     * @param codeContent          代码内容
+     * @param codeGenTypeEnum      代码生成类型
+     * @param duplicateBlockPolicy 同一语言出现多个代码块时的取舍策略
+     * @return 解析结果（HtmlCodeResult 或 MultiFileCodeResult）
+     */
+    public static Object executeParser(String codeContent, CodeGenTypeEnum codeGenTypeEnum,
+                                       DuplicateBlockPolicy duplicateBlockPolicy) {
         switch (codeGenTypeEnum) {
             case HTML:
-                return htmlCodeParser.parseCode(codeContent);
+                return htmlCodeParsers.get(duplicateBlockPolicy).parseCode(codeContent);
             case MULTI_FILE:
-                return multiFileCodeParser.parseCode(codeContent);
+                return multiFileCodeParsers.get(duplicateBlockPolicy).parseCode(codeContent);
             default:
                 throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         }
@@ -0,0 +1,27 @@
+package com.aih.pagepilot.core.parser;
+
+/**
+ * <p>
+ * 同一语言出现多个代码块时的取舍策略
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/14
+ */
+public enum DuplicateBlockPolicy {
+
+    /**
+     * 只取第一个代码块（与原正则解析一致）
+     */
+    FIRST,
+
+    /**
+     * 按出现顺序拼接所有代码块
+     */
+    CONCATENATE,
+
+    /**
+     * 取内容最长的代码块
+     */
+    LARGEST
+}
@@ -4,9 +4,6 @@ import com.aih.pagepilot.ai.model.HtmlCodeResult;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 /**
  * <p>
  * HTML 单文件代码解析器
@@ -17,9 +14,18 @@ import java.util.regex.Pattern;
  */
 public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```", Pattern.CASE_INSENSITIVE);
     private final ObjectMapper objectMapper = new ObjectMapper();
 
+    private final DuplicateBlockPolicy duplicateBlockPolicy;
+
+    public HtmlCodeParser() {
+        this(DuplicateBlockPolicy.FIRST);
+    }
+
+    public HtmlCodeParser(DuplicateBlockPolicy duplicateBlockPolicy) {
+        this.duplicateBlockPolicy = duplicateBlockPolicy;
+    }
+
     @Override
     public HtmlCodeResult parseCode(String codeContent) {
         HtmlCodeResult result = new HtmlCodeResult();
@@ -85,10 +91,6 @@ public class HtmlCodeParser implements CodeParser<HtmlCodeResult> {
      * @return HTML代码
      */
     private String extractHtmlCode(String content) {
-        Matcher matcher = HTML_CODE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
+        return CodeFenceScanner.select(CodeFenceScanner.scan(content), "html", duplicateBlockPolicy);
     }
 }
\ No newline at end of file
@@ -2,8 +2,7 @@ package com.aih.pagepilot.core.parser;
 
 import com.aih.pagepilot.ai.model.MultiFileCodeResult;
 
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.List;
 
 /**
  * <p>
@@ -15,20 +14,24 @@ import java.util.regex.Pattern;
  */
 public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
 
-    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```",
-            Pattern.CASE_INSENSITIVE);
-    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```",
-            Pattern.CASE_INSENSITIVE);
+    private final DuplicateBlockPolicy duplicateBlockPolicy;
+
+    public MultiFileCodeParser() {
+        this(DuplicateBlockPolicy.FIRST);
+    }
+
+    public MultiFileCodeParser(DuplicateBlockPolicy duplicateBlockPolicy) {
+        this.duplicateBlockPolicy = duplicateBlockPolicy;
+    }
 
     @Override
     public MultiFileCodeResult parseCode(String codeContent) {
         MultiFileCodeResult result = new MultiFileCodeResult();
-        // 提取各类代码
-        String htmlCode = extractCodeByPattern(codeContent, HTML_CODE_PATTERN);
-        String cssCode = extractCodeByPattern(codeContent, CSS_CODE_PATTERN);
-        String jsCode = extractCodeByPattern(codeContent, JS_CODE_PATTERN);
+        // 一次扫描取出全部代码块，再按语言提取各类代码
+        List<CodeFence> fences = CodeFenceScanner.scan(codeContent);
+        String htmlCode = CodeFenceScanner.select(fences, "html", duplicateBlockPolicy);
+        String cssCode = CodeFenceScanner.select(fences, "css", duplicateBlockPolicy);
+        String jsCode = CodeFenceScanner.select(fences, "js", duplicateBlockPolicy);
         // 设置HTML代码
         if (htmlCode != null && !htmlCode.trim().isEmpty()) {
             result.setHtmlCode(htmlCode.trim());
@@ -43,19 +46,4 @@ public class MultiFileCodeParser implements CodeParser<MultiFileCodeResult> {
         }
         return result;
     }
-
-    /**
-     * 根据正则模式提取代码
-     *
-     * @param content 原始内容
-     * @param pattern 正则模式
-     * @return 提取的代码
-     */
-    private String extractCodeByPattern(String content, Pattern pattern) {
-        Matcher matcher = pattern.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return null;
-    }
-}
\ No newline at end of file
+}
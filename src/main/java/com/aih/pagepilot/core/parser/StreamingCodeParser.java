@@ -0,0 +1,165 @@
+package com.aih.pagepilot.core.parser;
+
+import java.util.Locale;
+
+/**
+ * <p>
+ * 流式代码解析器（HTML、MULTI_FILE）
+ * 按片段喂入 AI 输出，逐行识别 Markdown 代码围栏，代码块一闭合就回调监听器，
+ * 不再需要等整段响应结束后再做全文正则匹配。
+ * </p>
+ * 非线程安全，一次生成对应一个实例。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/12
+ */
+public class StreamingCodeParser {
+
+    private final CodeBlockListener listener;
+
+    /**
+     * 还没遇到换行符的残留片段
+     */
+    private final StringBuilder pendingLine = new StringBuilder();
+
+    /**
+     * 完整的原始内容，流式保存没有写出任何文件时用于兜底解析（如 JSON 格式输出、无语言标识的代码块）；
+     * 监听器不再需要时置为 null，避免在内存中多留一份完整响应
+     */
+    private StringBuilder content = new StringBuilder();
+
+    /**
+     * 当前正在收集的代码块，为 null 表示处于代码块外
+     */
+    private StringBuilder currentBlock;
+
+    private String currentLanguage;
+
+    private int blockCount;
+
+    private boolean finished;
+
+    public StreamingCodeParser(CodeBlockListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 喂入一段流式片段
+     *
+     * @param chunk 片段内容
+     */
+    public void feed(String chunk) {
+        if (finished) {
+            throw new IllegalStateException("parser already finished");
+        }
+        if (chunk == null || chunk.isEmpty()) {
+            return;
+        }
+        if (content != null) {
+            content.append(chunk);
+        }
+        int start = 0;
+        int newline;
+        while ((newline = chunk.indexOf('\n', start)) >= 0) {
+            pendingLine.append(chunk, start, newline);
+            processLine(pendingLine);
+            pendingLine.setLength(0);
+            start = newline + 1;
+        }
+        pendingLine.append(chunk, start, chunk.length());
+        if (content != null && !listener.needsRawContent()) {
+            content = null;
+        }
+    }
+
+    /**
+     * 流结束：处理最后一行，未闭合的代码块按已收到的内容输出
+     */
+    public void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (!pendingLine.isEmpty()) {
+            processLine(pendingLine);
+            pendingLine.setLength(0);
+        }
+        if (currentBlock != null) {
+            closeBlock();
+        }
+    }
+
+    /**
+     * 是否解析出过代码块
+     */
+    public boolean hasCodeBlock() {
+        return blockCount > 0;
+    }
+
+    /**
+     * 已喂入的完整原始内容
+     *
+     * @return 原始内容，监听器已声明不再需要时返回 null
+     */
+    public String getContent() {
+        return content == null ? null : content.toString();
+    }
+
+    private void processLine(CharSequence rawLine) {
+        int length = rawLine.length();
+        if (length > 0 && rawLine.charAt(length - 1) == '\r') {
+            length--;
+        }
+        CharSequence line = rawLine.subSequence(0, length);
+        int fenceStart = CodeFenceScanner.fenceStart(line, 0, line.length());
+        if (currentBlock == null) {
+            if (fenceStart >= 0) {
+                openBlock(line.subSequence(fenceStart + CodeFenceScanner.FENCE.length(), line.length()).toString());
+            }
+            return;
+        }
+        if (fenceStart >= 0) {
+            closeBlock();
+            return;
+        }
+        if (!currentBlock.isEmpty()) {
+            currentBlock.append('\n');
+        }
+        currentBlock.append(line);
+        listener.onBlockLine(currentLanguage, line);
+    }
+
+    private void openBlock(String infoString) {
+        currentLanguage = normalizeLanguage(infoString);
+        currentBlock = new StringBuilder();
+        listener.onBlockStart(currentLanguage);
+    }
+
+    private void closeBlock() {
+        String code = currentBlock.toString().trim();
+        String language = currentLanguage;
+        currentBlock = null;
+        currentLanguage = null;
+        blockCount++;
+        listener.onCodeBlock(language, code);
+    }
+
+    /**
+     * 取围栏后的第一个词作为语言标识并归一化
+     *
+     * @param infoString 围栏后的内容，如 "html"、"JavaScript title=app"
+     * @return 小写语言标识，javascript 归一为 js，没有标识返回空串
+     */
+    public static String normalizeLanguage(String infoString) {
+        if (infoString == null) {
+            return "";
+        }
+        String trimmed = infoString.trim();
+        int space = 0;
+        while (space < trimmed.length() && !Character.isWhitespace(trimmed.charAt(space))) {
+            space++;
+        }
+        String language = trimmed.substring(0, space).toLowerCase(Locale.ROOT);
+        return "javascript".equals(language) ? "js" : language;
+    }
+}
@@ -8,6 +8,8 @@ import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
 
 
 /**
@@ -39,12 +41,58 @@ public class CodeFileSaverExecutor {
             default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
         };
     }
-}
-
-
-
 
+    /**
+     * 开始一次新版本的写入（流式保存使用）
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @return 版本暂存目录
+     */
+    public static Path executeBeginVersion(CodeGenTypeEnum codeGenType, Long appId) {
+        return getSaver(codeGenType).beginVersion(appId);
+    }
 
+    /**
+     * 发布暂存版本（流式保存使用）
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @param versionDir  版本暂存目录
+     * @return 版本号
+     */
+    public static String executePublishVersion(CodeGenTypeEnum codeGenType, Long appId, Path versionDir) {
+        return getSaver(codeGenType).publishVersion(appId, versionDir);
+    }
 
+    /**
+     * 丢弃暂存版本（流式保存使用）
+     *
+     * @param codeGenType 代码生成类型
+     * @param appId       应用 ID
+     * @param versionDir  版本暂存目录
+     */
+    public static void executeDiscardVersion(CodeGenTypeEnum codeGenType, Long appId, Path versionDir) {
+        getSaver(codeGenType).discardVersion(appId, versionDir);
+    }
 
+    /**
+     * 为代码块打开增量写入器（流式预览使用）
+     *
+     * @param language    归一化后的语言标识
+     * @param codeGenType 代码生成类型
+     * @param versionDir  版本暂存目录
+     * @return 增量写入器，无需保存时返回 null
+     */
+    public static IncrementalFileWriter executeIncrementalWriter(String language, CodeGenTypeEnum codeGenType, Path versionDir) throws IOException {
+        return getSaver(codeGenType).openIncrementalWriter(language, versionDir);
+    }
 
+    private static CodeFileSaverTemplate<?> getSaver(CodeGenTypeEnum codeGenType) {
+        return switch (codeGenType) {
+            case HTML -> htmlCodeFileSaver;
+            case MULTI_FILE -> multiFileCodeFileSaver;
+            default -> throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型: " + codeGenType);
+        };
+    }
+}
@@ -2,7 +2,6 @@ package com.aih.pagepilot.core.saver;
 
 
 import cn.hutool.core.io.FileUtil;
-import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.StrUtil;
 import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
 import com.aih.pagepilot.constant.AppConstant;
@@ -11,7 +10,9 @@ import com.aih.pagepilot.exception.ErrorCode;
 import com.aih.pagepilot.exception.ThrowUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 
  /**
  * <p>
@@ -38,12 +39,64 @@ public abstract class CodeFileSaverTemplate<T> {
     public final File saveCode(T result, Long appId) {
         // 1. 验证输入
         validateInput(result);
-        // 2. 构建唯一目录
-        String baseDirPath = buildUniqueDir(appId);
-        // 3. 保存文件（具体实现交给子类）
-        saveFiles(result, baseDirPath);
-        // 4. 返回文件目录对象
-        return new File(baseDirPath);
+        // 2. 创建新的版本目录
+        Path versionDir = beginVersion(appId);
+        // 3. 保存文件（具体实现交给子类），失败时丢弃该版本，保留上一次的结果
+        try {
+            saveFiles(result, versionDir.toString());
+        } catch (RuntimeException e) {
+            discardVersion(appId, versionDir);
+            throw e;
+        }
+        // 4. 原子切换到新版本，返回文件目录对象
+        publishVersion(appId, versionDir);
+        return new File(buildUniqueDir(appId));
+    }
+
+    /**
+     * 开始一次新版本的写入，返回的暂存目录在发布前仅供预览
+     *
+     * @param appId 应用 ID
+     * @return 版本暂存目录
+     */
+    public final Path beginVersion(Long appId) {
+        return CodeVersionManager.beginVersion(buildDirName(appId));
+    }
+
+    /**
+     * 发布暂存版本，对外可见的目录原子切换到该版本
+     *
+     * @param appId      应用 ID
+     * @param versionDir {@link #beginVersion} 返回的暂存目录
+     * @return 版本号
+     */
+    public final String publishVersion(Long appId, Path versionDir) {
+        return CodeVersionManager.publish(buildDirName(appId), versionDir);
+    }
+
+    /**
+     * 丢弃暂存版本
+     *
+     * @param appId      应用 ID
+     * @param versionDir {@link #beginVersion} 返回的暂存目录
+     */
+    public final void discardVersion(Long appId, Path versionDir) {
+        CodeVersionManager.discard(buildDirName(appId), versionDir);
+    }
+
+    /**
+     * 为流式生成中的代码块打开增量写入器，边生成边写入 {@code .partial} 预览文件
+     *
+     * @param language   归一化后的语言标识
+     * @param versionDir 版本暂存目录
+     * @return 增量写入器，语言不属于当前生成类型时返回 null
+     */
+    public final IncrementalFileWriter openIncrementalWriter(String language, Path versionDir) throws IOException {
+        String fileName = resolveFileName(language);
+        if (fileName == null) {
+            return null;
+        }
+        return new IncrementalFileWriter(versionDir.resolve(fileName));
     }
 
     /**
@@ -72,17 +125,22 @@ public abstract class CodeFileSaverTemplate<T> {
     }
 
     /**
-     * 构建文件的唯一路径：tmp/code_output/bizType_雪花 ID
+     * 构建文件的唯一路径：tmp/code_output/bizType_appId，指向当前版本
      *
      * @return 目录路径
      */
     protected String buildUniqueDir(Long appId) {
+        return FILE_SAVE_ROOT_DIR + File.separator + buildDirName(appId);
+    }
+
+    /**
+     * 构建目录名：bizType_appId
+     *
+     * @return 目录名
+     */
+    protected String buildDirName(Long appId) {
         ThrowUtils.throwIf(appId == null, ErrorCode.PARAMS_ERROR, "应用ID不能为空");
-        String codeType = getCodeType().getValue();
-        String uniqueDirName = StrUtil.format("{}_{}", codeType, appId);
-        String dirPath = FILE_SAVE_ROOT_DIR + File.separator + uniqueDirName;
-        FileUtil.mkdir(dirPath);
-        return dirPath;
+        return StrUtil.format("{}_{}", getCodeType().getValue(), appId);
     }
 
     /**
@@ -93,6 +151,14 @@ public abstract class CodeFileSaverTemplate<T> {
      */
     protected abstract void saveFiles(T result, String baseDirPath);
 
+    /**
+     * 根据代码块语言确定保存的文件名（具体实现交给子类）
+     *
+     * @param language 归一化后的语言标识
+     * @return 文件名，不需要保存的语言返回 null
+     */
+    protected abstract String resolveFileName(String language);
+
     /**
      * 获取代码生成类型
      *
@@ -0,0 +1,412 @@
+package com.aih.pagepilot.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.exception.BusinessException;
+import com.aih.pagepilot.exception.ErrorCode;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * <p>
+ * 生成代码的版本管理（HTML、MULTI_FILE）
+ * 每次生成写入新的版本目录 {@code .versions/bizType_appId/版本号}，写完后把
+ * {@code bizType_appId} 这个符号链接原子切换到新版本：读请求永远看到完整的某个版本，
+ * 生成失败不会破坏上一次的结果，回滚只是一次指针切换。
+ * </p>
+ * 文件系统不支持符号链接时（如 Windows 未开启权限）退化为目录重命名替换。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/13
+ */
+@Slf4j
+public final class CodeVersionManager {
+
+    /**
+     * 版本目录所在的子目录名，以点开头，不会被预览接口的 deployKey 匹配到
+     */
+    public static final String VERSIONS_DIR_NAME = ".versions";
+
+    /**
+     * 生成中的暂存版本目录后缀，发布时去掉
+     */
+    private static final String STAGING_SUFFIX = ".staging";
+
+    /**
+     * 无人认领的暂存目录（进程崩溃遗留）超过该时长后清理
+     */
+    private static final long STAGING_EXPIRE_MILLIS = TimeUnit.HOURS.toMillis(1);
+
+    private static final Pattern VERSION_ID = Pattern.compile("^\\d{1,19}$");
+
+    private static final Path OUTPUT_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR).toAbsolutePath().normalize();
+
+    private static final Path VERSIONS_ROOT = OUTPUT_ROOT.resolve(VERSIONS_DIR_NAME);
+
+    /**
+     * 正在生成的暂存版本：目录名 -> 暂存目录（按开始顺序），预览接口优先读取最后开始的一个。
+     * 列表不可变，只在目录名锁内整体替换，预览读取不需要加锁
+     */
+    private static final Map<String, List<Path>> STAGING = new ConcurrentHashMap<>();
+
+    /**
+     * 目录名级别的锁，串行化同一应用的发布、回滚与清理
+     */
+    private static final Map<String, Object> LOCKS = new ConcurrentHashMap<>();
+
+    private static volatile Boolean symlinkSupported;
+
+    private CodeVersionManager() {
+    }
+
+    /**
+     * 开始一个新版本：创建暂存目录并复制当前版本的文件作为基础
+     *
+     * @param dirName 目录名，如 html_123
+     * @return 暂存目录
+     */
+    public static Path beginVersion(String dirName) {
+        Path live = OUTPUT_ROOT.resolve(dirName);
+        Path staging;
+        synchronized (lockOf(dirName)) {
+            migrateLegacyDirectory(dirName, live);
+            staging = VERSIONS_ROOT.resolve(dirName).resolve(IdUtil.getSnowflakeNextIdStr() + STAGING_SUFFIX);
+            try {
+                Files.createDirectories(staging);
+                if (Files.isDirectory(live)) {
+                    copyDirectory(live.toRealPath(), staging);
+                }
+            } catch (IOException e) {
+                FileUtil.del(staging.toFile());
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "创建代码版本失败：" + e.getMessage());
+            }
+            addStaging(dirName, staging);
+        }
+        return staging;
+    }
+
+    /**
+     * 发布暂存版本：去掉暂存后缀并把当前版本指针切换过去
+     *
+     * @param dirName 目录名
+     * @param staging {@link #beginVersion} 返回的暂存目录
+     * @return 发布后的版本号
+     */
+    public static String publish(String dirName, Path staging) {
+        synchronized (lockOf(dirName)) {
+            try {
+                String fileName = staging.getFileName().toString();
+                String versionId = fileName.substring(0, fileName.length() - STAGING_SUFFIX.length());
+                Path version = staging.resolveSibling(versionId);
+                moveAtomically(staging, version);
+                pointLiveTo(dirName, version);
+                log.info("代码版本已发布：{} -> {}", dirName, versionId);
+                return versionId;
+            } catch (IOException e) {
+                FileUtil.del(staging.toFile());
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "发布代码版本失败：" + e.getMessage());
+            } finally {
+                removeStaging(dirName, staging);
+            }
+        }
+    }
+
+    /**
+     * 丢弃暂存版本，当前版本保持不变
+     */
+    public static void discard(String dirName, Path staging) {
+        synchronized (lockOf(dirName)) {
+            removeStaging(dirName, staging);
+            FileUtil.del(staging.toFile());
+        }
+    }
+
+    /**
+     * 删除应用的全部代码版本与当前版本指针，应用删除时调用
+     */
+    public static void deleteVersions(String dirName) {
+        synchronized (lockOf(dirName)) {
+            STAGING.remove(dirName);
+            Path live = OUTPUT_ROOT.resolve(dirName);
+            try {
+                // 目录替换模式下 live 是真实目录，不属于版本目录，保持原样
+                if (Files.isSymbolicLink(live)) {
+                    Files.delete(live);
+                }
+            } catch (IOException e) {
+                log.warn("删除代码版本指针失败：{}", live, e);
+            }
+            FileUtil.del(VERSIONS_ROOT.resolve(dirName).toFile());
+        }
+        log.info("代码版本已删除：{}", dirName);
+    }
+
+    /**
+     * 获取正在生成中的暂存目录
+     *
+     * @return 暂存目录，没有进行中的生成时返回 null
+     */
+    public static Path getStagingDir(String dirName) {
+        List<Path> stagings = STAGING.get(dirName);
+        return stagings == null ? null : stagings.getLast();
+    }
+
+    /**
+     * 当前版本号
+     *
+     * @return 版本号，尚未生成或退化为目录替换模式时返回 null
+     */
+    public static String getCurrentVersion(String dirName) {
+        Path live = OUTPUT_ROOT.resolve(dirName);
+        if (!Files.isSymbolicLink(live)) {
+            return null;
+        }
+        try {
+            return Files.readSymbolicLink(live).getFileName().toString();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 已发布的版本号，按从新到旧排序
+     */
+    public static List<String> listVersions(String dirName) {
+        Path versionsDir = VERSIONS_ROOT.resolve(dirName);
+        if (!Files.isDirectory(versionsDir)) {
+            return new ArrayList<>();
+        }
+        try (Stream<Path> children = Files.list(versionsDir)) {
+            return children.filter(Files::isDirectory)
+                    .map(path -> path.getFileName().toString())
+                    .filter(name -> VERSION_ID.matcher(name).matches())
+                    .sorted(Comparator.<String>comparingLong(Long::parseLong).reversed())
+                    .toList();
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "读取代码版本失败：" + e.getMessage());
+        }
+    }
+
+    /**
+     * 回滚到指定版本，只切换指针，不重新生成
+     */
+    public static void rollback(String dirName, String versionId) {
+        if (versionId == null || !VERSION_ID.matcher(versionId).matches()) {
+            throw new BusinessException(ErrorCode.PARAMS_ERROR, "版本号不合法");
+        }
+        synchronized (lockOf(dirName)) {
+            Path version = VERSIONS_ROOT.resolve(dirName).resolve(versionId);
+            if (!Files.isDirectory(version)) {
+                throw new BusinessException(ErrorCode.NOT_FOUND_ERROR, "代码版本不存在");
+            }
+            try {
+                pointLiveTo(dirName, version);
+            } catch (IOException e) {
+                throw new BusinessException(ErrorCode.SYSTEM_ERROR, "回滚代码版本失败：" + e.getMessage());
+            }
+        }
+        log.info("代码版本已回滚：{} -> {}", dirName, versionId);
+    }
+
+    /**
+     * 清理过期版本：保留当前版本与最近 retainCount 个历史版本，删除遗留的暂存目录
+     *
+     * @param retainCount 保留的历史版本数
+     */
+    public static void sweep(int retainCount) {
+        if (!Files.isDirectory(VERSIONS_ROOT)) {
+            return;
+        }
+        List<Path> appDirs;
+        try (Stream<Path> children = Files.list(VERSIONS_ROOT)) {
+            appDirs = children.filter(Files::isDirectory).toList();
+        } catch (IOException e) {
+            log.warn("扫描代码版本目录失败", e);
+            return;
+        }
+        for (Path appDir : appDirs) {
+            String dirName = appDir.getFileName().toString();
+            synchronized (lockOf(dirName)) {
+                sweepAppVersions(dirName, appDir, retainCount);
+            }
+        }
+    }
+
+    private static void sweepAppVersions(String dirName, Path appDir, int retainCount) {
+        String current = getCurrentVersion(dirName);
+        int kept = 0;
+        for (String versionId : listVersions(dirName)) {
+            if (versionId.equals(current)) {
+                continue;
+            }
+            if (kept < retainCount) {
+                kept++;
+                continue;
+            }
+            FileUtil.del(appDir.resolve(versionId).toFile());
+            log.info("清理过期代码版本：{}/{}", dirName, versionId);
+        }
+        List<Path> activeStagings = STAGING.getOrDefault(dirName, List.of());
+        long expireBefore = System.currentTimeMillis() - STAGING_EXPIRE_MILLIS;
+        try (Stream<Path> children = Files.list(appDir)) {
+            children.filter(path -> path.getFileName().toString().endsWith(STAGING_SUFFIX))
+                    .filter(path -> !activeStagings.contains(path))
+                    .filter(path -> path.toFile().lastModified() < expireBefore)
+                    .forEach(path -> FileUtil.del(path.toFile()));
+        } catch (IOException e) {
+            log.warn("清理暂存目录失败：{}", appDir, e);
+        }
+    }
+
+    /**
+     * 把当前版本指针切换到指定版本：先建临时链接，再原子重命名覆盖旧链接
+     */
+    private static void pointLiveTo(String dirName, Path version) throws IOException {
+        Path live = OUTPUT_ROOT.resolve(dirName);
+        if (!isSymlinkSupported()) {
+            replaceByRename(live, version);
+            return;
+        }
+        Path tempLink = live.resolveSibling(dirName + ".link-" + IdUtil.fastSimpleUUID());
+        Files.createSymbolicLink(tempLink, OUTPUT_ROOT.relativize(version));
+        try {
+            moveAtomically(tempLink, live);
+        } catch (IOException e) {
+            Files.deleteIfExists(tempLink);
+            throw e;
+        }
+    }
+
+    /**
+     * 不支持符号链接时的退化方案：复制到临时目录后重命名替换，替换窗口很短但不是原子的
+     */
+    private static void replaceByRename(Path live, Path version) throws IOException {
+        String suffix = IdUtil.fastSimpleUUID();
+        Path incoming = live.resolveSibling(live.getFileName() + ".incoming-" + suffix);
+        Path retired = live.resolveSibling(live.getFileName() + ".retired-" + suffix);
+        copyDirectory(version, incoming);
+        if (Files.exists(live)) {
+            Files.move(live, retired);
+        }
+        Files.move(incoming, live);
+        FileUtil.del(retired.toFile());
+    }
+
+    /**
+     * 旧版本直接写在 bizType_appId 下的真实目录，首次发布前迁移为一个历史版本
+     */
+    private static void migrateLegacyDirectory(String dirName, Path live) {
+        if (!Files.isDirectory(live, LinkOption.NOFOLLOW_LINKS) || !isSymlinkSupported()) {
+            return;
+        }
+        Path version = VERSIONS_ROOT.resolve(dirName).resolve(IdUtil.getSnowflakeNextIdStr());
+        try {
+            Files.createDirectories(version.getParent());
+            Files.move(live, version);
+            pointLiveTo(dirName, version);
+            log.info("已迁移旧代码目录为版本：{}", version);
+        } catch (IOException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "迁移旧代码目录失败：" + e.getMessage());
+        }
+    }
+
+    private static void copyDirectory(Path source, Path target) throws IOException {
+        try (Stream<Path> paths = Files.walk(source)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                if (path.getFileName().toString().endsWith(IncrementalFileWriter.PARTIAL_SUFFIX)) {
+                    continue;
+                }
+                Path dest = target.resolve(source.relativize(path).toString());
+                if (Files.isDirectory(path)) {
+                    Files.createDirectories(dest);
+                } else {
+                    Files.copy(path, dest, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        }
+    }
+
+    private static void moveAtomically(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static boolean isSymlinkSupported() {
+        Boolean supported = symlinkSupported;
+        if (supported != null) {
+            return supported;
+        }
+        Path probe = OUTPUT_ROOT.resolve(".symlink-probe-" + IdUtil.fastSimpleUUID());
+        try {
+            Files.createDirectories(OUTPUT_ROOT);
+            Files.createSymbolicLink(probe, Paths.get(VERSIONS_DIR_NAME));
+            supported = true;
+        } catch (UnsupportedOperationException | IOException | SecurityException e) {
+            log.warn("当前文件系统不支持符号链接，代码版本切换退化为目录替换");
+            supported = false;
+        } finally {
+            try {
+                Files.deleteIfExists(probe);
+            } catch (IOException ignored) {
+                // 探测文件清理失败不影响结果
+            }
+        }
+        symlinkSupported = supported;
+        return supported;
+    }
+
+    /**
+     * 指定是否使用符号链接，传 null 时重新探测，仅供测试覆盖目录替换模式
+     */
+    static void setSymlinkSupported(Boolean supported) {
+        symlinkSupported = supported;
+    }
+
+    /**
+     * 登记暂存目录，调用方持有目录名锁
+     */
+    private static void addStaging(String dirName, Path staging) {
+        List<Path> stagings = new ArrayList<>(STAGING.getOrDefault(dirName, List.of()));
+        stagings.add(staging);
+        STAGING.put(dirName, List.copyOf(stagings));
+    }
+
+    /**
+     * 移除调用方自己的暂存目录，同一应用并发生成时不影响其他生成的暂存目录，调用方持有目录名锁
+     */
+    private static void removeStaging(String dirName, Path staging) {
+        List<Path> stagings = STAGING.get(dirName);
+        if (stagings == null || !stagings.contains(staging)) {
+            return;
+        }
+        List<Path> remaining = stagings.stream().filter(path -> !path.equals(staging)).toList();
+        if (remaining.isEmpty()) {
+            STAGING.remove(dirName);
+        } else {
+            STAGING.put(dirName, remaining);
+        }
+    }
+
+    private static Object lockOf(String dirName) {
+        return LOCKS.computeIfAbsent(dirName, key -> new Object());
+    }
+}
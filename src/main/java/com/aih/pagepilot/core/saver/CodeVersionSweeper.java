@@ -0,0 +1,33 @@
+package com.aih.pagepilot.core.saver;
+
+import com.aih.pagepilot.config.CodeVersionConfig;
+import jakarta.annotation.Resource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * <p>
+ * 代码版本后台清理任务
+ * 定期删除超出保留数量的历史版本和崩溃遗留的暂存目录，不阻塞生成与预览
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/13
+ */
+@Slf4j
+@Component
+public class CodeVersionSweeper {
+
+    @Resource
+    private CodeVersionConfig codeVersionConfig;
+
+    @Scheduled(initialDelay = 60_000, fixedDelay = 600_000)
+    public void sweep() {
+        try {
+            CodeVersionManager.sweep(codeVersionConfig.getRetainCount());
+        } catch (Exception e) {
+            log.error("清理代码版本失败: {}", e.getMessage(), e);
+        }
+    }
+}
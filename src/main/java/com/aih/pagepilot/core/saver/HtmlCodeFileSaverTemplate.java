@@ -27,6 +27,11 @@ public class HtmlCodeFileSaverTemplate extends CodeFileSaverTemplate<HtmlCodeRes
         writeToFile(baseDirPath, "index.html", result.getHtmlCode());
     }
 
+    @Override
+    protected String resolveFileName(String language) {
+        return "html".equals(language) ? "index.html" : null;
+    }
+
     @Override
     protected void validateInput(HtmlCodeResult result) {
         super.validateInput(result);
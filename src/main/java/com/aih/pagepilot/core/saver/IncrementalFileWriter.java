@@ -0,0 +1,136 @@
+package com.aih.pagepilot.core.saver;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * <p>
+ * 增量文件写入器
+ * 生成过程中把内容按批追加到 {@code 文件名.partial}，供预览接口边生成边展示；
+ * 生成结束后原子重命名为正式文件，读者永远不会读到半截的正式文件。
+ * </p>
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/12
+ */
+@Slf4j
+public class IncrementalFileWriter {
+
+    /**
+     * 预览中的临时文件后缀
+     */
+    public static final String PARTIAL_SUFFIX = ".partial";
+
+    /**
+     * 缓冲到多少字符写一次盘
+     */
+    private static final int FLUSH_THRESHOLD_CHARS = 2048;
+
+    private final Path targetFile;
+
+    private final Path partialFile;
+
+    private final StringBuilder buffer = new StringBuilder(FLUSH_THRESHOLD_CHARS);
+
+    private BufferedWriter writer;
+
+    private boolean hasContent;
+
+    private boolean closed;
+
+    public IncrementalFileWriter(Path targetFile) throws IOException {
+        this.targetFile = targetFile;
+        this.partialFile = targetFile.resolveSibling(targetFile.getFileName() + PARTIAL_SUFFIX);
+        Files.createDirectories(targetFile.getParent());
+        this.writer = Files.newBufferedWriter(partialFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * 追加一行内容，攒够一批再写盘
+     */
+    public void appendLine(CharSequence line) throws IOException {
+        if (!hasContent && !line.toString().isBlank()) {
+            hasContent = true;
+        }
+        buffer.append(line).append('\n');
+        if (buffer.length() >= FLUSH_THRESHOLD_CHARS) {
+            flush();
+        }
+    }
+
+    /**
+     * 拼接下一个代码块前插入一个空行分隔，还没有内容时不插入
+     */
+    public void appendSeparator() throws IOException {
+        if (hasContent) {
+            appendLine("");
+        }
+    }
+
+    /**
+     * 把缓冲区写盘，预览接口随后即可读到
+     */
+    public void flush() throws IOException {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        writer.append(buffer);
+        writer.flush();
+        buffer.setLength(0);
+    }
+
+    /**
+     * 写入完成：原子重命名为正式文件；内容为空时丢弃临时文件，保留原有文件
+     *
+     * @return 正式文件，内容为空时返回 null
+     */
+    public Path commit() throws IOException {
+        if (closed) {
+            return null;
+        }
+        flush();
+        close();
+        if (!hasContent) {
+            Files.deleteIfExists(partialFile);
+            return null;
+        }
+        try {
+            Files.move(partialFile, targetFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(partialFile, targetFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return targetFile;
+    }
+
+    /**
+     * 生成失败或被取消：删除临时文件，正式文件保持上一次的结果
+     */
+    public void abort() {
+        if (closed) {
+            return;
+        }
+        try {
+            close();
+            Files.deleteIfExists(partialFile);
+        } catch (IOException e) {
+            log.warn("清理预览临时文件失败: {}", partialFile, e);
+        }
+    }
+
+    private void close() throws IOException {
+        closed = true;
+        if (writer != null) {
+            writer.close();
+            writer = null;
+        }
+    }
+}
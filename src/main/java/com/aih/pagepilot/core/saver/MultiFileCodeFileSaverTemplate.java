@@ -32,6 +32,16 @@ public class MultiFileCodeFileSaverTemplate extends CodeFileSaverTemplate<MultiF
         writeToFile(baseDirPath, "script.js", result.getJsCode());
     }
 
+    @Override
+    protected String resolveFileName(String language) {
+        return switch (language) {
+            case "html" -> "index.html";
+            case "css" -> "style.css";
+            case "js" -> "script.js";
+            default -> null;
+        };
+    }
+
     @Override
     protected void validateInput(MultiFileCodeResult result) {
         super.validateInput(result);
@@ -0,0 +1,225 @@
+package com.aih.pagepilot.core.saver;
+
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.core.parser.CodeBlockListener;
+import com.aih.pagepilot.core.parser.DuplicateBlockPolicy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>
+ * 流式代码保存器（HTML、MULTI_FILE）
+ * 代码块开始即在新版本的暂存目录中打开 {@code .partial} 预览文件，逐行增量写盘，
+ * 代码块闭合后原子替换为正式文件；整段生成结束后再把版本整体发布。
+ * 同一语言出现多个代码块时按 {@link DuplicateBlockPolicy} 取舍，与完整解析的结果保持一致。
+ * </p>
+ * 非线程安全，一次生成对应一个实例。
+ *
+ * @author zeng.liqiang
+ * @date 2025/11/12
+ */
+@Slf4j
+public class StreamingCodeFileSaver implements CodeBlockListener {
+
+    private final CodeGenTypeEnum codeGenType;
+
+    private final Long appId;
+
+    private final DuplicateBlockPolicy duplicateBlockPolicy;
+
+    /**
+     * 已处理过的语言及其已保存代码块的长度（LARGEST 用于比较）
+     */
+    private final Map<String, Integer> savedLengths = new HashMap<>();
+
+    /**
+     * CONCATENATE 下每种语言的写入器，同语言的代码块依次追加，生成结束时统一提交
+     */
+    private final Map<String, IncrementalFileWriter> concatenatedWriters = new HashMap<>();
+
+    /**
+     * 当前代码块的增量写入器，为 null 表示当前代码块无需保存
+     */
+    private IncrementalFileWriter currentWriter;
+
+    /**
+     * 本次生成的版本暂存目录，第一个代码块开始时创建
+     */
+    private Path versionDir;
+
+    /**
+     * 是否打开过预览文件，打开后本次生成以流式保存的结果为准，不再需要原始内容兜底
+     */
+    private boolean streaming;
+
+    /**
+     * 是否有代码块成功写入
+     */
+    private boolean saved;
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenType, Long appId) {
+        this(codeGenType, appId, DuplicateBlockPolicy.FIRST);
+    }
+
+    public StreamingCodeFileSaver(CodeGenTypeEnum codeGenType, Long appId, DuplicateBlockPolicy duplicateBlockPolicy) {
+        this.codeGenType = codeGenType;
+        this.appId = appId;
+        this.duplicateBlockPolicy = duplicateBlockPolicy;
+    }
+
+    @Override
+    public void onBlockStart(String language) {
+        currentWriter = null;
+        boolean duplicate = savedLengths.putIfAbsent(language, 0) != null;
+        try {
+            switch (duplicateBlockPolicy) {
+                case FIRST -> {
+                    if (!duplicate) {
+                        currentWriter = openWriter(language);
+                    }
+                }
+                // 每个代码块都写入预览，闭合时只有比已保存的更长才替换正式文件
+                case LARGEST -> currentWriter = openWriter(language);
+                case CONCATENATE -> {
+                    IncrementalFileWriter writer = concatenatedWriters.get(language);
+                    if (writer == null) {
+                        writer = openWriter(language);
+                        if (writer != null) {
+                            concatenatedWriters.put(language, writer);
+                        }
+                    } else {
+                        writer.appendSeparator();
+                    }
+                    currentWriter = writer;
+                }
+            }
+        } catch (Exception e) {
+            log.error("打开预览文件失败: {}", e.getMessage());
+            abortCurrentWriter();
+        }
+    }
+
+    @Override
+    public void onBlockLine(String language, CharSequence line) {
+        if (currentWriter == null) {
+            return;
+        }
+        try {
+            currentWriter.appendLine(line);
+        } catch (Exception e) {
+            log.error("写入预览文件失败: {}", e.getMessage());
+            abortCurrentWriter();
+        }
+    }
+
+    @Override
+    public void onCodeBlock(String language, String code) {
+        if (currentWriter == null) {
+            return;
+        }
+        IncrementalFileWriter writer = currentWriter;
+        currentWriter = null;
+        if (duplicateBlockPolicy == DuplicateBlockPolicy.CONCATENATE) {
+            // 后面可能还有同语言的代码块，生成结束时再提交
+            return;
+        }
+        if (duplicateBlockPolicy == DuplicateBlockPolicy.LARGEST && code.length() <= savedLengths.get(language)) {
+            writer.abort();
+            return;
+        }
+        if (commit(writer)) {
+            savedLengths.put(language, code.length());
+        }
+    }
+
+    @Override
+    public boolean needsRawContent() {
+        return !streaming;
+    }
+
+    /**
+     * 生成结束：发布本次版本；没有写入任何文件时丢弃，保留上一个版本
+     *
+     * @return 是否发布了新版本，为 false 时调用方应回退到完整解析
+     */
+    public boolean complete() {
+        for (IncrementalFileWriter writer : concatenatedWriters.values()) {
+            commit(writer);
+        }
+        concatenatedWriters.clear();
+        abortCurrentWriter();
+        if (versionDir == null) {
+            return false;
+        }
+        Path dir = versionDir;
+        versionDir = null;
+        if (!saved) {
+            CodeFileSaverExecutor.executeDiscardVersion(codeGenType, appId, dir);
+            return false;
+        }
+        try {
+            String versionId = CodeFileSaverExecutor.executePublishVersion(codeGenType, appId, dir);
+            log.info("代码版本发布成功：{}", versionId);
+            return true;
+        } catch (Exception e) {
+            log.error("代码版本发布失败: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 生成失败或被取消时丢弃整个暂存版本，当前版本保持不变
+     */
+    public void abort() {
+        abortCurrentWriter();
+        concatenatedWriters.values().forEach(IncrementalFileWriter::abort);
+        concatenatedWriters.clear();
+        if (versionDir != null) {
+            CodeFileSaverExecutor.executeDiscardVersion(codeGenType, appId, versionDir);
+            versionDir = null;
+        }
+    }
+
+    private IncrementalFileWriter openWriter(String language) throws IOException {
+        if (versionDir == null) {
+            versionDir = CodeFileSaverExecutor.executeBeginVersion(codeGenType, appId);
+        }
+        IncrementalFileWriter writer = CodeFileSaverExecutor.executeIncrementalWriter(language, codeGenType, versionDir);
+        if (writer != null) {
+            streaming = true;
+        }
+        return writer;
+    }
+
+    /**
+     * 提交写入器，原子替换正式文件
+     *
+     * @return 是否写出了文件
+     */
+    private boolean commit(IncrementalFileWriter writer) {
+        try {
+            Path savedFile = writer.commit();
+            if (savedFile != null) {
+                saved = true;
+                log.info("代码块保存成功：{}", savedFile.toAbsolutePath());
+                return true;
+            }
+        } catch (Exception e) {
+            writer.abort();
+            log.error("代码块保存失败: {}", e.getMessage());
+        }
+        return false;
+    }
+
+    private void abortCurrentWriter() {
+        if (currentWriter != null) {
+            currentWriter.abort();
+            concatenatedWriters.values().remove(currentWriter);
+            currentWriter = null;
+        }
+    }
+}
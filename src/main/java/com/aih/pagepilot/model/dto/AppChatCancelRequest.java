@@ -0,0 +1,19 @@
+package com.aih.pagepilot.model.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 取消应用生成请求
+ */
+@Data
+public class AppChatCancelRequest implements Serializable {
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,24 @@
+package com.aih.pagepilot.model.dto;
+
+import lombok.Data;
+
+import java.io.Serializable;
+
+/**
+ * 应用代码版本回滚请求
+ */
+@Data
+public class AppCodeRollbackRequest implements Serializable {
+
+    /**
+     * 应用 id
+     */
+    private Long appId;
+
+    /**
+     * 目标版本号
+     */
+    private String versionId;
+
+    private static final long serialVersionUID = 1L;
+}
@@ -0,0 +1,35 @@
+package com.aih.pagepilot.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 应用构建状态（仅 VUE_PROJECT）
+ */
+@Data
+public class AppBuildStatusVO implements Serializable {
+
+    /**
+     * 构建状态：NONE / QUEUED / BUILDING / SUCCEEDED / FAILED / CANCELLED
+     */
+    private String status;
+
+    /**
+     * 最近一次构建的开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 最近一次构建的结束时间，进行中为空
+     */
+    private LocalDateTime finishTime;
+
+    /**
+     * 是否还有一次待进行的构建（构建期间源码又有变化）
+     */
+    private Boolean pending;
+
+    private static final long serialVersionUID = 1L;
+}
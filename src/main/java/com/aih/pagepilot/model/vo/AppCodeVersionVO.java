@@ -0,0 +1,30 @@
+package com.aih.pagepilot.model.vo;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 应用代码版本信息
+ */
+@Data
+public class AppCodeVersionVO implements Serializable {
+
+    /**
+     * 版本号
+     */
+    private String versionId;
+
+    /**
+     * 生成时间
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 是否为当前版本
+     */
+    private Boolean current;
+
+    private static final long serialVersionUID = 1L;
+}
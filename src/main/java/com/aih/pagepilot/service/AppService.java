@@ -1,11 +1,15 @@
 package com.aih.pagepilot.service;
 
+import com.aih.pagepilot.core.builder.BuildLogBroadcaster;
+import com.aih.pagepilot.core.generation.GenerationSession;
 import com.aih.pagepilot.model.dto.AppAddRequest;
 import com.aih.pagepilot.model.entity.User;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
 import com.aih.pagepilot.model.dto.AppQueryRequest;
 import com.aih.pagepilot.model.entity.App;
+import com.aih.pagepilot.model.vo.AppBuildStatusVO;
+import com.aih.pagepilot.model.vo.AppCodeVersionVO;
 import com.aih.pagepilot.model.vo.AppVO;
 import jakarta.servlet.http.HttpServletRequest;
 import reactor.core.publisher.Flux;
@@ -70,9 +74,79 @@ public interface AppService extends IService<App> {
     QueryWrapper getFeaturedQueryWrapper(AppQueryRequest appQueryRequest);
 
 
-    Flux<String> chatToGenCode(Long appId, String message, User loginUser);
+    /**
+     * 对话生成代码，生成在后台进行，与发起请求的连接解耦
+     *
+     * @param appId     应用 ID
+     * @param message   用户消息
+     * @param loginUser 登录用户
+     * @return 生成会话
+     */
+    GenerationSession chatToGenCode(Long appId, String message, User loginUser);
+
+    /**
+     * 获取生成会话，用于断线重连
+     *
+     * @param generationId 生成 ID
+     * @param loginUser    登录用户
+     * @return 生成会话
+     */
+    GenerationSession getGenerationSession(String generationId, User loginUser);
+
+    /**
+     * 获取应用进行中的生成会话，供其他页面旁观，不会再次调用模型
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 生成会话
+     */
+    GenerationSession getRunningGenerationSession(Long appId, User loginUser);
+
+    /**
+     * 取消应用进行中的生成，模型停止输出、跳过未执行的工具调用，并在对话历史中记录已生成的部分
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     */
+    void cancelGeneration(Long appId, User loginUser);
 
     String deployApp(Long appId, User loginUser);
 
     Long createApp(AppAddRequest appAddRequest, User loginUser);
+
+    /**
+     * 获取应用的代码版本列表（仅 HTML、MULTI_FILE）
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 版本列表，从新到旧
+     */
+    List<AppCodeVersionVO> listAppCodeVersions(Long appId, User loginUser);
+
+    /**
+     * 回滚应用代码到指定版本
+     *
+     * @param appId     应用 ID
+     * @param versionId 版本号
+     * @param loginUser 登录用户
+     */
+    void rollbackAppCode(Long appId, String versionId, User loginUser);
+
+    /**
+     * 获取应用的构建状态（仅 VUE_PROJECT）
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 构建状态
+     */
+    AppBuildStatusVO getAppBuildStatus(Long appId, User loginUser);
+
+    /**
+     * 订阅应用的构建日志（仅 VUE_PROJECT）
+     *
+     * @param appId     应用 ID
+     * @param loginUser 登录用户
+     * @return 最近若干行及后续日志，构建结束时以 done 事件结束
+     */
+    Flux<BuildLogBroadcaster.BuildLog> streamAppBuildLogs(Long appId, User loginUser);
 }
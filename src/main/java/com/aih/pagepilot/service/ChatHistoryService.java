@@ -6,6 +6,7 @@ import com.aih.pagepilot.model.entity.User;
 import com.aih.pagepilot.model.vo.ChatHistoryVO;
 import com.mybatisflex.core.query.QueryWrapper;
 import com.mybatisflex.core.service.IService;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import jakarta.servlet.http.HttpServletRequest;
 
@@ -105,6 +106,15 @@ public interface ChatHistoryService extends IService<ChatHistory> {
      */
     QueryWrapper getAdminQueryWrapper(ChatHistoryQueryRequest chatHistoryQueryRequest);
 
+    /**
+     * 添加一条对话消息，异步批量写入数据库，不等待写入完成
+     *
+     * @param appId       应用ID
+     * @param message     消息内容
+     * @param messageType 消息类型
+     * @param userId      用户ID
+     * @return 提交成功
+     */
     boolean addChatMessage(Long appId, String message, String messageType, Long userId);
 
     /**
@@ -121,4 +131,13 @@ public interface ChatHistoryService extends IService<ChatHistory> {
                                                                               User loginUser);
 
     int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount);
+
+    /**
+     * 读取应用最近的对话历史并转换为对话记忆消息，不包含最新的一条（即本轮的用户消息）
+     *
+     * @param appId    应用ID
+     * @param maxCount 最多读取条数
+     * @return 按时间正序排列的消息，读取失败返回空列表
+     */
+    List<ChatMessage> loadChatHistoryMessages(Long appId, int maxCount);
 }
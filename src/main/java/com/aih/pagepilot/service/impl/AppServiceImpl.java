@@ -2,16 +2,28 @@ package com.aih.pagepilot.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
 import cn.hutool.core.collection.CollUtil;
+import cn.hutool.core.date.LocalDateTimeUtil;
 import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
 import cn.hutool.core.util.RandomUtil;
 import cn.hutool.core.util.StrUtil;
 import com.aih.pagepilot.ai.AiCodeGenTypeRoutingService;
 import com.aih.pagepilot.ai.AiCodeGeneratorService;
 import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
 import com.aih.pagepilot.common.SortFields;
 import com.aih.pagepilot.core.AiCodeGeneratorFacade;
+import com.aih.pagepilot.config.VueBuildConfig;
+import com.aih.pagepilot.core.builder.BuildLogBroadcaster;
+import com.aih.pagepilot.core.builder.VueBuildScheduler;
+import com.aih.pagepilot.core.builder.VueBuildStatus;
 import com.aih.pagepilot.core.builder.VueProjectBuilder;
+import com.aih.pagepilot.core.generation.GenerationPriority;
+import com.aih.pagepilot.core.generation.GenerationScheduler;
+import com.aih.pagepilot.core.generation.GenerationSession;
+import com.aih.pagepilot.core.generation.GenerationSessionManager;
 import com.aih.pagepilot.core.handler.StreamHandlerExecutor;
+import com.aih.pagepilot.core.saver.CodeVersionManager;
 import com.aih.pagepilot.exception.ThrowUtils;
 import com.aih.pagepilot.model.dto.AppAddRequest;
 import com.aih.pagepilot.model.enums.MessageTypeEnum;
@@ -27,6 +39,8 @@ import com.aih.pagepilot.model.dto.AppQueryRequest;
 import com.aih.pagepilot.model.entity.App;
 import com.aih.pagepilot.model.entity.User;
 import com.aih.pagepilot.mapper.AppMapper;
+import com.aih.pagepilot.model.vo.AppBuildStatusVO;
+import com.aih.pagepilot.model.vo.AppCodeVersionVO;
 import com.aih.pagepilot.model.vo.AppVO;
 import com.aih.pagepilot.model.vo.UserVO;
 import com.aih.pagepilot.service.AppService;
@@ -40,11 +54,15 @@ import reactor.core.publisher.Flux;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.stream.Collectors;
 
 /**
@@ -66,6 +84,16 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     @Resource
     private StreamHandlerExecutor streamHandlerExecutor;
     @Resource
+    private GenerationSessionManager generationSessionManager;
+    @Resource
+    private GenerationScheduler generationScheduler;
+    @Resource
+    private VueBuildScheduler vueBuildScheduler;
+    @Resource
+    private VueBuildConfig vueBuildConfig;
+    @Resource
+    private BuildLogBroadcaster buildLogBroadcaster;
+    @Resource
     private VueProjectBuilder vueProjectBuilder;
     @Resource
     private ScreenshotService screenshotService;
@@ -212,7 +240,7 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
     }
 
     @Override
-    public Flux<String> chatToGenCode(Long appId, String message, User loginUser) {
+    public GenerationSession chatToGenCode(Long appId, String message, User loginUser) {
         // 1. 参数校验
         ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
         ThrowUtils.throwIf(StrUtil.isBlank(message), ErrorCode.PARAMS_ERROR, "用户消息不能为空");
@@ -229,10 +257,11 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         if (codeGenTypeEnum == null) {
             throw new BusinessException(ErrorCode.SYSTEM_ERROR, "不支持的代码生成类型");
         }
-        // 5. 通过校验后，添加用户消息到对话历史
-        chatHistoryService.addChatMessage(appId, message, MessageTypeEnum.USER.getValue(), loginUser.getId());
-        // 6. 调用 AI 生成代码（流式）
-        Flux<String> contentFlux = aiCodeGeneratorFacade.generateAndSaveCodeStream(message, codeGenTypeEnum, appId);
+        // 5. 拿到该应用的生成租约后，添加用户消息到对话历史并调用 AI 生成代码（流式）
+        Flux<StreamMessage> contentFlux = Flux.defer(() -> {
+            chatHistoryService.addChatMessage(appId, message, MessageTypeEnum.USER.getValue(), loginUser.getId());
+            return aiCodeGeneratorFacade.generateAndSaveCodeMessageStream(message, codeGenTypeEnum, appId);
+        });
         // 7. 收集AI响应内容并在完成后记录到对话历史
 //        StringBuilder aiResponseBuilder = new StringBuilder();
 //        return contentFlux
@@ -253,7 +282,53 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
 //                    String errorMessage = "AI回复失败: " + error.getMessage();
 //                    chatHistoryService.addChatMessage(appId, errorMessage, MessageTypeEnum.AI.getValue(), loginUser.getId());
 //                });
-        return streamHandlerExecutor.doExecute(contentFlux, chatHistoryService, appId, loginUser, codeGenTypeEnum);
+        Flux<String> resultFlux = streamHandlerExecutor.doExecute(contentFlux, chatHistoryService, appId, loginUser, codeGenTypeEnum);
+        // 8. 按模型并发名额调度，管理员与精选应用优先，排队位置推送给会话的连接
+        GenerationPriority priority = UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole())
+                || AppConstant.GOOD_APP_PRIORITY.equals(app.getPriority())
+                ? GenerationPriority.HIGH : GenerationPriority.NORMAL;
+        // 9. 在后台会话中生成，同一应用同时只有一次生成，连接断开后可按生成 ID 重连
+        return generationSessionManager.start(appId, loginUser.getId(), session -> generationScheduler.schedule(
+                codeGenTypeEnum, loginUser.getId(), priority, resultFlux, session::updateQueuePosition));
+    }
+
+    @Override
+    public GenerationSession getGenerationSession(String generationId, User loginUser) {
+        ThrowUtils.throwIf(StrUtil.isBlank(generationId), ErrorCode.PARAMS_ERROR, "生成 ID 不能为空");
+        GenerationSession session = generationSessionManager.get(generationId);
+        ThrowUtils.throwIf(session == null, ErrorCode.NOT_FOUND_ERROR, "生成任务不存在或已过期");
+        checkGenerationViewAuth(session.getUserId(), loginUser);
+        return session;
+    }
+
+    @Override
+    public GenerationSession getRunningGenerationSession(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        checkGenerationViewAuth(app.getUserId(), loginUser);
+        GenerationSession session = generationSessionManager.getRunning(appId);
+        ThrowUtils.throwIf(session == null, ErrorCode.NOT_FOUND_ERROR, "该应用当前没有进行中的生成");
+        return session;
+    }
+
+    @Override
+    public void cancelGeneration(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        checkGenerationViewAuth(app.getUserId(), loginUser);
+        generationSessionManager.cancel(appId);
+    }
+
+    /**
+     * 生成过程仅应用创建者和管理员可以查看
+     */
+    private void checkGenerationViewAuth(Long ownerUserId, User loginUser) {
+        boolean isAdmin = UserConstant.ADMIN_ROLE.equals(loginUser.getUserRole());
+        if (!isAdmin && !loginUser.getId().equals(ownerUserId)) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限访问该生成任务");
+        }
     }
 
     @Override
@@ -285,7 +360,8 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         // 如果是 vue 需要先构建出 dist 目录
         CodeGenTypeEnum enumByValue = CodeGenTypeEnum.getEnumByValue(codeGenType);
         if (enumByValue == CodeGenTypeEnum.VUE_PROJECT){
-            boolean isSuccess = vueProjectBuilder.buildProject(sourceDirPath);
+            // 生成结束后已触发构建时等待它，不重复构建
+            boolean isSuccess = awaitVueBuild(sourceDirPath);
             ThrowUtils.throwIf(!isSuccess, ErrorCode.SYSTEM_ERROR, "构建项目失败");
             // 检查 dist目录是否存在
             File distDir = new File(sourceDirPath, "dist");
@@ -336,6 +412,121 @@ public class AppServiceImpl extends ServiceImpl<AppMapper, App> implements AppSe
         return app.getId();
     }
 
+    @Override
+    public List<AppCodeVersionVO> listAppCodeVersions(Long appId, User loginUser) {
+        String dirName = getVersionedCodeDirName(appId, loginUser);
+        String currentVersion = CodeVersionManager.getCurrentVersion(dirName);
+        return CodeVersionManager.listVersions(dirName).stream().map(versionId -> {
+            AppCodeVersionVO versionVO = new AppCodeVersionVO();
+            versionVO.setVersionId(versionId);
+            long createMillis = IdUtil.getSnowflake().getGenerateDateTime(Long.parseLong(versionId));
+            versionVO.setCreateTime(LocalDateTimeUtil.of(createMillis));
+            versionVO.setCurrent(versionId.equals(currentVersion));
+            return versionVO;
+        }).collect(Collectors.toList());
+    }
+
+    @Override
+    public void rollbackAppCode(Long appId, String versionId, User loginUser) {
+        ThrowUtils.throwIf(StrUtil.isBlank(versionId), ErrorCode.PARAMS_ERROR, "版本号不能为空");
+        String dirName = getVersionedCodeDirName(appId, loginUser);
+        CodeVersionManager.rollback(dirName, versionId);
+    }
+
+    /**
+     * 删除应用，同时删除其代码版本目录
+     */
+    @Override
+    public boolean removeById(Serializable id) {
+        App app = this.getById(id);
+        boolean result = super.removeById(id);
+        if (result && app != null) {
+            CodeVersionManager.deleteVersions(app.getCodeGenType() + "_" + app.getId());
+        }
+        return result;
+    }
+
+    @Override
+    public AppBuildStatusVO getAppBuildStatus(Long appId, User loginUser) {
+        String projectPath = getVueProjectPath(appId, loginUser);
+        VueBuildScheduler.Snapshot snapshot = vueBuildScheduler.status(projectPath);
+        AppBuildStatusVO statusVO = new AppBuildStatusVO();
+        statusVO.setStatus(snapshot.status().name());
+        statusVO.setStartTime(snapshot.startTime());
+        statusVO.setFinishTime(snapshot.finishTime());
+        statusVO.setPending(snapshot.pending());
+        return statusVO;
+    }
+
+    @Override
+    public Flux<BuildLogBroadcaster.BuildLog> streamAppBuildLogs(Long appId, User loginUser) {
+        return buildLogBroadcaster.stream(getVueProjectPath(appId, loginUser));
+    }
+
+    /**
+     * 校验应用归属并返回 Vue 工程目录
+     */
+    private String getVueProjectPath(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限查看该应用");
+        }
+        ThrowUtils.throwIf(CodeGenTypeEnum.getEnumByValue(app.getCodeGenType()) != CodeGenTypeEnum.VUE_PROJECT,
+                ErrorCode.PARAMS_ERROR, "仅 Vue 工程应用需要构建");
+        return AppConstant.CODE_OUTPUT_ROOT_DIR + File.separator + app.getCodeGenType() + "_" + appId;
+    }
+
+    /**
+     * 等待 Vue 工程构建完成，没有进行中的构建时发起一次；源码与现有 dist 一致时直接返回
+     *
+     * @param projectPath 工程目录
+     * @return 是否构建成功
+     */
+    private boolean awaitVueBuild(String projectPath) {
+        VueBuildStatus status = vueBuildScheduler.status(projectPath).status();
+        if (status != VueBuildStatus.QUEUED && status != VueBuildStatus.BUILDING
+                && vueProjectBuilder.isUpToDate(projectPath)) {
+            log.info("源码与现有构建产物一致，直接部署: {}", projectPath);
+            return true;
+        }
+        long timeoutMillis = vueBuildConfig.getDeployBuildTimeout().toMillis();
+        try {
+            return vueBuildScheduler.awaitBuild(projectPath).get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "等待项目构建被中断");
+        } catch (TimeoutException e) {
+            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "项目构建超时，请稍后重试");
+        } catch (ExecutionException e) {
+            log.error("构建项目失败: {}", projectPath, e.getCause());
+            return false;
+        }
+    }
+
+    /**
+     * 校验权限并获取支持版本管理的代码目录名
+     *
+     * @param appId     应用ID
+     * @param loginUser 登录用户
+     * @return 目录名：bizType_appId
+     */
+    private String getVersionedCodeDirName(Long appId, User loginUser) {
+        ThrowUtils.throwIf(appId == null || appId <= 0, ErrorCode.PARAMS_ERROR, "应用 ID 不能为空");
+        ThrowUtils.throwIf(loginUser == null, ErrorCode.NOT_LOGIN_ERROR, "用户未登录");
+        App app = this.getById(appId);
+        ThrowUtils.throwIf(app == null, ErrorCode.NOT_FOUND_ERROR, "应用不存在");
+        if (!app.getUserId().equals(loginUser.getId())) {
+            throw new BusinessException(ErrorCode.NO_AUTH_ERROR, "无权限操作该应用");
+        }
+        CodeGenTypeEnum codeGenTypeEnum = CodeGenTypeEnum.getEnumByValue(app.getCodeGenType());
+        ThrowUtils.throwIf(codeGenTypeEnum != CodeGenTypeEnum.HTML && codeGenTypeEnum != CodeGenTypeEnum.MULTI_FILE,
+                ErrorCode.PARAMS_ERROR, "该类型应用暂不支持代码版本管理");
+        return app.getCodeGenType() + "_" + appId;
+    }
+
     /**
      * 异步生成应用截图并更新应用封面
      * @param appId 应用ID
@@ -5,6 +5,7 @@ import cn.hutool.core.collection.CollUtil;
 import cn.hutool.core.util.StrUtil;
 import com.aih.pagepilot.common.SortFields;
 import com.aih.pagepilot.constant.UserConstant;
+import com.aih.pagepilot.core.history.ChatHistoryWriter;
 import com.aih.pagepilot.exception.BusinessException;
 import com.aih.pagepilot.exception.ErrorCode;
 import com.aih.pagepilot.exception.ThrowUtils;
@@ -23,6 +24,7 @@ import com.aih.pagepilot.model.entity.ChatHistory;
 import com.aih.pagepilot.mapper.ChatHistoryMapper;
 import com.aih.pagepilot.service.ChatHistoryService;
 import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import jakarta.annotation.Resource;
@@ -31,6 +33,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -48,6 +51,11 @@ import java.util.stream.Collectors;
 @Slf4j
 public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatHistory> implements ChatHistoryService {
 
+    /**
+     * 补全记忆前等待已提交的对话历史写入的最长时间
+     */
+    private static final Duration HYDRATE_WRITE_TIMEOUT = Duration.ofSeconds(2);
+
     @Resource
     private UserService userService;
 
@@ -55,6 +63,9 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
     @Lazy
     private AppService appService;
 
+    @Resource
+    private ChatHistoryWriter chatHistoryWriter;
+
     @Override
     public void validChatHistory(ChatHistory chatHistory, boolean add) {
         if (chatHistory == null) {
@@ -240,10 +251,8 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .build();
 
         validChatHistory(chatHistory, true);
-        boolean success = this.save(chatHistory);
-        if (!success) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存用户消息失败");
-        }
+        // 与 addChatMessage 一样交给后台批量写入，ID 在入队时生成
+        chatHistoryWriter.write(chatHistory);
         return chatHistory;
     }
 
@@ -263,10 +272,8 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .build();
 
         validChatHistory(chatHistory, true);
-        boolean success = this.save(chatHistory);
-        if (!success) {
-            throw new BusinessException(ErrorCode.SYSTEM_ERROR, "保存AI消息失败");
-        }
+        // 与 addChatMessage 一样交给后台批量写入，ID 在入队时生成
+        chatHistoryWriter.write(chatHistory);
         return chatHistory;
     }
 
@@ -314,7 +321,9 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                 .messageType(messageType)
                 .userId(userId)
                 .build();
-        return this.save(chatHistory);
+        // 在流的完成回调中调用，不阻塞在数据库上，交给后台批量写入
+        chatHistoryWriter.write(chatHistory);
+        return true;
     }
 
     @Override
@@ -345,7 +354,23 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
 
     @Override
     public int loadChatHistoryToMemory(Long appId, MessageWindowChatMemory chatMemory, int maxCount) {
+        List<ChatMessage> messages = loadChatHistoryMessages(appId, maxCount);
+        if (CollUtil.isEmpty(messages)) {
+            return 0;
+        }
+        // 先清理历史缓存，防止重复加载
+        chatMemory.clear();
+        messages.forEach(chatMemory::add);
+        return messages.size();
+    }
+
+    @Override
+    public List<ChatMessage> loadChatHistoryMessages(Long appId, int maxCount) {
         try {
+            // 本轮的用户消息异步写入，先等该应用的消息落库，下面才能按最新一条排除
+            if (!chatHistoryWriter.awaitWritten(appId, HYDRATE_WRITE_TIMEOUT)) {
+                log.warn("等待对话历史写入超时, appId: {}", appId);
+            }
             // 直接构造查询条件，起始点为 1 而不是 0，用于排除最新的用户消息
             QueryWrapper queryWrapper = QueryWrapper.create()
                     .eq(ChatHistory::getAppId, appId)
@@ -353,29 +378,24 @@ public class ChatHistoryServiceImpl extends ServiceImpl<ChatHistoryMapper, ChatH
                     .limit(1, maxCount);
             List<ChatHistory> historyList = this.list(queryWrapper);
             if (CollUtil.isEmpty(historyList)) {
-                return 0;
+                return new ArrayList<>();
             }
             // 反转列表，确保按时间正序（老的在前，新的在后）
             historyList = historyList.reversed();
-            // 按时间顺序添加到记忆中
-            int loadedCount = 0;
-            // 先清理历史缓存，防止重复加载
-            chatMemory.clear();
+            List<ChatMessage> messages = new ArrayList<>(historyList.size());
             for (ChatHistory history : historyList) {
                 if (MessageTypeEnum.USER.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(UserMessage.from(history.getMessage()));
-                    loadedCount++;
+                    messages.add(UserMessage.from(history.getMessage()));
                 } else if (MessageTypeEnum.AI.getValue().equals(history.getMessageType())) {
-                    chatMemory.add(AiMessage.from(history.getMessage()));
-                    loadedCount++;
+                    messages.add(AiMessage.from(history.getMessage()));
                 }
             }
-            log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, loadedCount);
-            return loadedCount;
+            log.info("成功为 appId: {} 加载了 {} 条历史对话", appId, messages.size());
+            return messages;
         } catch (Exception e) {
             log.error("加载历史对话失败，appId: {}, error: {}", appId, e.getMessage(), e);
             // 加载失败不影响系统运行，只是没有历史上下文
-            return 0;
+            return new ArrayList<>();
         }
     }
 
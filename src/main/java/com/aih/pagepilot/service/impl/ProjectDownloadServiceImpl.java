@@ -40,7 +40,8 @@ public class ProjectDownloadServiceImpl implements ProjectDownloadService {
             "target",
             ".mvn",
             ".idea",
-            ".vscode"
+            ".vscode",
+            ".page-pilot-dist.json"
     );
 
     /**
@@ -13,6 +13,7 @@ import dev.langchain4j.model.chat.request.ChatRequestParameters;
 import dev.langchain4j.model.chat.request.DefaultChatRequestParameters;
 import dev.langchain4j.model.chat.response.ChatResponse;
 import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
 
 import java.util.List;
 import java.util.Map;
@@ -48,6 +49,11 @@ public interface StreamingChatModel {
 
         StreamingChatResponseHandler observingHandler = new StreamingChatResponseHandler() {
 
+            @Override
+            public void onStreamingStart(StreamingHandle streamingHandle) {
+                handler.onStreamingStart(streamingHandle);
+            }
+
             @Override
             public void onPartialResponse(String partialResponse) {
                 handler.onPartialResponse(partialResponse);
@@ -12,6 +12,16 @@ import dev.langchain4j.model.chat.response.ChatResponse;
  */
 public interface StreamingChatResponseHandler {
 
+    /**
+     * Invoked once before the request is sent. The handle can be used to cancel the request
+     * and stop reading the response, e.g. when the consumer of the stream goes away.
+     * Models that do not support cancellation never invoke this method.
+     *
+     * @param streamingHandle The handle of this request.
+     */
+    default void onStreamingStart(StreamingHandle streamingHandle) {
+    }
+
     /**
      * Invoked each time the model generates a partial response (usually a single token) in a textual response.
      * If the model decides to execute a tool instead, this method will not be invoked;
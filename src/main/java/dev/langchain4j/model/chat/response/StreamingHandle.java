@@ -0,0 +1,23 @@
+package dev.langchain4j.model.chat.response;
+
+import dev.langchain4j.model.chat.StreamingChatModel;
+
+/**
+ * A handle to an in-flight streaming request of a {@link StreamingChatModel}.
+ * It is passed to {@link StreamingChatResponseHandler#onStreamingStart(StreamingHandle)} before the request is sent.
+ *
+ * @see StreamingChatResponseHandler
+ */
+public interface StreamingHandle {
+
+    /**
+     * Stops reading the response and closes the connection.
+     * No callbacks of the {@link StreamingChatResponseHandler} are invoked after this method returns.
+     */
+    void cancel();
+
+    /**
+     * @return whether {@link #cancel()} has been called
+     */
+    boolean isCancelled();
+}
@@ -0,0 +1,174 @@
+package dev.langchain4j.model.openai;
+
+import dev.langchain4j.http.client.HttpClient;
+import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpRequest;
+import dev.langchain4j.http.client.SuccessfulHttpResponse;
+import dev.langchain4j.http.client.sse.ServerSentEvent;
+import dev.langchain4j.http.client.sse.ServerSentEventListener;
+import dev.langchain4j.http.client.sse.ServerSentEventParser;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+import java.time.Duration;
+
+import static dev.langchain4j.internal.ValidationUtils.ensureNotNull;
+
+/**
+ * Wraps an {@link HttpClientBuilder} so that streaming requests started by
+ * {@link OpenAiStreamingChatModel#doChat} can be cancelled through their {@link StreamingHandle}.
+ * <p>
+ * The thread parsing the response body registers itself with the handle of the request; cancelling the handle
+ * interrupts that thread, which closes the connection, and drops every event delivered afterwards.
+ * The handle of a request is passed from {@code doChat} to {@link #execute} on the calling thread,
+ * because {@code OpenAiClient} sends the request synchronously before returning.
+ */
+class InterruptibleHttpClientBuilder implements HttpClientBuilder {
+
+    private static final ThreadLocal<Handle> CURRENT_HANDLE = new ThreadLocal<>();
+
+    private final HttpClientBuilder delegate;
+
+    InterruptibleHttpClientBuilder(HttpClientBuilder delegate) {
+        this.delegate = ensureNotNull(delegate, "delegate");
+    }
+
+    /**
+     * Sends the streaming request(s) issued by {@code action} under the given handle.
+     */
+    static void withHandle(Handle handle, Runnable action) {
+        CURRENT_HANDLE.set(handle);
+        try {
+            action.run();
+        } finally {
+            CURRENT_HANDLE.remove();
+        }
+    }
+
+    @Override
+    public Duration connectTimeout() {
+        return delegate.connectTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder connectTimeout(Duration timeout) {
+        delegate.connectTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public Duration readTimeout() {
+        return delegate.readTimeout();
+    }
+
+    @Override
+    public HttpClientBuilder readTimeout(Duration timeout) {
+        delegate.readTimeout(timeout);
+        return this;
+    }
+
+    @Override
+    public HttpClient build() {
+        HttpClient client = delegate.build();
+        return new HttpClient() {
+
+            @Override
+            public SuccessfulHttpResponse execute(HttpRequest request) {
+                return client.execute(request);
+            }
+
+            @Override
+            public void execute(HttpRequest request, ServerSentEventParser parser, ServerSentEventListener listener) {
+                Handle handle = CURRENT_HANDLE.get();
+                if (handle == null) {
+                    client.execute(request, parser, listener);
+                    return;
+                }
+                client.execute(request, (inputStream, eventListener) -> {
+                    if (!handle.attach()) {
+                        // cancelled while waiting for the response: close it without reading
+                        return;
+                    }
+                    try {
+                        parser.parse(inputStream, eventListener);
+                    } finally {
+                        handle.detach();
+                    }
+                }, new CancellableListener(handle, listener));
+            }
+        };
+    }
+
+    /**
+     * The handle of one streaming request.
+     */
+    static class Handle implements StreamingHandle {
+
+        private boolean cancelled;
+
+        private Thread reader;
+
+        @Override
+        public synchronized void cancel() {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            if (reader != null) {
+                // interrupted under the lock: the reader cannot detach and move on to another task in between
+                reader.interrupt();
+            }
+        }
+
+        @Override
+        public synchronized boolean isCancelled() {
+            return cancelled;
+        }
+
+        private synchronized boolean attach() {
+            if (cancelled) {
+                return false;
+            }
+            reader = Thread.currentThread();
+            return true;
+        }
+
+        private synchronized void detach() {
+            reader = null;
+            if (cancelled) {
+                // do not leak the interrupt to the next task of a pooled thread
+                Thread.interrupted();
+            }
+        }
+    }
+
+    private record CancellableListener(Handle handle, ServerSentEventListener delegate) implements ServerSentEventListener {
+
+        @Override
+        public void onOpen(SuccessfulHttpResponse response) {
+            if (!handle.isCancelled()) {
+                delegate.onOpen(response);
+            }
+        }
+
+        @Override
+        public void onEvent(ServerSentEvent event) {
+            if (!handle.isCancelled()) {
+                delegate.onEvent(event);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!handle.isCancelled()) {
+                delegate.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onClose() {
+            if (!handle.isCancelled()) {
+                delegate.onClose();
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package dev.langchain4j.model.openai;
 
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.http.client.HttpClientBuilder;
+import dev.langchain4j.http.client.HttpClientBuilderLoader;
 import dev.langchain4j.internal.ExceptionMapper;
 import dev.langchain4j.internal.ToolExecutionRequestBuilder;
 import dev.langchain4j.model.ModelProvider;
@@ -55,7 +56,8 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
 
     public OpenAiStreamingChatModel(OpenAiStreamingChatModelBuilder builder) {
         this.client = OpenAiClient.builder()
-                .httpClientBuilder(builder.httpClientBuilder)
+                .httpClientBuilder(new InterruptibleHttpClientBuilder(builder.httpClientBuilder != null
+                        ? builder.httpClientBuilder : HttpClientBuilderLoader.loadHttpClientBuilder()))
                 .baseUrl(getOrDefault(builder.baseUrl, DEFAULT_OPENAI_URL))
                 .apiKey(builder.apiKey)
                 .organizationId(builder.organizationId)
@@ -133,7 +135,12 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
         dev.langchain4j.model.openai.OpenAiStreamingResponseBuilder openAiResponseBuilder = new OpenAiStreamingResponseBuilder();
         ToolExecutionRequestBuilder toolBuilder = new ToolExecutionRequestBuilder();
 
-        client.chatCompletion(openAiRequest)
+        InterruptibleHttpClientBuilder.Handle streamingHandle = new InterruptibleHttpClientBuilder.Handle();
+        handler.onStreamingStart(streamingHandle);
+        if (streamingHandle.isCancelled()) {
+            return;
+        }
+        InterruptibleHttpClientBuilder.withHandle(streamingHandle, () -> client.chatCompletion(openAiRequest)
                 .onPartialResponse(partialResponse -> {
                     openAiResponseBuilder.append(partialResponse);
                     handle(partialResponse, toolBuilder, handler);
@@ -157,7 +164,7 @@ public class OpenAiStreamingChatModel implements StreamingChatModel {
                     RuntimeException mappedException = ExceptionMapper.DEFAULT.mapException(throwable);
                     withLoggingExceptions(() -> handler.onError(mappedException));
                 })
-                .execute();
+                .execute());
     }
 
     private static void handle(ChatCompletionResponse partialResponse,
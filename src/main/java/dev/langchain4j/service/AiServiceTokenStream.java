@@ -35,6 +35,7 @@ public class AiServiceTokenStream implements dev.langchain4j.service.TokenStream
     private final Object memoryId;
     private final GuardrailRequestParams commonGuardrailParams;
     private final Object methodKey;
+    private final TokenStreamCancellation cancellation = new TokenStreamCancellation();
 
     private Consumer<String> partialResponseHandler;
     private Consumer<List<Content>> contentsHandler;
@@ -123,6 +124,11 @@ public class AiServiceTokenStream implements dev.langchain4j.service.TokenStream
         return this;
     }
 
+    @Override
+    public void cancel() {
+        cancellation.cancel();
+    }
+
     @Override
     public void start() {
         validateConfiguration();
@@ -152,7 +158,8 @@ public class AiServiceTokenStream implements dev.langchain4j.service.TokenStream
                 toolSpecifications,
                 toolExecutors,
                 commonGuardrailParams,
-                methodKey);
+                methodKey,
+                cancellation);
 
         if (contentsHandler != null && retrievedContents != null) {
             contentsHandler.accept(retrievedContents);
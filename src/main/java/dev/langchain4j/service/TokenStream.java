@@ -80,4 +80,13 @@ public interface TokenStream {
      * Will send a request to LLM and start response streaming.
      */
     void start();
+
+    /**
+     * Cancels the stream: partial responses are no longer delivered, pending tool executions are skipped
+     * and no follow-up request is sent to the LLM. The in-flight request stops reading its response
+     * if the model supports it (see {@link dev.langchain4j.model.chat.response.StreamingHandle}),
+     * otherwise its response is drained and dropped.
+     */
+    default void cancel() {
+    }
 }
@@ -0,0 +1,49 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.Internal;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+
+/**
+ * Cancellation state of one {@link TokenStream}, shared by the handlers of every request in its tool loop.
+ * Keeps the {@link StreamingHandle} of the in-flight request so that cancelling the stream also stops
+ * reading the response of that request.
+ */
+@Internal
+class TokenStreamCancellation {
+
+    private boolean cancelled;
+
+    private StreamingHandle inFlight;
+
+    /**
+     * Registers the handle of a newly started request; cancels it right away if the stream is already cancelled.
+     */
+    void register(StreamingHandle streamingHandle) {
+        synchronized (this) {
+            if (!cancelled) {
+                inFlight = streamingHandle;
+                return;
+            }
+        }
+        streamingHandle.cancel();
+    }
+
+    void cancel() {
+        StreamingHandle current;
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+            cancelled = true;
+            current = inFlight;
+            inFlight = null;
+        }
+        if (current != null) {
+            current.cancel();
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return cancelled;
+    }
+}
@@ -0,0 +1,76 @@
+package com.aih.pagepilot.ai;
+
+import com.aih.pagepilot.ai.guardrail.PromptSafetyInputGuardrail;
+import com.aih.pagepilot.ai.tools.FileDeleteTool;
+import com.aih.pagepilot.ai.tools.FileDirReadTool;
+import com.aih.pagepilot.ai.tools.FileModifyTool;
+import com.aih.pagepilot.ai.tools.FileReadTool;
+import com.aih.pagepilot.ai.tools.FileWriteTool;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.service.AiServices;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AI 服务工厂缓存未命中的开销：AiCodeGeneratorServiceFactory
+ * perAppService 为按应用创建完整 AiServices 代理（工具规格扫描、代理类、护轨），
+ * sharedServiceMemoryHandle 为共用服务后每个应用只需创建的对话记忆
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiCodeGeneratorServiceFactoryBenchmark {
+
+    private final StreamingChatModel streamingChatModel = new StreamingChatModel() {
+    };
+
+    private final InMemoryChatMemoryStore chatMemoryStore = new InMemoryChatMemoryStore();
+
+    private final Object[] tools = {
+            new FileWriteTool(), new FileReadTool(), new FileModifyTool(), new FileDirReadTool(), new FileDeleteTool()
+    };
+
+    private long appId;
+
+    @Benchmark
+    public AiCodeGeneratorService perAppService() {
+        MessageWindowChatMemory chatMemory = memoryHandle(++appId);
+        return AiServices.builder(AiCodeGeneratorService.class)
+                .streamingChatModel(streamingChatModel)
+                .chatMemoryProvider(memoryId -> chatMemory)
+                .tools(tools)
+                .hallucinatedToolNameStrategy(toolExecutionRequest -> ToolExecutionResultMessage.from(
+                        toolExecutionRequest, "Error: there is no tool called " + toolExecutionRequest.name()
+                ))
+                .inputGuardrails(new PromptSafetyInputGuardrail())
+                .build();
+    }
+
+    @Benchmark
+    public MessageWindowChatMemory sharedServiceMemoryHandle() {
+        return memoryHandle(++appId);
+    }
+
+    private MessageWindowChatMemory memoryHandle(long id) {
+        return MessageWindowChatMemory.builder()
+                .id(id)
+                .chatMemoryStore(chatMemoryStore)
+                .maxMessages(100)
+                .build();
+    }
+}
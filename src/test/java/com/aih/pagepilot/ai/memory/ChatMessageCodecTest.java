@@ -0,0 +1,46 @@
+package com.aih.pagepilot.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ImageContent;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.TextContent;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatMessageCodecTest {
+
+    @Test
+    void roundTripsEveryMessageType() {
+        String content = "<template><div>你好</div></template>\n".repeat(200);
+        List<ChatMessage> messages = List.of(
+                SystemMessage.from("系统提示"),
+                UserMessage.from("做一个页面"),
+                UserMessage.from("alice", "带名字的消息"),
+                UserMessage.from(TextContent.from("看图"), ImageContent.from("https://example.com/a.png")),
+                AiMessage.from("好的"),
+                AiMessage.from(List.of(ToolExecutionRequest.builder()
+                        .id("1")
+                        .name("writeFile")
+                        .arguments("{\"relativeFilePath\":\"src/App.vue\",\"content\":\"" + content.replace("\n", "\\n") + "\"}")
+                        .build())),
+                ToolExecutionResultMessage.from("1", "writeFile", "文件写入成功: src/App.vue"));
+        for (ChatMessage message : messages) {
+            assertEquals(message, ChatMessageCodec.decode(ChatMessageCodec.encode(message)));
+        }
+    }
+
+    @Test
+    void compressesLargeMessages() {
+        AiMessage message = AiMessage.from("<div class=\"card\">内容</div>\n".repeat(500));
+        byte[] encoded = ChatMessageCodec.encode(message);
+        assertTrue(encoded.length < message.text().length() / 4);
+    }
+}
@@ -0,0 +1,91 @@
+package com.aih.pagepilot.ai.memory;
+
+import cn.hutool.json.JSONUtil;
+import com.aih.pagepilot.benchmark.LlmFixtures;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ChatMessageSerializer;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对话记忆每次 add 写入 Redis 的字节数与编码耗时：HydratingChatMemoryStore
+ * jsonRewrite 为社区 RedisChatMemoryStore 的做法（整个窗口序列化为 JSON 重写），
+ * binaryAppend 为只编码并追加新增的一条消息。wireBytes 计数器为迭代内发送的总字节数，除以操作数即每次 add 的字节数。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HydratingChatMemoryStoreBenchmark {
+
+    /**
+     * 一次 Vue 工程生成的工具循环：每个文件一次写入调用与结果
+     */
+    private final List<ChatMessage> window = new ArrayList<>();
+
+    private ChatMessage added;
+
+    @Setup
+    public void setUp() {
+        String content = LlmFixtures.load(LlmFixtures.MULTI_FILE_RESPONSE);
+        window.add(UserMessage.from("做一个个人博客网站"));
+        for (int i = 0; i < 12; i++) {
+            String path = "src/components/Component" + i + ".vue";
+            window.add(AiMessage.from(List.of(ToolExecutionRequest.builder()
+                    .id(String.valueOf(i))
+                    .name("writeFile")
+                    .arguments("{\"relativeFilePath\":\"" + path + "\",\"content\":"
+                            + JSONUtil.quote(content) + "}")
+                    .build())));
+            window.add(ToolExecutionResultMessage.from(String.valueOf(i), "writeFile", "文件写入成功: " + path));
+        }
+        added = window.get(window.size() - 2);
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Wire {
+
+        public long wireBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            wireBytes = 0;
+        }
+    }
+
+    @Benchmark
+    public int jsonRewrite(Wire wire) {
+        byte[] bytes = ChatMessageSerializer.messagesToJson(window).getBytes(StandardCharsets.UTF_8);
+        wire.wireBytes += bytes.length;
+        return bytes.length;
+    }
+
+    @Benchmark
+    public int binaryAppend(Wire wire) {
+        byte[] bytes = ChatMessageCodec.encode(added);
+        wire.wireBytes += bytes.length;
+        return bytes.length;
+    }
+}
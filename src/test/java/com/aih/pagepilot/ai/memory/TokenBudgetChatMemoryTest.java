@@ -0,0 +1,90 @@
+package com.aih.pagepilot.ai.memory;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.store.memory.chat.InMemoryChatMemoryStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBudgetChatMemoryTest {
+
+    private static final String FILE_CONTENT = "<template><div>hello</div></template>\n".repeat(100);
+
+    @Test
+    void compactsToolPayloadsOfPreviousTurnsOnly() {
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 100_000, 1024, null);
+        memory.add(UserMessage.from("做一个页面"));
+        memory.add(AiMessage.from(List.of(writeFile("1", "src/App.vue"))));
+        memory.add(ToolExecutionResultMessage.from("1", "writeFile", "文件写入成功: src/App.vue"));
+        memory.add(AiMessage.from("[工具调用] 写入文件 src/App.vue\n```vue\n" + FILE_CONTENT + "```\n"));
+        // 本轮内容保持原样
+        assertTrue(memory.messages().get(1).toString().contains("hello"));
+
+        memory.add(UserMessage.from("把标题改成红色"));
+        List<ChatMessage> messages = memory.messages();
+        String arguments = ((AiMessage) messages.get(1)).toolExecutionRequests().get(0).arguments();
+        assertFalse(arguments.contains("hello"));
+        assertTrue(arguments.contains("src/App.vue content 已省略"));
+        // 最近一条带代码块的回复保持原样
+        assertTrue(((AiMessage) messages.get(3)).text().contains(FILE_CONTENT));
+
+        memory.add(AiMessage.from("[工具调用] 修改文件 src/App.vue\n```vue\n" + FILE_CONTENT + "```\n"));
+        memory.add(UserMessage.from("再加一个按钮"));
+        messages = memory.messages();
+        String text = ((AiMessage) messages.get(3)).text();
+        assertFalse(text.contains("hello"));
+        assertTrue(text.contains("代码 已省略"));
+        assertTrue(((AiMessage) messages.get(5)).text().contains(FILE_CONTENT));
+    }
+
+    @Test
+    void keepsLatestFullPageOfHtmlMemory() {
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 100_000, 1024, null);
+        String firstPage = "<!DOCTYPE html>\n" + "<div>first</div>\n".repeat(100);
+        String secondPage = "<!DOCTYPE html>\n" + "<div>second</div>\n".repeat(100);
+        memory.add(UserMessage.from("做一个页面"));
+        memory.add(AiMessage.from("```html\n" + firstPage + "```"));
+        memory.add(UserMessage.from("按钮改成蓝色"));
+        memory.add(AiMessage.from("```html\n" + secondPage + "```"));
+        memory.add(UserMessage.from("按钮改成红色"));
+
+        List<ChatMessage> messages = memory.messages();
+        // HTML 模式没有读取工具，压缩后仍保留最新的完整页面，更早的版本才被省略
+        assertTrue(((AiMessage) messages.get(1)).text().contains("代码 已省略"));
+        assertTrue(((AiMessage) messages.get(3)).text().contains(secondPage));
+    }
+
+    @Test
+    void evictsOldestTurnsWithTheirToolResults() {
+        TokenBudgetChatMemory memory = new TokenBudgetChatMemory(1L, new InMemoryChatMemoryStore(), 60, 1024, null);
+        memory.add(SystemMessage.from("系统提示"));
+        memory.add(UserMessage.from("第一轮需求"));
+        memory.add(AiMessage.from(List.of(writeFile("1", "a.txt"))));
+        memory.add(ToolExecutionResultMessage.from("1", "writeFile", "文件写入成功: a.txt"));
+        memory.add(UserMessage.from("第二轮需求"));
+
+        List<ChatMessage> messages = memory.messages();
+        assertInstanceOf(SystemMessage.class, messages.get(0));
+        assertEquals(UserMessage.from("第二轮需求"), messages.get(messages.size() - 1));
+        assertTrue(messages.stream().noneMatch(ToolExecutionResultMessage.class::isInstance));
+        assertTrue(TokenEstimator.estimate(messages) <= 60);
+    }
+
+    private static ToolExecutionRequest writeFile(String id, String path) {
+        return ToolExecutionRequest.builder()
+                .id(id)
+                .name("writeFile")
+                .arguments("{\"relativeFilePath\":\"" + path + "\",\"content\":\"" + FILE_CONTENT.replace("\n", "\\n") + "\"}")
+                .build();
+    }
+}
@@ -0,0 +1,46 @@
+package com.aih.pagepilot.benchmark;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 基准测试使用的模型输出样本，位于 {@code src/test/resources/fixtures/llm}
+ */
+public final class LlmFixtures {
+
+    /**
+     * HTML 单文件模式的完整回复
+     */
+    public static final String HTML_RESPONSE = "html-response.md";
+
+    /**
+     * 多文件模式的完整回复
+     */
+    public static final String MULTI_FILE_RESPONSE = "multi-file-response.md";
+
+    /**
+     * VUE_PROJECT 模式 TokenStream 转出的 JSON 消息，每行一条
+     */
+    public static final String VUE_PROJECT_STREAM = "vue-project-stream.jsonl";
+
+    private LlmFixtures() {
+    }
+
+    public static String load(String name) {
+        try (InputStream in = LlmFixtures.class.getResourceAsStream("/fixtures/llm/" + name)) {
+            if (in == null) {
+                throw new IllegalStateException("missing fixture: " + name);
+            }
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static List<String> loadLines(String name) {
+        return load(name).lines().filter(line -> !line.isBlank()).toList();
+    }
+}
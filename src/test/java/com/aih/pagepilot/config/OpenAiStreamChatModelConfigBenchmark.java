@@ -0,0 +1,106 @@
+package com.aih.pagepilot.config;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 流式读取执行器的并发容量：OpenAiStreamChatModelConfig.openAiStreamingChatModelTaskExecutor
+ * 每个流模拟逐块阻塞读取 SSE，一次提交 {@code streams} 个流，测量全部读完的耗时，
+ * 同时读取的最大流数以辅助计数器 peakConcurrentStreams 输出
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class OpenAiStreamChatModelConfigBenchmark {
+
+    private static final int CHUNKS_PER_STREAM = 20;
+
+    private static final long CHUNK_INTERVAL_MILLIS = 10;
+
+    @Param({"pool", "virtual"})
+    private String mode;
+
+    @Param({"300"})
+    private int streams;
+
+    private AsyncTaskExecutor executor;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        if ("virtual".equals(mode)) {
+            executor = OpenAiStreamChatModelConfig.virtualThreadExecutor(256);
+        } else {
+            ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+            pool.setCorePoolSize(6);
+            pool.initialize();
+            executor = pool;
+        }
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 每次迭代中同时读取的最大流数，随结果一起输出
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Concurrency {
+
+        public int peakConcurrentStreams;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            peakConcurrentStreams = 0;
+        }
+    }
+
+    @Benchmark
+    public void drainConcurrentStreams(Concurrency concurrency) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(streams);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < streams; i++) {
+            executor.execute(() -> {
+                peak.accumulateAndGet(active.incrementAndGet(), Math::max);
+                try {
+                    for (int chunk = 0; chunk < CHUNKS_PER_STREAM; chunk++) {
+                        Thread.sleep(CHUNK_INTERVAL_MILLIS);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    active.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        concurrency.peakConcurrentStreams = peak.get();
+    }
+}
@@ -0,0 +1,36 @@
+package com.aih.pagepilot.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAiStreamChatModelConfigTest {
+
+    @Test
+    void interruptedWhileWaitingStillRunsTaskSoItCanFail() throws Exception {
+        Semaphore permits = new Semaphore(0);
+        AtomicBoolean ranInterrupted = new AtomicBoolean();
+        Runnable decorated = OpenAiStreamChatModelConfig.limitConcurrency(permits)
+                .decorate(() -> ranInterrupted.set(Thread.currentThread().isInterrupted()));
+
+        Thread thread = Thread.ofVirtual().start(decorated);
+        // 等待信号量时被中断
+        while (!permits.hasQueuedThreads()) {
+            Thread.onSpinWait();
+        }
+        thread.interrupt();
+        thread.join(TimeUnit.SECONDS.toMillis(5));
+
+        assertFalse(thread.isAlive());
+        // 任务照常执行，带着中断标记，其阻塞读取会立即失败并通知回调
+        assertTrue(ranInterrupted.get());
+        // 没拿到的名额不归还
+        assertEquals(0, permits.availablePermits());
+    }
+}
@@ -0,0 +1,44 @@
+package com.aih.pagepilot.controller;
+
+import com.aih.pagepilot.ai.model.HtmlCodeResult;
+import com.aih.pagepilot.benchmark.LlmFixtures;
+import com.aih.pagepilot.core.parser.HtmlCodeParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 预览页面注入可视化编辑脚本：StaticResourceController.injectVisualEditorHook
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticResourceControllerBenchmark {
+
+    private final StaticResourceController controller = new StaticResourceController();
+
+    private String html;
+
+    @Setup
+    public void setUp() {
+        HtmlCodeResult result = new HtmlCodeParser().parseCode(LlmFixtures.load(LlmFixtures.HTML_RESPONSE));
+        html = result.getHtmlCode();
+    }
+
+    @Benchmark
+    public String injectVisualEditorHook() {
+        return controller.injectVisualEditorHook(html);
+    }
+}
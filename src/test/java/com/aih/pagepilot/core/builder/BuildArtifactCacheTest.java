@@ -0,0 +1,107 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildArtifactCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void sourceHashIgnoresBuildOutputAndDocs() throws IOException {
+        Path a = project("a");
+        Path b = project("b");
+        Files.createDirectories(b.resolve("node_modules/vue"));
+        Files.writeString(b.resolve("node_modules/vue/index.js"), "export default {}");
+        Files.createDirectories(b.resolve("dist"));
+        Files.writeString(b.resolve("dist/index.html"), "<html></html>");
+        Files.writeString(b.resolve("README.md"), "# b");
+        Files.writeString(b.resolve(BuildArtifactCache.MANIFEST_NAME), "{}");
+        BuildArtifactCache.Manifest empty = BuildArtifactCache.Manifest.EMPTY;
+        assertEquals(BuildArtifactCache.hashTree(a, empty).treeHash(), BuildArtifactCache.hashTree(b, empty).treeHash());
+
+        Files.writeString(b.resolve(".env"), "VITE_TITLE=b");
+        assertNotEquals(BuildArtifactCache.hashTree(a, empty).treeHash(), BuildArtifactCache.hashTree(b, empty).treeHash());
+    }
+
+    @Test
+    void reusesDigestsOfUnchangedFiles() throws IOException {
+        Path project = project("p");
+        Path app = project.resolve("src/App.vue");
+        Files.setLastModifiedTime(app, FileTime.fromMillis(System.currentTimeMillis() - 60_000));
+        BuildArtifactCache.Manifest first = BuildArtifactCache.hashTree(project, BuildArtifactCache.Manifest.EMPTY);
+        BuildArtifactCache.Manifest second = BuildArtifactCache.hashTree(project, first);
+        assertSame(first.files().get("src/App.vue"), second.files().get("src/App.vue"));
+        assertEquals(first.treeHash(), second.treeHash());
+
+        // 刚计算过哈希的文件：大小与修改时间都没变也重新读取
+        Files.writeString(app, "<template>b</template>");
+        BuildArtifactCache.Manifest fresh = BuildArtifactCache.hashTree(project, second);
+        FileTime modified = Files.getLastModifiedTime(app);
+        Files.writeString(app, "<template>c</template>");
+        Files.setLastModifiedTime(app, modified);
+        assertNotEquals(fresh.treeHash(), BuildArtifactCache.hashTree(project, fresh).treeHash());
+    }
+
+    @Test
+    void sharesArtifactBetweenIdenticalProjects() throws IOException {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setArtifactCacheDir(tempDir.resolve("store").toString());
+        BuildArtifactCache cache = new BuildArtifactCache(config);
+        Path first = project("first");
+        Path second = project("second");
+        String hash = cache.sourceHash(first.toFile());
+        assertEquals(hash, cache.sourceHash(second.toFile()));
+        assertFalse(cache.isCurrent(first.toFile(), hash));
+
+        Files.createDirectories(first.resolve("dist"));
+        Files.writeString(first.resolve("dist/index.html"), "<html>built</html>");
+        cache.save(first.toFile(), hash);
+        assertTrue(cache.isCurrent(first.toFile(), hash));
+        assertTrue(cache.contains(hash));
+
+        assertTrue(cache.restore(second.toFile(), hash));
+        assertTrue(cache.isCurrent(second.toFile(), hash));
+        assertEquals("<html>built</html>", Files.readString(second.resolve("dist/index.html")));
+
+        // 即将重新构建，现有 dist 不再算作最新
+        cache.invalidate(first.toFile());
+        assertFalse(cache.isCurrent(first.toFile(), hash));
+    }
+
+    @Test
+    void skipsSavingWhenSourceChangedDuringBuild() throws IOException {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setArtifactCacheDir(tempDir.resolve("store").toString());
+        BuildArtifactCache cache = new BuildArtifactCache(config);
+        Path project = project("p");
+        String hash = cache.sourceHash(project.toFile());
+        Files.createDirectories(project.resolve("dist"));
+        Files.writeString(project.resolve("src/main.js"), "import './style.css'");
+
+        cache.save(project.toFile(), hash);
+        assertFalse(cache.isCurrent(project.toFile(), hash));
+        assertFalse(cache.contains(hash));
+    }
+
+    private Path project(String name) throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve(name));
+        Files.writeString(dir.resolve("package.json"), "{\"dependencies\": {\"vue\": \"^3.5.0\"}}");
+        Files.createDirectories(dir.resolve("src"));
+        Files.writeString(dir.resolve("src/App.vue"), "<template>a</template>");
+        return dir;
+    }
+}
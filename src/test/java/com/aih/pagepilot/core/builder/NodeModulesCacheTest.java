@@ -0,0 +1,114 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NodeModulesCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void dependencyKeyIgnoresNameScriptsAndKeyOrder() throws IOException {
+        Path a = project("a", """
+                {"name": "vue_project_1", "scripts": {"build": "vite build"},
+                 "dependencies": {"vue": "^3.5.0", "vue-router": "^4.4.0"}}""");
+        Path b = project("b", """
+                {"name": "vue_project_2",
+                 "dependencies": {"vue-router": "^4.4.0", "vue": "^3.5.0"}}""");
+        Path c = project("c", """
+                {"name": "vue_project_3",
+                 "dependencies": {"vue": "^3.5.1", "vue-router": "^4.4.0"}}""");
+        assertEquals(NodeModulesCache.dependencyKey(a), NodeModulesCache.dependencyKey(b));
+        assertNotEquals(NodeModulesCache.dependencyKey(a), NodeModulesCache.dependencyKey(c));
+
+        Files.writeString(b.resolve("package-lock.json"), "{\"lockfileVersion\": 3}");
+        assertNotEquals(NodeModulesCache.dependencyKey(a), NodeModulesCache.dependencyKey(b));
+    }
+
+    @Test
+    void installsOncePerDependencySetAndLinksProjects() throws IOException {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setDependencyCacheDir(tempDir.resolve("store").toString());
+        NodeModulesCache cache = new NodeModulesCache(config);
+        AtomicInteger installs = new AtomicInteger();
+        NodeModulesCache.Installer installer = (directory, npmArgs) -> {
+            installs.incrementAndGet();
+            try {
+                Path pkg = Files.createDirectories(directory.toPath().resolve("node_modules/vue"));
+                Files.writeString(pkg.resolve("index.js"), "export default {}");
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        };
+        Path first = project("first", "{\"dependencies\": {\"vue\": \"^3.5.0\"}}");
+        Path second = project("second", "{\"name\": \"other\", \"dependencies\": {\"vue\": \"^3.5.0\"}}");
+
+        assertTrue(cache.link(first.toFile(), installer));
+        assertTrue(cache.link(second.toFile(), installer));
+        assertTrue(cache.link(second.toFile(), installer));
+        assertEquals(1, installs.get());
+        assertTrue(Files.isRegularFile(second.resolve("node_modules/vue/index.js")));
+
+        // 依赖变化后重新安装并改指新的缓存
+        Files.writeString(second.resolve("package.json"), "{\"dependencies\": {\"vue\": \"^3.6.0\"}}");
+        assertTrue(cache.link(second.toFile(), installer));
+        assertEquals(2, installs.get());
+        assertEquals(NodeModulesCache.dependencyKey(second),
+                Files.readString(second.resolve("node_modules").resolve(NodeModulesCache.KEY_MARKER)));
+        assertTrue(Files.isRegularFile(first.resolve("node_modules/vue/index.js")));
+    }
+
+    @Test
+    void evictionSkipsEntriesThatMayStillBeInUse() throws IOException {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setDependencyCacheDir(tempDir.resolve("store").toString());
+        // 配额极小，每次链接都会触发淘汰
+        config.setDependencyCacheMaxSize(DataSize.ofBytes(1));
+        NodeModulesCache cache = new NodeModulesCache(config);
+        NodeModulesCache.Installer installer = (directory, npmArgs) -> {
+            try {
+                Files.createDirectories(directory.toPath().resolve("node_modules/vue"));
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        };
+        Path first = project("first", "{\"dependencies\": {\"vue\": \"^3.5.0\"}}");
+        Path second = project("second", "{\"dependencies\": {\"vue\": \"^3.6.0\"}}");
+        Path third = project("third", "{\"dependencies\": {\"vue\": \"^3.7.0\"}}");
+        Path store = tempDir.resolve("store");
+
+        assertTrue(cache.link(first.toFile(), installer));
+        assertTrue(cache.link(second.toFile(), installer));
+        // 第一个工程刚链接过，可能还在构建或有常驻进程，超出配额也保留
+        assertTrue(Files.isDirectory(store.resolve(NodeModulesCache.dependencyKey(first))));
+
+        config.setDeployBuildTimeout(Duration.ZERO);
+        config.setWarmIdleTimeout(Duration.ZERO);
+        assertTrue(cache.link(third.toFile(), installer));
+        assertFalse(Files.exists(store.resolve(NodeModulesCache.dependencyKey(first))));
+        assertFalse(Files.exists(store.resolve(NodeModulesCache.dependencyKey(second))));
+        assertTrue(Files.isDirectory(store.resolve(NodeModulesCache.dependencyKey(third))));
+    }
+
+    private Path project(String name, String packageJson) throws IOException {
+        Path dir = Files.createDirectories(tempDir.resolve(name));
+        Files.writeString(dir.resolve("package.json"), packageJson);
+        return dir;
+    }
+}
@@ -0,0 +1,90 @@
+package com.aih.pagepilot.core.builder;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DisabledOnOs(OS.WINDOWS)
+class ProcessRunnerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final ProcessRunner processRunner = new ProcessRunner(meterRegistry);
+
+    @Test
+    void drainsOutputLargerThanPipeBuffer() {
+        AtomicInteger stdoutLines = new AtomicInteger();
+        AtomicInteger stderrLines = new AtomicInteger();
+        // 两个流各写出远超管道缓冲区（64KB）的内容
+        ProcessResult result = processRunner.run("build", tempDir.toFile(), List.of("sh", "-c",
+                        "i=0; while [ $i -lt 20000 ]; do echo \"out $i\"; echo \"err $i\" >&2; i=$((i+1)); done"),
+                Duration.ofSeconds(30),
+                (line, stderr) -> (stderr ? stderrLines : stdoutLines).incrementAndGet());
+
+        assertTrue(result.success());
+        assertEquals(20000, stdoutLines.get());
+        assertEquals(20000, stderrLines.get());
+        assertEquals(ProcessRunner.TAIL_LINES, result.tail().size());
+        // 两个流由各自的线程读取，尾部交错顺序不固定，但一定以某个流的最后一行结束
+        assertTrue(result.tail().contains("out 19999") || result.tail().contains("err 19999"));
+        assertNotNull(meterRegistry.find("page_pilot.vue_build.phase.wall")
+                .tags("phase", "build", "outcome", "success").timer());
+    }
+
+    @Test
+    void capturesTailOfFailedCommand() {
+        ProcessResult result = processRunner.run("install", tempDir.toFile(),
+                List.of("sh", "-c", "echo \"\u001B[31mnpm ERR! missing\u001B[0m\" >&2; exit 3"),
+                Duration.ofSeconds(30), ProcessRunner.LineListener.NONE);
+
+        assertFalse(result.success());
+        assertEquals(3, result.exitCode());
+        assertEquals(List.of("npm ERR! missing"), result.tail());
+    }
+
+    @Test
+    void killsProcessTreeOnTimeout() {
+        long start = System.nanoTime();
+        ProcessResult result = processRunner.run("build", tempDir.toFile(),
+                List.of("sh", "-c", "sleep 60 & echo started; wait"),
+                Duration.ofMillis(500), ProcessRunner.LineListener.NONE);
+
+        assertTrue(result.timedOut());
+        assertFalse(result.success());
+        // 后台的 sleep 持有输出管道，没有一起终止时要等读取超时才返回
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+        assertEquals(List.of("started"), result.tail());
+    }
+
+    @Test
+    void interruptTerminatesAndRestoresFlag() {
+        Thread waiter = Thread.currentThread();
+        Thread.ofVirtual().start(() -> {
+            try {
+                Thread.sleep(300);
+            } catch (InterruptedException ignored) {
+            }
+            waiter.interrupt();
+        });
+        ProcessResult result = processRunner.run("build", tempDir.toFile(), List.of("sleep", "60"),
+                Duration.ofSeconds(30), ProcessRunner.LineListener.NONE);
+
+        assertTrue(result.interrupted());
+        assertTrue(Thread.interrupted());
+    }
+}
@@ -0,0 +1,51 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.constant.AppConstant;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProjectChangeTrackerTest {
+
+    @Test
+    void firstBuildIsFullThenOnlyRecordedChangesCount() {
+        ProjectChangeTracker tracker = new ProjectChangeTracker();
+        long appId = 42L;
+        Path projectRoot = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR, "vue_project_" + appId);
+        String projectPath = projectRoot.toString();
+
+        ProjectChanges first = tracker.drain(projectPath);
+        assertFalse(first.complete());
+        assertTrue(first.hasRelevantChanges());
+
+        tracker.record(appId, projectRoot.resolve("src/components/Hero.vue"));
+        ProjectChanges second = tracker.drain(projectPath);
+        assertEquals(Set.of("src/components/Hero.vue"), second.paths());
+        assertTrue(second.hasRelevantChanges());
+        assertFalse(second.requiresRestart());
+
+        // 构建失败时放回，下次构建仍能看到
+        tracker.restore(projectPath, second);
+        tracker.record(appId, projectRoot.resolve("README.md"));
+        ProjectChanges third = tracker.drain(projectPath);
+        assertEquals(Set.of("src/components/Hero.vue", "README.md"), third.paths());
+
+        assertFalse(tracker.drain(projectPath).hasRelevantChanges());
+    }
+
+    @Test
+    void classifiesChanges() {
+        long now = System.currentTimeMillis();
+        assertFalse(new ProjectChanges(Set.of("README.md", "dist/index.html"), now, true).hasRelevantChanges());
+        assertTrue(new ProjectChanges(Set.of("package.json"), now, true).requiresDependencyInstall());
+        assertTrue(new ProjectChanges(Set.of("vite.config.ts"), now, true).requiresRestart());
+        assertTrue(new ProjectChanges(Set.of("public/logo.svg"), now, true).requiresRestart());
+        assertFalse(new ProjectChanges(Set.of("src/views/tsconfig.vue"), now, true).requiresRestart());
+    }
+}
@@ -0,0 +1,130 @@
+package com.aih.pagepilot.core.builder;
+
+import com.aih.pagepilot.config.VueBuildConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class VueBuildSchedulerTest {
+
+    @Test
+    void supersededBuildIsCancelledAndWaitersGetTheLatestResult() throws Exception {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setBuildSlots(1);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch requestsSubmitted = new CountDownLatch(1);
+        VueBuildScheduler scheduler = new VueBuildScheduler(config, path -> {
+            if (builds.incrementAndGet() == 1) {
+                firstStarted.countDown();
+                try {
+                    // 模拟耗时的 npm 构建，只能被中断结束
+                    Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+                } catch (InterruptedException e) {
+                    // 两次请求都提交后再结束，否则后续构建可能在第三次请求前就已开始
+                    awaitQuietly(requestsSubmitted);
+                    return false;
+                }
+            }
+            return true;
+        });
+
+        CompletableFuture<Boolean> first = scheduler.submit("/tmp/vue_project_1");
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        assertEquals(VueBuildStatus.BUILDING, scheduler.status("/tmp/vue_project_1").status());
+        // 构建中的两次新请求合并为一次后续构建，并取消进行中的构建
+        CompletableFuture<Boolean> second = scheduler.submit("/tmp/vue_project_1");
+        CompletableFuture<Boolean> third = scheduler.submit("/tmp/../tmp/vue_project_1");
+        requestsSubmitted.countDown();
+        assertSame(second, third);
+
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, builds.get());
+        assertEquals(VueBuildStatus.SUCCEEDED, scheduler.status("/tmp/vue_project_1").status());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void awaitBuildJoinsRunningBuildInsteadOfStartingAnother() throws Exception {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setBuildSlots(1);
+        AtomicInteger builds = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        VueBuildScheduler scheduler = new VueBuildScheduler(config, path -> {
+            builds.incrementAndGet();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        });
+
+        CompletableFuture<Boolean> submitted = scheduler.submit("/tmp/vue_project_2");
+        CompletableFuture<Boolean> awaited = scheduler.awaitBuild("/tmp/vue_project_2");
+        assertSame(submitted, awaited);
+        release.countDown();
+        assertTrue(awaited.get(5, TimeUnit.SECONDS));
+        assertEquals(1, builds.get());
+        scheduler.shutdown();
+    }
+
+    @Test
+    void warmProcessesShareBuildSlots() throws Exception {
+        VueBuildConfig config = new VueBuildConfig();
+        config.setBuildSlots(2);
+        BuildSlots slots = new BuildSlots(config);
+        // 两个常驻进程占满名额，其中一个空闲可回收
+        assertTrue(slots.tryAcquire());
+        assertTrue(slots.tryAcquire());
+        AtomicInteger reclaimable = new AtomicInteger(1);
+        slots.onReclaim(() -> {
+            if (reclaimable.getAndDecrement() > 0) {
+                slots.release();
+                return true;
+            }
+            return false;
+        });
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger builds = new AtomicInteger();
+        VueBuildScheduler scheduler = new VueBuildScheduler(config, path -> {
+            builds.incrementAndGet();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }, slots);
+
+        // 第一个构建回收空闲进程的名额后开始
+        CompletableFuture<Boolean> first = scheduler.submit("/tmp/vue_project_3");
+        // 第二个构建没有可回收的进程，等到有名额归还才开始
+        CompletableFuture<Boolean> second = scheduler.submit("/tmp/vue_project_4");
+        Thread.sleep(500);
+        assertEquals(1, builds.get());
+        assertEquals(0, slots.available());
+        // 另一个常驻进程停止，归还名额
+        slots.release();
+        release.countDown();
+        assertTrue(first.get(5, TimeUnit.SECONDS));
+        assertTrue(second.get(5, TimeUnit.SECONDS));
+        assertEquals(2, builds.get());
+        assertEquals(2, slots.available());
+        scheduler.shutdown();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.aih.pagepilot.core.generation;
+
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.config.GenerationConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GenerationSchedulerTest {
+
+    @Test
+    void highPriorityFirstThenRoundRobinAcrossUsers() {
+        GenerationConfig config = new GenerationConfig();
+        config.setModelConcurrency(Map.of("openAiStreamingChatModel", 1));
+        GenerationScheduler scheduler = new GenerationScheduler(config, new SimpleMeterRegistry());
+        List<String> started = new CopyOnWriteArrayList<>();
+        List<Sinks.Empty<Void>> running = new ArrayList<>();
+
+        // 用户 1 占住唯一的名额，随后用户 1 连续排两次，用户 2 排一次，管理员用户 3 最后排
+        submit(scheduler, started, running, "1-a", 1L, GenerationPriority.NORMAL, new int[1]);
+        int[] positionOf1b = new int[1];
+        submit(scheduler, started, running, "1-b", 1L, GenerationPriority.NORMAL, positionOf1b);
+        submit(scheduler, started, running, "1-c", 1L, GenerationPriority.NORMAL, new int[1]);
+        submit(scheduler, started, running, "2-a", 2L, GenerationPriority.NORMAL, new int[1]);
+        submit(scheduler, started, running, "3-a", 3L, GenerationPriority.HIGH, new int[1]);
+        assertEquals(List.of("1-a"), started);
+        // 高优先级插到最前，用户 1 的第一条排在第二位
+        assertEquals(2, positionOf1b[0]);
+
+        for (int i = 0; i < 4; i++) {
+            running.get(i).tryEmitEmpty();
+        }
+        assertEquals(List.of("1-a", "3-a", "1-b", "2-a", "1-c"), started);
+    }
+
+    private static void submit(GenerationScheduler scheduler, List<String> started, List<Sinks.Empty<Void>> running,
+                               String name, long userId, GenerationPriority priority, int[] position) {
+        Sinks.Empty<Void> done = Sinks.empty();
+        Flux<String> generation = Flux.defer(() -> {
+            started.add(name);
+            running.add(done);
+            return done.asMono().thenMany(Flux.just(name));
+        });
+        scheduler.schedule(CodeGenTypeEnum.HTML, userId, priority, generation, p -> position[0] = p).subscribe();
+    }
+}
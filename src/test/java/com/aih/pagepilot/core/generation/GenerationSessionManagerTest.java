@@ -0,0 +1,119 @@
+package com.aih.pagepilot.core.generation;
+
+import com.aih.pagepilot.config.GenerationConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class GenerationSessionManagerTest {
+
+    private final InMemoryLease lease = new InMemoryLease();
+
+    private final GenerationConfig generationConfig = new GenerationConfig();
+
+    private final GenerationSessionManager manager = new GenerationSessionManager();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(manager, "generationLease", lease);
+        ReflectionTestUtils.setField(manager, "generationConfig", generationConfig);
+    }
+
+    @Test
+    void queuedSessionDoesNotReplaceRunningOne() {
+        generationConfig.setConflictPolicy(GenerationConflictPolicy.QUEUE);
+        Sinks.Many<String> firstSource = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.Many<String> secondSource = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession first = manager.start(1L, 1L, session -> firstSource.asFlux());
+        GenerationSession second = manager.start(1L, 1L, session -> secondSource.asFlux());
+
+        // 排队中的会话不影响连接与取消进行中的会话
+        assertSame(first, manager.getRunning(1L));
+        assertEquals(1, lease.keepAlives.get());
+        manager.cancel(1L);
+        assertEquals(GenerationSession.Status.CANCELLED, first.getStatus());
+        assertEquals(GenerationSession.Status.RUNNING, second.getStatus());
+
+        // 前一次结束后排队的会话拿到租约，登记为进行中
+        assertSame(second, manager.getRunning(1L));
+        assertEquals(second.getGenerationId(), lease.holders.get(1L));
+        assertEquals(2, lease.keepAlives.get());
+        secondSource.tryEmitComplete();
+        assertNull(manager.getRunning(1L));
+        assertNull(lease.holders.get(1L));
+        assertEquals(0, lease.activeKeepAlives.get());
+    }
+
+    @Test
+    void cancelPreviousCancelsRunningAndQueuedSessions() {
+        generationConfig.setConflictPolicy(GenerationConflictPolicy.QUEUE);
+        Sinks.Many<String> source = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession first = manager.start(1L, 1L, session -> Sinks.many().unicast().<String>onBackpressureBuffer().asFlux());
+        GenerationSession queued = manager.start(1L, 1L, session -> Sinks.many().unicast().<String>onBackpressureBuffer().asFlux());
+
+        generationConfig.setConflictPolicy(GenerationConflictPolicy.CANCEL_PREVIOUS);
+        GenerationSession latest = manager.start(1L, 1L, session -> source.asFlux());
+
+        assertEquals(GenerationSession.Status.CANCELLED, first.getStatus());
+        assertEquals(GenerationSession.Status.CANCELLED, queued.getStatus());
+        assertSame(latest, manager.getRunning(1L));
+        assertEquals(latest.getGenerationId(), lease.holders.get(1L));
+        assertEquals(1, lease.activeKeepAlives.get());
+    }
+
+    /**
+     * 不依赖 Redis 的租约，释放时同步唤醒等待者
+     */
+    private static class InMemoryLease extends GenerationLease {
+
+        private final Map<Long, String> holders = new ConcurrentHashMap<>();
+
+        private final AtomicInteger keepAlives = new AtomicInteger();
+
+        private final AtomicInteger activeKeepAlives = new AtomicInteger();
+
+        @Override
+        public boolean tryAcquire(long appId, String generationId) {
+            return holders.putIfAbsent(appId, generationId) == null;
+        }
+
+        private final Sinks.Many<Long> released = Sinks.many().multicast().directBestEffort();
+
+        @Override
+        public Mono<Void> awaitAcquire(long appId, String generationId) {
+            // 租约被释放时重试
+            return Mono.defer(() -> tryAcquire(appId, generationId) ? Mono.empty()
+                    : released.asFlux().filter(id -> id == appId).next()
+                    .then(awaitAcquire(appId, generationId)));
+        }
+
+        @Override
+        public Disposable keepAlive(long appId, String generationId) {
+            keepAlives.incrementAndGet();
+            activeKeepAlives.incrementAndGet();
+            return activeKeepAlives::decrementAndGet;
+        }
+
+        @Override
+        public void release(long appId, String generationId) {
+            if (holders.remove(appId, generationId)) {
+                released.tryEmitNext(appId);
+            }
+        }
+
+        @Override
+        public void requestCancel(long appId, String requesterGenerationId) {
+        }
+    }
+}
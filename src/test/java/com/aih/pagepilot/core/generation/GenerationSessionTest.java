@@ -0,0 +1,86 @@
+package com.aih.pagepilot.core.generation;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class GenerationSessionTest {
+
+    private static final Duration GRACE = Duration.ofSeconds(30);
+
+    @Test
+    void replaysMissedTailThenFollowsLiveOutput() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("1", 1L, 1L, 3, GRACE);
+        session.start(upstream.asFlux());
+        for (String chunk : List.of("a", "b", "c", "d")) {
+            upstream.tryEmitNext(chunk);
+        }
+        // 客户端收到 2 号事件后断线重连，缓冲区保留了最近 3 个事件
+        CompletableFuture<List<String>> resumed = session.attach(2)
+                .map(GenerationEvent::getData)
+                .collectList()
+                .toFuture();
+        upstream.tryEmitNext("e");
+        upstream.tryEmitComplete();
+
+        assertEquals(List.of("c", "d", "e"), resumed.join());
+        assertEquals(GenerationSession.Status.COMPLETED, session.getStatus());
+        // 结束后仍可取回尾部内容
+        assertEquals(List.of(5L), session.attach(4).map(GenerationEvent::getSeq).collectList().block());
+    }
+
+    @Test
+    void fansOutOneUpstreamToEveryViewer() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("2", 1L, 1L, 16, GRACE);
+        session.start(upstream.asFlux());
+        upstream.tryEmitNext("a");
+        CompletableFuture<List<String>> owner = session.attach(0).map(GenerationEvent::getData).collectList().toFuture();
+        upstream.tryEmitNext("b");
+        // 后加入的旁观者从头补发
+        CompletableFuture<List<String>> viewer = session.attach(0).map(GenerationEvent::getData).collectList().toFuture();
+        assertEquals(2, session.getViewerCount());
+        upstream.tryEmitNext("c");
+        upstream.tryEmitComplete();
+
+        assertEquals(List.of("a", "b", "c"), owner.join());
+        assertEquals(List.of("a", "b", "c"), viewer.join());
+    }
+
+    @Test
+    void resetsInsteadOfReplayingAcrossAGap() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("3", 1L, 1L, 2, GRACE);
+        session.start(upstream.asFlux());
+        for (String chunk : List.of("a", "b", "c", "d")) {
+            upstream.tryEmitNext(chunk);
+        }
+        // 缓冲区只剩 3、4 号事件，收到 1 号后断线的客户端续接不上
+        List<GenerationEvent> resumed = session.attach(1).collectList().block();
+
+        assertEquals(1, resumed.size());
+        assertEquals(GenerationEvent.RESET_EVENT, resumed.get(0).getEvent());
+        assertEquals(0, session.getViewerCount());
+        // 能续接的客户端不受影响
+        assertEquals(List.of("c", "d"), session.attach(2).take(2).map(GenerationEvent::getData).collectList().block());
+        upstream.tryEmitComplete();
+    }
+
+    @Test
+    void cancelsWhenNobodyEverAttaches() {
+        Sinks.Many<String> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        GenerationSession session = new GenerationSession("4", 1L, 1L, 16, Duration.ofMillis(50));
+        session.start(upstream.asFlux());
+        upstream.tryEmitNext("a");
+
+        // 发起方的连接没有建立起来，宽限期后放弃生成
+        session.awaitTermination().block(Duration.ofSeconds(5));
+        assertEquals(GenerationSession.Status.CANCELLED, session.getStatus());
+    }
+}
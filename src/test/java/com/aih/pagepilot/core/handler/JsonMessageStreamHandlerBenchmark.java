@@ -0,0 +1,106 @@
+package com.aih.pagepilot.core.handler;
+
+import cn.hutool.core.util.ReflectUtil;
+import cn.hutool.json.JSONUtil;
+import com.aih.pagepilot.ai.model.message.AiResponseMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessageTypeEnum;
+import com.aih.pagepilot.ai.model.message.ToolExecutedMessage;
+import com.aih.pagepilot.ai.model.message.ToolRequestMessage;
+import com.aih.pagepilot.ai.tools.BaseTool;
+import com.aih.pagepilot.ai.tools.FileDeleteTool;
+import com.aih.pagepilot.ai.tools.FileDirReadTool;
+import com.aih.pagepilot.ai.tools.FileModifyTool;
+import com.aih.pagepilot.ai.tools.FileReadTool;
+import com.aih.pagepilot.ai.tools.FileWriteTool;
+import com.aih.pagepilot.ai.tools.ToolManager;
+import com.aih.pagepilot.benchmark.LlmFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VUE_PROJECT 流式消息处理：JsonMessageStreamHandler.handleStreamMessage
+ * 每次调用回放一整段录制的消息流，结果按单条消息折算；
+ * jsonRoundTrip 复现改造前每条消息的 JSON 序列化 + 两次反序列化，配合 -prof gc 对比单条消息的分配量
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonMessageStreamHandlerBenchmark {
+
+    /**
+     * 与 vue-project-stream.jsonl 的行数一致
+     */
+    private static final int CHUNK_COUNT = 212;
+
+    private final JsonMessageStreamHandler handler = new JsonMessageStreamHandler();
+
+    private List<StreamMessage> messages;
+
+    @Setup
+    public void setUp() {
+        List<String> chunks = LlmFixtures.loadLines(LlmFixtures.VUE_PROJECT_STREAM);
+        if (chunks.size() != CHUNK_COUNT) {
+            throw new IllegalStateException("fixture has " + chunks.size() + " chunks, expected " + CHUNK_COUNT);
+        }
+        messages = chunks.stream().map(JsonMessageStreamHandlerBenchmark::toMessage).toList();
+        ToolManager toolManager = new ToolManager();
+        ReflectUtil.setFieldValue(toolManager, "tools", new BaseTool[]{
+                new FileWriteTool(), new FileReadTool(), new FileModifyTool(), new FileDeleteTool(), new FileDirReadTool()
+        });
+        toolManager.initTools();
+        ReflectUtil.setFieldValue(handler, "toolManager", toolManager);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void handleStreamMessage(Blackhole blackhole) {
+        StringBuilder chatHistoryStringBuilder = new StringBuilder();
+        Set<String> seenToolIds = new HashSet<>();
+        for (StreamMessage message : messages) {
+            blackhole.consume(handler.handleStreamMessage(message, chatHistoryStringBuilder, seenToolIds));
+        }
+        blackhole.consume(chatHistoryStringBuilder.length());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_COUNT)
+    public void jsonRoundTrip(Blackhole blackhole) {
+        StringBuilder chatHistoryStringBuilder = new StringBuilder();
+        Set<String> seenToolIds = new HashSet<>();
+        for (StreamMessage message : messages) {
+            // 改造前：TokenStream 回调序列化一次，处理器先按基类、再按具体类型各反序列化一次
+            String chunk = JSONUtil.toJsonStr(message);
+            StreamMessage parsed = toMessage(chunk);
+            blackhole.consume(handler.handleStreamMessage(parsed, chatHistoryStringBuilder, seenToolIds));
+        }
+        blackhole.consume(chatHistoryStringBuilder.length());
+    }
+
+    private static StreamMessage toMessage(String chunk) {
+        String type = JSONUtil.parseObj(chunk).getStr("type");
+        return switch (StreamMessageTypeEnum.getEnumByValue(type)) {
+            case AI_RESPONSE -> JSONUtil.toBean(chunk, AiResponseMessage.class);
+            case TOOL_REQUEST -> JSONUtil.toBean(chunk, ToolRequestMessage.class);
+            case TOOL_EXECUTED -> JSONUtil.toBean(chunk, ToolExecutedMessage.class);
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.aih.pagepilot.core.handler;
+
+import com.aih.pagepilot.ai.model.message.AiResponseMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
+import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.model.entity.User;
+import com.aih.pagepilot.model.enums.MessageTypeEnum;
+import com.aih.pagepilot.service.ChatHistoryService;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SimpleTextStreamHandlerTest {
+
+    private final List<String> savedMessages = new CopyOnWriteArrayList<>();
+
+    private final ChatHistoryService chatHistoryService = (ChatHistoryService) Proxy.newProxyInstance(
+            ChatHistoryService.class.getClassLoader(), new Class<?>[]{ChatHistoryService.class},
+            (proxy, method, args) -> {
+                if ("addChatMessage".equals(method.getName())) {
+                    assertEquals(MessageTypeEnum.AI.getValue(), args[2]);
+                    savedMessages.add((String) args[1]);
+                    return true;
+                }
+                throw new UnsupportedOperationException(method.getName());
+            });
+
+    @Test
+    void cancelSavesPartialResponseWithMark() {
+        Sinks.Many<StreamMessage> upstream = Sinks.many().unicast().onBackpressureBuffer();
+        AtomicBoolean upstreamCancelled = new AtomicBoolean();
+        Flux<String> flux = new SimpleTextStreamHandler().handle(
+                upstream.asFlux().doOnCancel(() -> upstreamCancelled.set(true)),
+                chatHistoryService, 1L, User.builder().id(2L).build());
+        List<String> received = new CopyOnWriteArrayList<>();
+
+        var subscription = flux.subscribe(received::add);
+        upstream.tryEmitNext(new AiResponseMessage("<html>"));
+        upstream.tryEmitNext(new AiResponseMessage("<body>"));
+        subscription.dispose();
+
+        // 取消传递到上游（即模型流），已生成的部分带取消标记写入历史
+        assertTrue(upstreamCancelled.get());
+        assertEquals(List.of("<html>", "<body>"), received);
+        assertEquals(List.of("<html><body>" + AppConstant.GENERATION_CANCELLED_MARK), savedMessages);
+    }
+
+    @Test
+    void completeSavesFullResponse() {
+        new SimpleTextStreamHandler().handle(
+                        Flux.just(new AiResponseMessage("<html>"), new AiResponseMessage("</html>")),
+                        chatHistoryService, 1L, User.builder().id(2L).build())
+                .blockLast();
+
+        assertEquals(List.of("<html></html>"), savedMessages);
+    }
+}
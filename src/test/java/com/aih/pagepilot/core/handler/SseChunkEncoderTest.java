@@ -0,0 +1,45 @@
+package com.aih.pagepilot.core.handler;
+
+import cn.hutool.json.JSONUtil;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseChunkEncoderTest {
+
+    @Test
+    void encodesSameJsonAsMapWrapper() {
+        SseChunkEncoder encoder = new SseChunkEncoder();
+        String chunk = "<div class=\"a\">\\n\t中文 😀\u0001 </div>\n";
+        String json = encoder.encode(chunk).data();
+        assertEquals(chunk, JSONUtil.parseObj(json).getStr("data"));
+        assertEquals(JSONUtil.toJsonStr(Map.of("data", "plain")), encoder.encode("plain").data());
+        assertEquals(2, encoder.getFrameCount());
+    }
+
+    @Test
+    void coalescesTinyChunksInOrder() {
+        List<String> chunks = Flux.range(0, 300).map(String::valueOf).collectList().block();
+        List<String> frames = ChunkCoalescer.coalesce(Flux.fromIterable(chunks), Duration.ofMillis(20), 64,
+                ChunkCoalescer.STRING_BATCHING).collectList().block();
+        assertEquals(String.join("", chunks), String.join("", frames));
+        assertTrue(frames.size() < chunks.size() / 10);
+    }
+
+    @Test
+    void batchesByUtf8Bytes() {
+        String text = "a中é😀\u0001";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, ChunkCoalescer.utf8Length(text));
+        // 每个汉字 3 字节：攒够 9 字节即下发，不必等待
+        List<String> frames = ChunkCoalescer.coalesce(Flux.just("页", "面", "生", "成", "中", "了"),
+                Duration.ofMinutes(1), 9, ChunkCoalescer.STRING_BATCHING).collectList().block();
+        assertEquals(List.of("页面生", "成中了"), frames);
+    }
+}
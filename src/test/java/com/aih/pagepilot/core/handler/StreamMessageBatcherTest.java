@@ -0,0 +1,44 @@
+package com.aih.pagepilot.core.handler;
+
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.ai.model.message.AiResponseMessage;
+import com.aih.pagepilot.ai.model.message.StreamMessage;
+import com.aih.pagepilot.ai.model.message.ToolExecutedMessage;
+import com.aih.pagepilot.config.StreamBatchingConfig;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+class StreamMessageBatcherTest {
+
+    @Test
+    void mergesResponseDeltasAndPassesToolEventsThrough() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        StreamMessageBatcher batcher = new StreamMessageBatcher(new StreamBatchingConfig(), registry);
+        List<StreamMessage> origin = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            origin.add(new AiResponseMessage("ab"));
+        }
+        origin.add(new ToolExecutedMessage());
+        origin.add(new AiResponseMessage("cd"));
+
+        List<StreamMessage> batched = batcher.batch(Flux.fromIterable(origin), CodeGenTypeEnum.VUE_PROJECT)
+                .collectList().block();
+
+        assertEquals(3, batched.size());
+        assertEquals("ab".repeat(100), ((AiResponseMessage) batched.get(0)).getData());
+        assertInstanceOf(ToolExecutedMessage.class, batched.get(1));
+        assertEquals("cd", ((AiResponseMessage) batched.get(2)).getData());
+        DistributionSummary summary = registry.get("page_pilot.stream.batch.size")
+                .tag("codeGenType", CodeGenTypeEnum.VUE_PROJECT.getValue()).summary();
+        assertEquals(2, summary.count());
+        assertEquals(101, summary.totalAmount());
+    }
+}
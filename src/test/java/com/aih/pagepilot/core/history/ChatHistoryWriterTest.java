@@ -0,0 +1,90 @@
+package com.aih.pagepilot.core.history;
+
+import com.aih.pagepilot.config.ChatHistoryConfig;
+import com.aih.pagepilot.model.entity.ChatHistory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ChatHistoryWriterTest {
+
+    @Test
+    void writesInBatchesInSubmitOrder() {
+        ChatHistoryConfig config = new ChatHistoryConfig();
+        config.setBatchSize(4);
+        config.setMaxDelay(Duration.ofMillis(200));
+        List<List<ChatHistory>> batches = new CopyOnWriteArrayList<>();
+        ChatHistoryWriter writer = new ChatHistoryWriter(config, batches::add, new SimpleMeterRegistry());
+
+        for (int i = 0; i < 10; i++) {
+            writer.write(ChatHistory.builder().appId(1L + i % 2).message("m" + i).messageType("user").userId(1L).build());
+        }
+        assertTrue(writer.awaitWritten(1L, Duration.ofSeconds(5)));
+        assertTrue(writer.awaitWritten(2L, Duration.ofSeconds(5)));
+
+        List<String> written = batches.stream().flatMap(List::stream).map(ChatHistory::getMessage).toList();
+        assertEquals(List.of("m0", "m1", "m2", "m3", "m4", "m5", "m6", "m7", "m8", "m9"), written);
+        assertTrue(batches.size() < 10);
+        assertTrue(batches.stream().allMatch(batch -> batch.size() <= 4));
+        ChatHistory first = batches.get(0).get(0);
+        assertNotNull(first.getId());
+        assertNotNull(first.getCreateTime());
+        assertEquals(0, first.getIsDelete());
+        writer.shutdown();
+    }
+
+    @Test
+    void failedBatchIsRetriedRowByRow() {
+        ChatHistoryConfig config = new ChatHistoryConfig();
+        List<String> written = new CopyOnWriteArrayList<>();
+        ChatHistoryWriter writer = new ChatHistoryWriter(config, batch -> {
+            if (batch.stream().anyMatch(row -> "bad".equals(row.getMessage()))) {
+                throw new IllegalStateException("insert failed");
+            }
+            batch.forEach(row -> written.add(row.getMessage()));
+        }, new SimpleMeterRegistry());
+
+        writer.write(ChatHistory.builder().appId(1L).message("a").messageType("user").userId(1L).build());
+        writer.write(ChatHistory.builder().appId(1L).message("bad").messageType("ai").userId(1L).build());
+        writer.write(ChatHistory.builder().appId(1L).message("b").messageType("user").userId(1L).build());
+        assertTrue(writer.awaitWritten(1L, Duration.ofSeconds(5)));
+
+        assertEquals(List.of("a", "b"), written);
+        writer.shutdown();
+    }
+
+    @Test
+    void awaitsOnlyTheGivenApp() throws Exception {
+        ChatHistoryConfig config = new ChatHistoryConfig();
+        CountDownLatch insertStarted = new CountDownLatch(1);
+        CountDownLatch releaseInsert = new CountDownLatch(1);
+        ChatHistoryWriter writer = new ChatHistoryWriter(config, batch -> {
+            insertStarted.countDown();
+            try {
+                releaseInsert.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, new SimpleMeterRegistry());
+
+        writer.write(ChatHistory.builder().appId(1L).message("a").messageType("user").userId(1L).build());
+        assertTrue(insertStarted.await(5, TimeUnit.SECONDS));
+
+        // 应用 1 的写入卡住时，应用 2 没有待写入的消息，无需等待
+        assertTrue(writer.awaitWritten(2L, Duration.ofMillis(1)));
+        assertFalse(writer.awaitWritten(1L, Duration.ofMillis(50)));
+        releaseInsert.countDown();
+        assertTrue(writer.awaitWritten(1L, Duration.ofSeconds(5)));
+        writer.shutdown();
+    }
+}
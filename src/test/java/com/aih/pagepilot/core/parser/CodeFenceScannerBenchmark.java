@@ -0,0 +1,117 @@
+package com.aih.pagepilot.core.parser;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 多文件代码解析：单次围栏扫描 vs 原先按语言跑三遍惰性正则
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeFenceScannerBenchmark {
+
+    private static final Pattern HTML_CODE_PATTERN = Pattern.compile("```html\\s*\\n([\\s\\S]*?)```",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern CSS_CODE_PATTERN = Pattern.compile("```css\\s*\\n([\\s\\S]*?)```",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern JS_CODE_PATTERN = Pattern.compile("```(?:js|javascript)\\s*\\n([\\s\\S]*?)```",
+            Pattern.CASE_INSENSITIVE);
+
+    /**
+     * 响应大小：100 KB、1 MB
+     */
+    @Param({"102400", "1048576"})
+    public int size;
+
+    /**
+     * complete：三种代码块齐全；missingJs：没有 JS 代码块，正则需要扫到末尾才能确认
+     */
+    @Param({"complete", "missingJs"})
+    public String shape;
+
+    private String content;
+
+    private final MultiFileCodeParser parser = new MultiFileCodeParser();
+
+    @Setup
+    public void setUp() {
+        content = buildResponse(size, "complete".equals(shape));
+    }
+
+    @Benchmark
+    public void fenceScanner(Blackhole blackhole) {
+        blackhole.consume(parser.parseCode(content));
+    }
+
+    @Benchmark
+    public void regexThreePass(Blackhole blackhole) {
+        blackhole.consume(extract(content, HTML_CODE_PATTERN));
+        blackhole.consume(extract(content, CSS_CODE_PATTERN));
+        blackhole.consume(extract(content, JS_CODE_PATTERN));
+    }
+
+    private static String extract(String content, Pattern pattern) {
+        Matcher matcher = pattern.matcher(content);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+
+    /**
+     * 模拟模型输出：说明文字 + 大段 HTML + CSS + JS，HTML 中夹带行内反引号
+     */
+    static String buildResponse(int size, boolean withJs) {
+        StringBuilder sb = new StringBuilder(size + 1024);
+        sb.append("# 任务清单应用\n\n下面是完整的实现代码，使用 `localStorage` 保存数据：\n\n```html\n");
+        sb.append("<!DOCTYPE html>\n<html lang=\"zh-CN\">\n<body>\n");
+        int cssBudget = size / 5;
+        int jsBudget = withJs ? size / 5 : 0;
+        int htmlBudget = size - cssBudget - jsBudget;
+        int i = 0;
+        while (sb.length() < htmlBudget) {
+            sb.append("    <div class=\"card\" data-id=\"").append(i++)
+                    .append("\"><span>`code` 第 ").append(i).append(" 项</span></div>\n");
+        }
+        sb.append("</body>\n</html>\n```\n\n样式文件：\n\n```css\n");
+        int cssEnd = sb.length() + cssBudget;
+        while (sb.length() < cssEnd) {
+            sb.append(".card-").append(i++).append(" { margin: 4px; color: #333; }\n");
+        }
+        sb.append("```\n");
+        if (withJs) {
+            sb.append("\n脚本文件：\n\n```javascript\n");
+            int jsEnd = sb.length() + jsBudget;
+            while (sb.length() < jsEnd) {
+                sb.append("document.querySelector('.card-").append(i++).append("')?.classList.add(`done`);\n");
+            }
+            sb.append("```\n");
+        }
+        sb.append("\n希望对你有帮助！\n");
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CodeFenceScannerBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,62 @@
+package com.aih.pagepilot.core.parser;
+
+import com.aih.pagepilot.ai.model.MultiFileCodeResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CodeFenceScannerTest {
+
+    private static final String RESPONSE = """
+            说明里提到 ```html 不算围栏
+            ```html
+            <p>first</p>
+            ```
+              ```JavaScript title=app.js
+            let done = `ok`;
+            ```
+            ```css
+
+            ```
+            ```html
+            <p>the second one</p>
+            ```
+            ```js
+            truncated""";
+
+    @Test
+    void scansAllFencesInOnePass() {
+        List<CodeFence> fences = CodeFenceScanner.scan(RESPONSE);
+        assertEquals(5, fences.size());
+        assertEquals("html", fences.get(0).getLanguage());
+        assertEquals("<p>first</p>", fences.get(0).getCode());
+        assertEquals("js", fences.get(1).getLanguage());
+        assertEquals("let done = `ok`;", fences.get(1).getCode());
+        assertEquals("truncated", fences.get(4).getCode());
+        assertFalse(fences.get(4).isClosed());
+    }
+
+    @Test
+    void appliesDuplicateBlockPolicy() {
+        List<CodeFence> fences = CodeFenceScanner.scan(RESPONSE);
+        assertEquals("<p>first</p>", CodeFenceScanner.select(fences, "html", DuplicateBlockPolicy.FIRST));
+        assertEquals("<p>the second one</p>", CodeFenceScanner.select(fences, "html", DuplicateBlockPolicy.LARGEST));
+        assertEquals("<p>first</p>\n\n<p>the second one</p>",
+                CodeFenceScanner.select(fences, "html", DuplicateBlockPolicy.CONCATENATE));
+        // 空白代码块视为不存在
+        assertNull(CodeFenceScanner.select(fences, "css", DuplicateBlockPolicy.FIRST));
+    }
+
+    @Test
+    void multiFileParserMatchesFormerRegexResult() {
+        String content = CodeFenceScannerBenchmark.buildResponse(4096, true);
+        MultiFileCodeResult result = new MultiFileCodeParser().parseCode(content);
+        assertEquals(content.substring(content.indexOf("<!DOCTYPE"), content.indexOf("</html>") + 7), result.getHtmlCode());
+        assertEquals(".card", result.getCssCode().substring(0, 5));
+        assertEquals("document", result.getJsCode().substring(0, 8));
+    }
+}
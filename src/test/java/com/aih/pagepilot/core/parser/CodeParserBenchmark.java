@@ -0,0 +1,53 @@
+package com.aih.pagepilot.core.parser;
+
+import com.aih.pagepilot.ai.model.HtmlCodeResult;
+import com.aih.pagepilot.ai.model.MultiFileCodeResult;
+import com.aih.pagepilot.benchmark.LlmFixtures;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整回复解析：HtmlCodeParser、MultiFileCodeParser
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CodeParserBenchmark {
+
+    private final HtmlCodeParser htmlCodeParser = new HtmlCodeParser();
+
+    private final MultiFileCodeParser multiFileCodeParser = new MultiFileCodeParser();
+
+    private String htmlResponse;
+
+    private String multiFileResponse;
+
+    @Setup
+    public void setUp() {
+        htmlResponse = LlmFixtures.load(LlmFixtures.HTML_RESPONSE);
+        multiFileResponse = LlmFixtures.load(LlmFixtures.MULTI_FILE_RESPONSE);
+    }
+
+    @Benchmark
+    public HtmlCodeResult htmlParseCode() {
+        return htmlCodeParser.parseCode(htmlResponse);
+    }
+
+    @Benchmark
+    public MultiFileCodeResult multiFileParseCode() {
+        return multiFileCodeParser.parseCode(multiFileResponse);
+    }
+}
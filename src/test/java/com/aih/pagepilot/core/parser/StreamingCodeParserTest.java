@@ -0,0 +1,74 @@
+package com.aih.pagepilot.core.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingCodeParserTest {
+
+    private static final String RESPONSE = """
+            下面是完整的实现代码：
+
+            ```html
+            <!DOCTYPE html>
+            <html>
+            <body><h1>Hello</h1></body>
+            </html>
+            ```
+
+            ```css
+            h1 { color: red; }
+            ```
+
+            ```JavaScript
+            console.log('hi');
+            ```
+            希望对你有帮助
+            """;
+
+    @Test
+    void emitsEachBlockWhenItsFenceCloses() {
+        List<String> events = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> events.add(language + ":" + code));
+        // 一次喂 3 个字符，模拟模型的小片段输出
+        for (int i = 0; i < RESPONSE.length(); i += 3) {
+            parser.feed(RESPONSE.substring(i, Math.min(RESPONSE.length(), i + 3)));
+            if (i < RESPONSE.indexOf("```css")) {
+                assertTrue(events.size() <= 1);
+            }
+        }
+        parser.finish();
+        assertEquals(3, events.size());
+        assertEquals("html:<!DOCTYPE html>\n<html>\n<body><h1>Hello</h1></body>\n</html>", events.get(0));
+        assertEquals("css:h1 { color: red; }", events.get(1));
+        assertEquals("js:console.log('hi');", events.get(2));
+        assertTrue(parser.hasCodeBlock());
+        assertEquals(RESPONSE, parser.getContent());
+    }
+
+    @Test
+    void keepsFullContentWhenNoFenceAppears() {
+        List<String> events = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> events.add(language));
+        parser.feed("{\"htmlCode\": \"<h1>hi</h1>\",");
+        parser.feed(" \"description\": \"demo\"}");
+        parser.finish();
+        assertTrue(events.isEmpty());
+        assertFalse(parser.hasCodeBlock());
+        assertEquals("{\"htmlCode\": \"<h1>hi</h1>\", \"description\": \"demo\"}", parser.getContent());
+    }
+
+    @Test
+    void flushesUnclosedBlockOnFinish() {
+        List<String> events = new ArrayList<>();
+        StreamingCodeParser parser = new StreamingCodeParser((language, code) -> events.add(language + ":" + code));
+        parser.feed("```html\r\n<p>cut</p>\r\n<p>off");
+        parser.finish();
+        assertEquals(List.of("html:<p>cut</p>\n<p>off"), events);
+    }
+}
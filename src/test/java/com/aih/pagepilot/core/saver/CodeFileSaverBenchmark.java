@@ -0,0 +1,67 @@
+package com.aih.pagepilot.core.saver;
+
+import com.aih.pagepilot.ai.model.HtmlCodeResult;
+import com.aih.pagepilot.ai.model.MultiFileCodeResult;
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.benchmark.LlmFixtures;
+import com.aih.pagepilot.core.parser.CodeParserExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 解析结果落盘：CodeFileSaverExecutor.executeSaver（含版本目录创建与切换）
+ * 输出目录重定向到 target 下，避免污染本地生成目录
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Dapp.code.output.root=target/jmh/code_output")
+public class CodeFileSaverBenchmark {
+
+    private static final long APP_ID = 1L;
+
+    private HtmlCodeResult htmlCodeResult;
+
+    private MultiFileCodeResult multiFileCodeResult;
+
+    @Setup
+    public void setUp() {
+        htmlCodeResult = (HtmlCodeResult) CodeParserExecutor.executeParser(
+                LlmFixtures.load(LlmFixtures.HTML_RESPONSE), CodeGenTypeEnum.HTML);
+        multiFileCodeResult = (MultiFileCodeResult) CodeParserExecutor.executeParser(
+                LlmFixtures.load(LlmFixtures.MULTI_FILE_RESPONSE), CodeGenTypeEnum.MULTI_FILE);
+    }
+
+    /**
+     * 每轮结束清理历史版本，避免磁盘占用随迭代增长影响结果
+     */
+    @TearDown(Level.Iteration)
+    public void sweepVersions() {
+        CodeVersionManager.sweep(0);
+    }
+
+    @Benchmark
+    public File htmlExecuteSaver() {
+        return CodeFileSaverExecutor.executeSaver(htmlCodeResult, CodeGenTypeEnum.HTML, APP_ID);
+    }
+
+    @Benchmark
+    public File multiFileExecuteSaver() {
+        return CodeFileSaverExecutor.executeSaver(multiFileCodeResult, CodeGenTypeEnum.MULTI_FILE, APP_ID);
+    }
+}
@@ -0,0 +1,224 @@
+package com.aih.pagepilot.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.exception.BusinessException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CodeVersionManagerTest {
+
+    private static final Path OUTPUT_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR).toAbsolutePath().normalize();
+
+    private String dirName;
+
+    private Path live;
+
+    @BeforeEach
+    void setUp() {
+        dirName = "html_" + IdUtil.getSnowflakeNextIdStr();
+        live = OUTPUT_ROOT.resolve(dirName);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        CodeVersionManager.setSymlinkSupported(null);
+        if (Files.isSymbolicLink(live)) {
+            Files.delete(live);
+        } else {
+            FileUtil.del(live.toFile());
+        }
+        FileUtil.del(OUTPUT_ROOT.resolve(CodeVersionManager.VERSIONS_DIR_NAME).resolve(dirName).toFile());
+    }
+
+    @Test
+    void overlappingGenerationsKeepTheirOwnStaging() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        Path first = CodeVersionManager.beginVersion(dirName);
+        Path second = CodeVersionManager.beginVersion(dirName);
+        assertEquals(second, CodeVersionManager.getStagingDir(dirName));
+
+        // 后开始的生成结束后，先开始的那次仍在生成，预览回到它的暂存目录
+        CodeVersionManager.discard(dirName, second);
+        assertEquals(first, CodeVersionManager.getStagingDir(dirName));
+        // 重复丢弃不影响仍在生成的暂存目录
+        CodeVersionManager.discard(dirName, second);
+        assertEquals(first, CodeVersionManager.getStagingDir(dirName));
+
+        write(first, "index.html", "v1");
+        CodeVersionManager.publish(dirName, first);
+        assertNull(CodeVersionManager.getStagingDir(dirName));
+    }
+
+    @Test
+    void deleteVersionsRemovesLiveLinkAndVersions() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        publishVersion("v1");
+        publishVersion("v2");
+
+        CodeVersionManager.deleteVersions(dirName);
+
+        assertFalse(Files.exists(live, LinkOption.NOFOLLOW_LINKS));
+        assertFalse(Files.exists(OUTPUT_ROOT.resolve(CodeVersionManager.VERSIONS_DIR_NAME).resolve(dirName)));
+        assertTrue(CodeVersionManager.listVersions(dirName).isEmpty());
+    }
+
+    @Test
+    void publishSwitchesLiveLinkToNewVersion() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        Path staging = CodeVersionManager.beginVersion(dirName);
+        assertEquals(staging, CodeVersionManager.getStagingDir(dirName));
+        write(staging, "index.html", "v1");
+        // 发布前读不到暂存中的内容
+        assertFalse(Files.exists(live));
+
+        String first = CodeVersionManager.publish(dirName, staging);
+        assertNull(CodeVersionManager.getStagingDir(dirName));
+        assertFalse(Files.exists(staging));
+        assertTrue(Files.isSymbolicLink(live));
+        assertEquals(first, CodeVersionManager.getCurrentVersion(dirName));
+        assertEquals("v1", read(live, "index.html"));
+
+        // 新版本以当前版本为基础
+        Path next = CodeVersionManager.beginVersion(dirName);
+        assertEquals("v1", read(next, "index.html"));
+        write(next, "index.html", "v2");
+        assertEquals("v1", read(live, "index.html"));
+        String second = CodeVersionManager.publish(dirName, next);
+
+        assertEquals("v2", read(live, "index.html"));
+        assertEquals(List.of(second, first), CodeVersionManager.listVersions(dirName));
+    }
+
+    @Test
+    void discardKeepsCurrentVersion() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        Path staging = CodeVersionManager.beginVersion(dirName);
+        write(staging, "index.html", "v1");
+        String first = CodeVersionManager.publish(dirName, staging);
+
+        Path failed = CodeVersionManager.beginVersion(dirName);
+        write(failed, "index.html", "broken");
+        CodeVersionManager.discard(dirName, failed);
+
+        assertFalse(Files.exists(failed));
+        assertNull(CodeVersionManager.getStagingDir(dirName));
+        assertEquals(first, CodeVersionManager.getCurrentVersion(dirName));
+        assertEquals("v1", read(live, "index.html"));
+    }
+
+    @Test
+    void rollbackOnlySwitchesPointer() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        String first = publishVersion("v1");
+        String second = publishVersion("v2");
+        assertEquals(second, CodeVersionManager.getCurrentVersion(dirName));
+
+        CodeVersionManager.rollback(dirName, first);
+        assertEquals(first, CodeVersionManager.getCurrentVersion(dirName));
+        assertEquals("v1", read(live, "index.html"));
+        assertEquals(List.of(second, first), CodeVersionManager.listVersions(dirName));
+
+        assertThrows(BusinessException.class, () -> CodeVersionManager.rollback(dirName, "../" + first));
+        assertThrows(BusinessException.class, () -> CodeVersionManager.rollback(dirName, "1"));
+    }
+
+    @Test
+    void migratesLegacyDirectoryBeforeFirstVersion() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        write(live, "index.html", "legacy");
+
+        Path staging = CodeVersionManager.beginVersion(dirName);
+        assertTrue(Files.isSymbolicLink(live));
+        assertEquals(1, CodeVersionManager.listVersions(dirName).size());
+        assertEquals("legacy", read(staging, "index.html"));
+        CodeVersionManager.discard(dirName, staging);
+    }
+
+    @Test
+    void sweepKeepsCurrentAndRecentVersions() throws Exception {
+        CodeVersionManager.setSymlinkSupported(true);
+        String v1 = publishVersion("v1");
+        String v2 = publishVersion("v2");
+        String v3 = publishVersion("v3");
+        String v4 = publishVersion("v4");
+        CodeVersionManager.rollback(dirName, v1);
+        Path appDir = OUTPUT_ROOT.resolve(CodeVersionManager.VERSIONS_DIR_NAME).resolve(dirName);
+        Path abandoned = Files.createDirectories(appDir.resolve(IdUtil.getSnowflakeNextIdStr() + ".staging"));
+        Files.setLastModifiedTime(abandoned, FileTime.fromMillis(
+                System.currentTimeMillis() - TimeUnit.HOURS.toMillis(2)));
+        Path active = CodeVersionManager.beginVersion(dirName);
+
+        CodeVersionManager.sweep(2);
+
+        // 当前版本 v1 不计入保留数，保留最新的 v4、v3
+        assertEquals(List.of(v4, v3, v1), CodeVersionManager.listVersions(dirName));
+        assertFalse(Files.exists(appDir.resolve(v2)));
+        assertFalse(Files.exists(abandoned));
+        assertTrue(Files.isDirectory(active));
+        assertEquals("v1", read(live, "index.html"));
+        CodeVersionManager.discard(dirName, active);
+    }
+
+    @Test
+    void fallsBackToDirectoryReplaceWithoutSymlinks() throws Exception {
+        CodeVersionManager.setSymlinkSupported(false);
+        // 旧目录不迁移，直接作为新版本的基础
+        write(live, "index.html", "legacy");
+        Path staging = CodeVersionManager.beginVersion(dirName);
+        assertEquals("legacy", read(staging, "index.html"));
+        write(staging, "index.html", "v1");
+        write(staging, "style.css", "h1{}");
+        String first = CodeVersionManager.publish(dirName, staging);
+
+        assertFalse(Files.isSymbolicLink(live));
+        assertTrue(Files.isDirectory(live));
+        assertNull(CodeVersionManager.getCurrentVersion(dirName));
+        assertEquals("v1", read(live, "index.html"));
+        assertEquals("h1{}", read(live, "style.css"));
+
+        String second = publishVersion("v2");
+        assertEquals("v2", read(live, "index.html"));
+        CodeVersionManager.rollback(dirName, first);
+        assertEquals("v1", read(live, "index.html"));
+        assertEquals(List.of(second, first), CodeVersionManager.listVersions(dirName));
+        // 替换用的临时目录都已清理
+        try (Stream<Path> siblings = Files.list(OUTPUT_ROOT)) {
+            assertTrue(siblings.map(path -> path.getFileName().toString())
+                    .noneMatch(name -> name.startsWith(dirName + ".")));
+        }
+    }
+
+    private String publishVersion(String content) throws Exception {
+        Path staging = CodeVersionManager.beginVersion(dirName);
+        write(staging, "index.html", content);
+        return CodeVersionManager.publish(dirName, staging);
+    }
+
+    private static void write(Path dir, String name, String content) throws Exception {
+        Files.createDirectories(dir);
+        Files.writeString(dir.resolve(name), content, StandardCharsets.UTF_8);
+    }
+
+    private static String read(Path dir, String name) throws Exception {
+        return Files.readString(dir.resolve(name), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,55 @@
+package com.aih.pagepilot.core.saver;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IncrementalFileWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void commitReplacesTargetAtomically() throws Exception {
+        Path target = tempDir.resolve("index.html");
+        Files.writeString(target, "old", StandardCharsets.UTF_8);
+        IncrementalFileWriter writer = new IncrementalFileWriter(target);
+        writer.appendLine("<h1>new</h1>");
+        writer.flush();
+        Path partial = tempDir.resolve("index.html" + IncrementalFileWriter.PARTIAL_SUFFIX);
+        assertEquals("<h1>new</h1>\n", Files.readString(partial, StandardCharsets.UTF_8));
+        // 提交前正式文件仍是上一次的结果
+        assertEquals("old", Files.readString(target, StandardCharsets.UTF_8));
+
+        assertEquals(target, writer.commit());
+        assertFalse(Files.exists(partial));
+        assertEquals("<h1>new</h1>\n", Files.readString(target, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void abortAndBlankContentKeepPreviousFile() throws Exception {
+        Path target = tempDir.resolve("style.css");
+        Files.writeString(target, "h1{}", StandardCharsets.UTF_8);
+        Path partial = tempDir.resolve("style.css" + IncrementalFileWriter.PARTIAL_SUFFIX);
+
+        IncrementalFileWriter aborted = new IncrementalFileWriter(target);
+        aborted.appendLine("p{}");
+        aborted.abort();
+        assertFalse(Files.exists(partial));
+
+        IncrementalFileWriter blank = new IncrementalFileWriter(target);
+        blank.appendLine("  ");
+        assertNull(blank.commit());
+        assertFalse(Files.exists(partial));
+        assertTrue(Files.exists(target));
+        assertEquals("h1{}", Files.readString(target, StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,102 @@
+package com.aih.pagepilot.core.saver;
+
+import cn.hutool.core.io.FileUtil;
+import cn.hutool.core.util.IdUtil;
+import com.aih.pagepilot.ai.model.HtmlCodeResult;
+import com.aih.pagepilot.ai.model.enums.CodeGenTypeEnum;
+import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.core.parser.CodeParserExecutor;
+import com.aih.pagepilot.core.parser.DuplicateBlockPolicy;
+import com.aih.pagepilot.core.parser.StreamingCodeParser;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StreamingCodeFileSaverTest {
+
+    private static final Path OUTPUT_ROOT = Paths.get(AppConstant.CODE_OUTPUT_ROOT_DIR).toAbsolutePath().normalize();
+
+    private final Long appId = IdUtil.getSnowflakeNextId();
+
+    private final String dirName = CodeGenTypeEnum.HTML.getValue() + "_" + appId;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        Path live = OUTPUT_ROOT.resolve(dirName);
+        if (Files.isSymbolicLink(live)) {
+            Files.delete(live);
+        } else {
+            FileUtil.del(live.toFile());
+        }
+        FileUtil.del(OUTPUT_ROOT.resolve(CodeVersionManager.VERSIONS_DIR_NAME).resolve(dirName).toFile());
+    }
+
+    @Test
+    void publishesVersionWhenBlockSaved() throws Exception {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(CodeGenTypeEnum.HTML, appId);
+        StreamingCodeParser parser = new StreamingCodeParser(saver);
+        parser.feed("```html\n<h1>hi</h1>\n```\n");
+        parser.finish();
+
+        assertTrue(saver.complete());
+        assertEquals("<h1>hi</h1>", Files.readString(OUTPUT_ROOT.resolve(dirName).resolve("index.html"), StandardCharsets.UTF_8).strip());
+    }
+
+    @Test
+    void releasesRawContentOnceAFileIsOpened() {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(CodeGenTypeEnum.HTML, appId);
+        StreamingCodeParser parser = new StreamingCodeParser(saver);
+        parser.feed("说明文字\n");
+        assertEquals("说明文字\n", parser.getContent());
+        // 开始写 index.html 后不再保留第二份完整响应
+        parser.feed("```html\n<h1>");
+        assertNull(parser.getContent());
+        parser.feed("hi</h1>\n```\n");
+        parser.finish();
+
+        assertTrue(saver.complete());
+        assertNull(parser.getContent());
+    }
+
+    @Test
+    void appliesDuplicateBlockPolicyLikeFullParsing() throws Exception {
+        String response = "```html\n<p>first</p>\n```\n说明\n```html\n<p>the second one</p>\n```\n";
+        for (DuplicateBlockPolicy policy : DuplicateBlockPolicy.values()) {
+            StreamingCodeFileSaver saver = new StreamingCodeFileSaver(CodeGenTypeEnum.HTML, appId, policy);
+            StreamingCodeParser parser = new StreamingCodeParser(saver);
+            // 按小片段喂入，模拟流式输出
+            for (int i = 0; i < response.length(); i += 4) {
+                parser.feed(response.substring(i, Math.min(response.length(), i + 4)));
+            }
+            parser.finish();
+
+            assertTrue(saver.complete());
+            HtmlCodeResult expected = (HtmlCodeResult) CodeParserExecutor.executeParser(response, CodeGenTypeEnum.HTML, policy);
+            String saved = Files.readString(OUTPUT_ROOT.resolve(dirName).resolve("index.html"), StandardCharsets.UTF_8);
+            assertEquals(expected.getHtmlCode(), saved.strip(), policy.name());
+        }
+    }
+
+    @Test
+    void reportsNothingSavedForUnlabelledOrUnusedBlocks() {
+        StreamingCodeFileSaver saver = new StreamingCodeFileSaver(CodeGenTypeEnum.HTML, appId);
+        StreamingCodeParser parser = new StreamingCodeParser(saver);
+        // 无语言标识的代码块和 css 代码块都不会写出 index.html，调用方需回退到完整解析
+        parser.feed("```\n<h1>hi</h1>\n```\n```css\nh1 { color: red; }\n```\n");
+        parser.finish();
+
+        assertFalse(saver.complete());
+        assertFalse(Files.exists(OUTPUT_ROOT.resolve(dirName)));
+        // 兜底解析需要的原始内容仍在
+        assertTrue(parser.getContent().startsWith("```\n<h1>hi</h1>"));
+    }
+}
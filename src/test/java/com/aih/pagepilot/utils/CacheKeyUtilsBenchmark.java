@@ -0,0 +1,46 @@
+package com.aih.pagepilot.utils;
+
+import com.aih.pagepilot.constant.AppConstant;
+import com.aih.pagepilot.model.dto.AppQueryRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 精选应用列表缓存 key 生成：CacheKeyUtils.generateKey
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyUtilsBenchmark {
+
+    private AppQueryRequest appQueryRequest;
+
+    @Setup
+    public void setUp() {
+        // 与首页精选列表的查询参数一致
+        appQueryRequest = new AppQueryRequest();
+        appQueryRequest.setPageNum(1);
+        appQueryRequest.setPageSize(20);
+        appQueryRequest.setAppName("作品集");
+        appQueryRequest.setPriority(AppConstant.GOOD_APP_PRIORITY);
+        appQueryRequest.setSortField("createTime");
+    }
+
+    @Benchmark
+    public String generateKey() {
+        return CacheKeyUtils.generateKey(appQueryRequest);
+    }
+}
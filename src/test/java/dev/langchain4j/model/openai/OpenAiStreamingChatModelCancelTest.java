@@ -0,0 +1,112 @@
+package dev.langchain4j.model.openai;
+
+import com.aih.pagepilot.config.OpenAiStreamChatModelConfig;
+import com.sun.net.httpserver.HttpServer;
+import dev.langchain4j.http.client.spring.restclient.SpringRestClient;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OpenAiStreamingChatModelCancelTest {
+
+    private HttpServer server;
+
+    /**
+     * 服务端写入失败，即客户端已断开连接
+     */
+    private final CountDownLatch disconnected = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/chat/completions", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream body = exchange.getResponseBody()) {
+                // 持续输出，直到客户端断开
+                for (int i = 0; i < 1000; i++) {
+                    body.write(("data: {\"id\":\"1\",\"choices\":[{\"index\":0,\"delta\":{\"content\":\"chunk " + i
+                            + "\"}}]}\n\n").getBytes(StandardCharsets.UTF_8));
+                    body.flush();
+                    Thread.sleep(20);
+                }
+            } catch (IOException e) {
+                disconnected.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void cancelStopsReadingTheResponse() throws InterruptedException {
+        OpenAiStreamingChatModel model = OpenAiStreamingChatModel.builder()
+                .baseUrl("http://127.0.0.1:" + server.getAddress().getPort() + "/v1")
+                .apiKey("test")
+                .modelName("test-model")
+                .httpClientBuilder(SpringRestClient.builder()
+                        .restClientBuilder(RestClient.builder())
+                        .streamingRequestExecutor(OpenAiStreamChatModelConfig.virtualThreadExecutor(4))
+                        .createDefaultStreamingRequestExecutor(false))
+                .build();
+        AtomicReference<StreamingHandle> handle = new AtomicReference<>();
+        List<String> received = new CopyOnWriteArrayList<>();
+        List<String> terminalSignals = new CopyOnWriteArrayList<>();
+        CountDownLatch firstChunk = new CountDownLatch(1);
+
+        model.chat("做一个页面", new StreamingChatResponseHandler() {
+
+            @Override
+            public void onStreamingStart(StreamingHandle streamingHandle) {
+                handle.set(streamingHandle);
+            }
+
+            @Override
+            public void onPartialResponse(String partialResponse) {
+                received.add(partialResponse);
+                handle.get().cancel();
+                firstChunk.countDown();
+            }
+
+            @Override
+            public void onCompleteResponse(ChatResponse completeResponse) {
+                terminalSignals.add("complete");
+            }
+
+            @Override
+            public void onError(Throwable error) {
+                terminalSignals.add("error: " + error);
+            }
+        });
+
+        assertTrue(firstChunk.await(5, TimeUnit.SECONDS));
+        // 取消后连接被关闭，服务端不必写完 1000 个片段
+        assertTrue(disconnected.await(5, TimeUnit.SECONDS));
+        assertTrue(handle.get().isCancelled());
+        assertEquals(List.of("chunk 0"), received);
+        assertEquals(List.of(), terminalSignals);
+    }
+}
@@ -0,0 +1,169 @@
+package dev.langchain4j.service;
+
+import dev.langchain4j.agent.tool.P;
+import dev.langchain4j.agent.tool.Tool;
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.chat.response.StreamingHandle;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AiServiceTokenStreamCancelTest {
+
+    interface Assistant {
+
+        TokenStream chat(@MemoryId long appId, @dev.langchain4j.service.UserMessage String message);
+    }
+
+    private final ConcurrentHashMap<Object, MessageWindowChatMemory> memories = new ConcurrentHashMap<>();
+
+    @Test
+    void cancelSkipsPendingToolsAndFollowUpRequest() {
+        FakeModel model = new FakeModel((request, handler) -> handler.onCompleteResponse(ChatResponse.builder()
+                .aiMessage(AiMessage.from(List.of(writeFile("1", "a.txt"), writeFile("2", "b.txt"))))
+                .build()));
+        Tools tools = new Tools();
+        TokenStream stream = assistant(model, tools).chat(1L, "做一个页面");
+        tools.onWrite = path -> stream.cancel();
+        AtomicBoolean completed = new AtomicBoolean();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        stream.onPartialResponse(ignored -> {
+                })
+                .onCompleteResponse(ignored -> completed.set(true))
+                .onError(errors::add)
+                .start();
+
+        // 第一个工具执行时取消：第二个工具不再执行，也不再发送后续请求
+        assertEquals(List.of("a.txt"), tools.written);
+        assertEquals(1, model.requests.get());
+        assertFalse(completed.get());
+        assertEquals(List.of(), errors);
+        List<ChatMessage> messages = memories.get(1L).messages();
+        assertEquals(4, messages.size());
+        assertInstanceOf(UserMessage.class, messages.get(0));
+        assertTrue(((AiMessage) messages.get(1)).hasToolExecutionRequests());
+        // 每个工具调用都有结果，下一轮请求不会因为缺少工具结果被拒绝
+        ToolExecutionResultMessage executed = (ToolExecutionResultMessage) messages.get(2);
+        assertEquals("1", executed.id());
+        assertEquals("写入成功: a.txt", executed.text());
+        ToolExecutionResultMessage skipped = (ToolExecutionResultMessage) messages.get(3);
+        assertEquals("2", skipped.id());
+        assertTrue(skipped.text().contains("cancelled"));
+    }
+
+    @Test
+    void cancelStopsInFlightRequest() {
+        List<StreamingHandle> handles = new ArrayList<>();
+        FakeModel model = new FakeModel((request, handler) -> {
+            StreamingHandle handle = new FakeHandle();
+            handles.add(handle);
+            handler.onStreamingStart(handle);
+            handler.onPartialResponse("<html>");
+            // 模型不支持中断时，取消之后到达的内容也会被丢弃
+            handler.onPartialResponse("</html>");
+            handler.onCompleteResponse(ChatResponse.builder().aiMessage(AiMessage.from("<html></html>")).build());
+        });
+        TokenStream stream = assistant(model, new Tools()).chat(2L, "做一个页面");
+        List<String> received = new ArrayList<>();
+        AtomicBoolean completed = new AtomicBoolean();
+        List<Throwable> errors = new CopyOnWriteArrayList<>();
+        stream.onPartialResponse(partial -> {
+                    received.add(partial);
+                    stream.cancel();
+                })
+                .onCompleteResponse(ignored -> completed.set(true))
+                .onError(errors::add)
+                .start();
+
+        assertTrue(handles.get(0).isCancelled());
+        assertEquals(List.of("<html>"), received);
+        assertFalse(completed.get());
+        assertEquals(List.of(), errors);
+        // 未完成的回复不写入记忆
+        assertEquals(1, memories.get(2L).messages().size());
+    }
+
+    private Assistant assistant(StreamingChatModel model, Tools tools) {
+        return AiServices.builder(Assistant.class)
+                .streamingChatModel(model)
+                .chatMemoryProvider(id -> memories.computeIfAbsent(id, key -> MessageWindowChatMemory.withMaxMessages(20)))
+                .tools(tools)
+                .build();
+    }
+
+    private static ToolExecutionRequest writeFile(String id, String path) {
+        return ToolExecutionRequest.builder()
+                .id(id)
+                .name("writeFile")
+                .arguments("{\"path\":\"" + path + "\"}")
+                .build();
+    }
+
+    static class Tools {
+
+        private final List<String> written = new ArrayList<>();
+
+        private Consumer<String> onWrite = path -> {
+        };
+
+        @Tool("写入文件")
+        public String writeFile(@P("文件路径") String path) {
+            written.add(path);
+            onWrite.accept(path);
+            return "写入成功: " + path;
+        }
+    }
+
+    private static class FakeModel implements StreamingChatModel {
+
+        private final AtomicInteger requests = new AtomicInteger();
+
+        private final BiConsumer<ChatRequest, StreamingChatResponseHandler> responder;
+
+        private FakeModel(BiConsumer<ChatRequest, StreamingChatResponseHandler> responder) {
+            this.responder = responder;
+        }
+
+        @Override
+        public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+            requests.incrementAndGet();
+            responder.accept(chatRequest, handler);
+        }
+    }
+
+    private static class FakeHandle implements StreamingHandle {
+
+        private volatile boolean cancelled;
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+    }
+}